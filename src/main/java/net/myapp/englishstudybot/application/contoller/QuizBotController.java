@@ -1,6 +1,13 @@
 package net.myapp.englishstudybot.application.contoller;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 
 import com.linecorp.bot.client.LineMessagingClient;
 import com.linecorp.bot.model.event.Event;
@@ -12,12 +19,31 @@ import com.linecorp.bot.spring.boot.annotation.EventMapping;
 import com.linecorp.bot.spring.boot.annotation.LineMessageHandler;
 
 import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.application.webhook.WebhookEventDeduplicator;
+import net.myapp.englishstudybot.application.webhook.WebhookEventDispatcher;
+import net.myapp.englishstudybot.application.webhook.WebhookOutbox;
+import net.myapp.englishstudybot.domain.model.WebhookOutboxEntity;
 import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
 import net.myapp.englishstudybot.domain.service.quiz.QuizService;
 import net.myapp.englishstudybot.domain.service.user.UserService;
 
 /**
  * QuizBotController handles line bot events and triggers quiz bot services.
+ * Each handler is run through WebhookEventDispatcher
+ * so that it can be executed on a thread other than the webhook thread (e.g. a virtual thread).
+ * Handlers are keyed by the LINE user ID so that events of one user are handled strictly in order.
+ * Each event is validated and admitted into the bounded queue of WebhookEventDispatcher,
+ * and the webhook returns without waiting for the quiz processing.
+ * An event delivered more than once (e.g. redelivered by LINE) is dropped by WebhookEventDeduplicator
+ * before any DB access, unless the first delivery was not admitted.
+ * A text message event is persisted in WebhookOutbox before it is dispatched,
+ * and the events not completed before the application stopped are replayed at startup.
+ * The IDs of replayed events are recorded in WebhookEventDeduplicator
+ * so that their redeliveries after the restart are dropped.
+ *
+ * NOTE:
+ * Replayed events are dispatched in the received order for each user,
+ * but a new event of the same user received during the replay may be handled before them.
  */
 @Slf4j
 @LineMessageHandler
@@ -26,16 +52,25 @@ public class QuizBotController {
     private final LineMessagingClient lineMessagingClient;
     private final UserService userService;
     private final QuizService quizService;
+    private final WebhookEventDispatcher webhookEventDispatcher;
+    private final WebhookOutbox webhookOutbox;
+    private final WebhookEventDeduplicator webhookEventDeduplicator;
 
     @Autowired
     QuizBotController(
         LineMessagingClient lineMessagingClient, 
         UserService userService,
-        QuizService quizService
+        QuizService quizService,
+        WebhookEventDispatcher webhookEventDispatcher,
+        WebhookOutbox webhookOutbox,
+        WebhookEventDeduplicator webhookEventDeduplicator
     ) {
         this.lineMessagingClient = lineMessagingClient;
         this.userService = userService;
         this.quizService = quizService;
+        this.webhookEventDispatcher = webhookEventDispatcher;
+        this.webhookOutbox = webhookOutbox;
+        this.webhookEventDeduplicator = webhookEventDeduplicator;
     }
     
     @EventMapping
@@ -46,12 +81,130 @@ public class QuizBotController {
         String replyToken = event.getReplyToken();
         String userId = event.getSource().getUserId();
         String userMessage = event.getMessage().getText();
-        LineBotAgent lineBotAgent = new LineBotAgent(lineMessagingClient, replyToken, userId, userMessage);
-        
-        quizService.provideQuizService(lineBotAgent);
+        if (userId == null || replyToken == null) {
+            // e.g. a message in a group chat, which this bot cannot reply to as a quiz
+            log.warn("The event is ignored because the user or the reply token is not specified.");
+            return;
+        }
+        if (isDuplicate(event)) {
+            return;
+        }
+        // the webhook event ID is unique for each event (and kept for a redelivered event)
+        String eventId
+         = (event.getWebhookEventId() != null) ? event.getWebhookEventId() : UUID.randomUUID().toString();
+        try {
+            WebhookOutboxEntity outboxEvent
+             = new WebhookOutboxEntity(eventId, userId, replyToken, userMessage, LocalDateTime.now());
+            // persisted before dispatched so that the event is replayed if the application stops
+            webhookOutbox.append(outboxEvent);
+
+            LineBotAgent lineBotAgent = new LineBotAgent(
+                lineMessagingClient, webhookEventDispatcher.getCallbackExecutor(), replyToken, userId, userMessage
+            );
+            if (! dispatchQuizService(eventId, lineBotAgent)) {
+                webhookEventDeduplicator.forget(event.getWebhookEventId());
+            }
+        } catch (RuntimeException e) {
+            webhookEventDeduplicator.forget(event.getWebhookEventId());
+            throw e;
+        }
         log.info("EVENT: QuizBotController#handldeTextMessageEvent");
     }
 
+    /**
+     * Replays the text message events which were not completed before the application stopped.
+     * Since their reply tokens have expired, the bot pushes messages instead of replying.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayUnfinishedEvents() {
+        log.info("START: QuizBotController#replayUnfinishedEvents");
+
+        List<WebhookOutboxEntity> outboxEvents = webhookOutbox.findReplayableEvents();
+        for (WebhookOutboxEntity outboxEvent : outboxEvents) {
+            // recorded before dispatched so that a redelivery of the event after the restart is dropped,
+            // and skipped if the redelivery has already been received
+            if (webhookEventDeduplicator.isDuplicate(outboxEvent.getEventId())) {
+                log.warn("The event is not replayed because it has been redelivered: {}", outboxEvent.getEventId());
+                continue;
+            }
+            LineBotAgent lineBotAgent
+             = new LineBotAgent(
+                lineMessagingClient,
+                webhookEventDispatcher.getCallbackExecutor(),
+                outboxEvent.getReplyToken(),
+                outboxEvent.getUsersId(),
+                outboxEvent.getMessage(),
+                true
+            );
+            dispatchQuizService(outboxEvent.getEventId(), lineBotAgent);
+        }
+        log.info("{} unfinished webhook events were replayed.", outboxEvents.size());
+
+        log.info("END: QuizBotController#replayUnfinishedEvents");
+    }
+
+    /**
+     * Checks whether an event has been received before by its webhook event ID.
+     *
+     * @param event a webhook event
+     * @return true if the event is a duplicate and must be ignored
+     */
+    private boolean isDuplicate(Event event) {
+        if (webhookEventDeduplicator.isDuplicate(event.getWebhookEventId())) {
+            log.warn("The event is ignored because it has already been received: {}", event.getWebhookEventId());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Dispatches a handler of an event, and forgets the event ID if it is not admitted
+     * so that its redelivery is handled.
+     *
+     * @param event a webhook event
+     * @param userId a LINE user ID as the key of the handler
+     * @param handler a handler of the event
+     */
+    private void dispatchInOrder(Event event, String userId, Runnable handler) {
+        boolean isAdmitted;
+        try {
+            isAdmitted = webhookEventDispatcher.dispatchInOrder(userId, handler);
+        } catch (RuntimeException e) {
+            webhookEventDeduplicator.forget(event.getWebhookEventId());
+            throw e;
+        }
+        if (! isAdmitted) {
+            webhookEventDeduplicator.forget(event.getWebhookEventId());
+        }
+    }
+
+    /**
+     * Dispatches the quiz service for a text message event,
+     * and deletes the event from WebhookOutbox after its processing completes.
+     * Returns without waiting for the reply so that the webhook thread is not blocked.
+     * The next event of the user is handled after all actions for this event are done,
+     * and a failure is logged and counted by the dispatcher.
+     *
+     * @param eventId ID of the event persisted in WebhookOutbox
+     * @param lineBotAgent LINE bot agent to reply to the event
+     * @return true if the event is admitted, or false if dropped because the queue is full
+     */
+    private boolean dispatchQuizService(String eventId, LineBotAgent lineBotAgent) {
+        boolean isAdmitted
+         = webhookEventDispatcher.dispatchAsyncInOrder(
+            lineBotAgent.getLineUserId(),
+            // started from a completed future so that a synchronous throw also completes the event
+            () -> CompletableFuture.completedFuture(null)
+                .thenCompose(ignored -> quizService.provideQuizService(lineBotAgent))
+                // a failed event is not replayed because it would fail again
+                .whenComplete((result, e) -> webhookOutbox.complete(eventId))
+        );
+        if (! isAdmitted) {
+            webhookOutbox.complete(eventId);
+        }
+        return isAdmitted;
+    }
+
     @EventMapping
     public void handleFollowEvent(FollowEvent event) {
         log.info("START: QuizBotController#handldeFollowEvent");
@@ -59,9 +212,18 @@ public class QuizBotController {
 
         String replyToken = event.getReplyToken();
         String userId = event.getSource().getUserId();
-        LineBotAgent lineBotAgent = new LineBotAgent(lineMessagingClient, replyToken, userId);
+        if (userId == null) {
+            log.warn("The event is ignored because the user is not specified.");
+            return;
+        }
+        if (isDuplicate(event)) {
+            return;
+        }
+        LineBotAgent lineBotAgent = new LineBotAgent(
+            lineMessagingClient, webhookEventDispatcher.getCallbackExecutor(), replyToken, userId
+        );
 
-        userService.addUser(lineBotAgent);
+        dispatchInOrder(event, userId, () -> userService.addUser(lineBotAgent));
         log.info("END: QuizBotController#handldeFollowEvent");
     }
 
@@ -71,8 +233,15 @@ public class QuizBotController {
         log.info("A user unfollowed this bot: {}", event);
 
         String userId = event.getSource().getUserId();
+        if (userId == null) {
+            log.warn("The event is ignored because the user is not specified.");
+            return;
+        }
+        if (isDuplicate(event)) {
+            return;
+        }
 
-        userService.deleteUser(userId);
+        dispatchInOrder(event, userId, () -> userService.deleteUser(userId));
         log.info("END: QuizBotController#handldeUnFollowEvent");
     }
 
@@ -0,0 +1,52 @@
+package net.myapp.englishstudybot.application.contoller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import net.myapp.englishstudybot.application.webhook.WebhookDedupStatsDto;
+import net.myapp.englishstudybot.application.webhook.WebhookEventDeduplicator;
+import net.myapp.englishstudybot.application.webhook.WebhookEventDispatcher;
+import net.myapp.englishstudybot.application.webhook.WebhookStatsDto;
+
+/**
+ * StatsRestController provides api to monitor the runtime metrics of this application.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsRestController {
+
+    private final WebhookEventDispatcher webhookEventDispatcher;
+    private final WebhookEventDeduplicator webhookEventDeduplicator;
+
+    @Autowired
+    StatsRestController(
+        WebhookEventDispatcher webhookEventDispatcher,
+        WebhookEventDeduplicator webhookEventDeduplicator
+    ) {
+        this.webhookEventDispatcher = webhookEventDispatcher;
+        this.webhookEventDeduplicator = webhookEventDeduplicator;
+    }
+
+    /**
+     * Gets the backpressure metrics of webhook events.
+     * 
+     * @return the metrics formatted as json as defined in WebhookStatsDto class
+     */
+    @GetMapping("/webhook")
+    public WebhookStatsDto getWebhookStats() {
+        return webhookEventDispatcher.getStats();
+    }
+
+    /**
+     * Gets the metrics of duplicate webhook events (e.g. redelivered by LINE).
+     * 
+     * @return the metrics formatted as json as defined in WebhookDedupStatsDto class
+     */
+    @GetMapping("/webhook/dedup")
+    public WebhookDedupStatsDto getWebhookDedupStats() {
+        return webhookEventDeduplicator.getStats();
+    }
+
+}
@@ -1,8 +1,18 @@
 package net.myapp.englishstudybot.application.contoller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -10,10 +20,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import net.myapp.englishstudybot.application.form.VocabCsvReader;
+import net.myapp.englishstudybot.application.form.VocabFilterForm;
 import net.myapp.englishstudybot.application.form.VocabForm;
+import net.myapp.englishstudybot.application.form.VocabPatchForm;
 import net.myapp.englishstudybot.domain.model.VocabEntity;
+import net.myapp.englishstudybot.domain.model.vocab.VocabBatchResultDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabImportResultDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabPageDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabUpdateResultDto;
 import net.myapp.englishstudybot.domain.service.vocab.VocabService;
 
 
@@ -24,21 +49,93 @@ import net.myapp.englishstudybot.domain.service.vocab.VocabService;
 @RequestMapping("/api/vocabs")
 public class VocabRestController {
 
+    // the maximum page size which can be specified in a request
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private final VocabService vocabService;
+    private final ObjectWriter vocabWriter;
+    private final ObjectReader vocabFormReader;
+    private final int defaultPageSize;
     
     @Autowired
-    VocabRestController(VocabService vocabService) {
+    VocabRestController(
+        VocabService vocabService,
+        ObjectMapper objectMapper,
+        @Value("${englishstudybot.api.vocabs.default-page-size:100}") int defaultPageSize
+    ) {
         this.vocabService = vocabService;
+        this.vocabWriter = objectMapper.writerFor(VocabEntity.class);
+        this.vocabFormReader = objectMapper.readerFor(VocabForm.class);
+        this.defaultPageSize = defaultPageSize;
     }
 
     /**
-     * Lists all records.
+     * Lists all records as a json array in the same format as before the pagination was introduced.
+     * This mapping is used when neither "after" nor "size" is specified.
+     * The records are written to the response one by one while they are extracted from DB
+     * so that the whole table is never held in memory.
      * 
-     * @return a list of all vocabulary records formatted as json as defined in VocabEntity class
+     * @return a streaming response body of a json array of all vocabulary records
+     */
+    @GetMapping(params = {"!after", "!size"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listVocabs() {
+        StreamingResponseBody body = outputStream -> {
+            boolean[] isFirst = {true};
+            outputStream.write('[');
+            vocabService.exportAllVocabs(vocab -> {
+                try {
+                    if (! isFirst[0]) {
+                        outputStream.write(',');
+                    }
+                    isFirst[0] = false;
+                    outputStream.write(vocabWriter.writeValueAsBytes(vocab));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.write(']');
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Lists one page of records ordered by id.
+     * This mapping is used when "after" or "size" is specified.
+     * The next page is requested by specifying nextCursor of the response as "after".
+     * 
+     * @param after the cursor of the page, which is nextCursor of the previous page (omitted for the first page)
+     * @param size the number of records in the page (the default size if omitted, up to MAX_PAGE_SIZE)
+     * @return a page of vocabulary records formatted as json as defined in VocabPageDto class
      */
     @GetMapping
-    public List<VocabEntity> listVocabs() {
-        return vocabService.getAllVocabs();
+    public VocabPageDto listVocabPage(
+        @RequestParam(required = false) Integer after,
+        @RequestParam(required = false) Integer size
+    ) {
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return vocabService.getVocabPage(after, pageSize);
+    }
+
+    /**
+     * Exports all records as newline delimited json (one VocabEntity per line).
+     * Records are written to the response one by one while they are extracted from DB
+     * so that the whole table is never held in memory.
+     * 
+     * @return a streaming response body of all vocabulary records
+     */
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportVocabs() {
+        StreamingResponseBody body = outputStream ->
+            vocabService.exportAllVocabs(vocab -> {
+                try {
+                    outputStream.write(vocabWriter.writeValueAsBytes(vocab));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        return ResponseEntity.ok().body(body);
     }
     
     /**
@@ -52,6 +149,40 @@ public class VocabRestController {
         return vocabService.addVocab(vocabForm.toEntity(null));
     }
 
+    /**
+     * Imports new records at once from newline delimited json (one VocabForm per line).
+     * 
+     * @param inputStream a request body of new vocabulary records
+     * @return the result of the import formatted as json as defined in VocabImportResultDto class
+     */
+    @PostMapping(value = "/import", consumes = NDJSON_MEDIA_TYPE)
+    public VocabImportResultDto importVocabsFromNdjson(InputStream inputStream) throws IOException {
+        List<VocabForm> vocabForms;
+        try (MappingIterator<VocabForm> iterator = vocabFormReader.readValues(inputStream)) {
+            vocabForms = iterator.readAll();
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return importVocabs(vocabForms);
+    }
+
+    /**
+     * Imports new records at once from CSV with a header line (encoded in UTF-8).
+     * 
+     * @param inputStream a request body of new vocabulary records
+     * @return the result of the import formatted as json as defined in VocabImportResultDto class
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public VocabImportResultDto importVocabsFromCsv(InputStream inputStream) throws IOException {
+        List<VocabForm> vocabForms;
+        try {
+            vocabForms = VocabCsvReader.read(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return importVocabs(vocabForms);
+    }
+
     /**
      * Deletes one existing record.
      * 
@@ -73,4 +204,46 @@ public class VocabRestController {
     public VocabEntity updateVocab(@PathVariable Integer id, @RequestBody VocabForm vocabForm) {
         return vocabService.update(vocabForm.toEntity(id));
     }
+
+    /**
+     * Deletes existing records matching a filter at once.
+     * 
+     * @param vocabFilterForm a filter of the records to be deleted (ids and/or usersId)
+     * @return the number of deleted records formatted as json as defined in VocabBatchResultDto class
+     */
+    @DeleteMapping
+    public VocabBatchResultDto deleteVocabs(@RequestBody VocabFilterForm vocabFilterForm) {
+        try {
+            List<Integer> deletedIds
+             = vocabService.deleteVocabs(vocabFilterForm.getIds(), vocabFilterForm.getUsersId());
+            return new VocabBatchResultDto(deletedIds.size());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Updates existing records at once.
+     * Nothing is updated and 409 is returned if a spelling conflicts with another record of the same user.
+     * 
+     * @param vocabPatchForms updated vocabulary column values with the primary keys
+     * @return the result of the update formatted as json as defined in VocabUpdateResultDto class
+     */
+    @PatchMapping
+    public VocabUpdateResultDto updateVocabs(@RequestBody List<VocabPatchForm> vocabPatchForms) {
+        try {
+            return vocabService.updateVocabs(vocabPatchForms.stream().map(VocabPatchForm::toEntity).toList());
+        } catch (DuplicateKeyException e) {
+            throw new ResponseStatusException(
+                HttpStatus.CONFLICT, "The same spelling is already registered by the user.", e
+            );
+        }
+    }
+
+    private VocabImportResultDto importVocabs(List<VocabForm> vocabForms) {
+        return vocabService.importVocabs(
+            vocabForms.stream().map(vocabForm -> vocabForm.toEntity(null)).toList()
+        );
+    }
+
 }
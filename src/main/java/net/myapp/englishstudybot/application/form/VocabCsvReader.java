@@ -0,0 +1,131 @@
+package net.myapp.englishstudybot.application.form;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * VocabCsvReader is a class which reads vocabulary records from CSV (RFC 4180) as VocabForm.
+ * The first line should be a header of the following column names in any order:
+ *  spelling, meaning, exampleEn, exampleJp, usersId
+ * (snake case names such as example_en are also accepted, and unknown columns are ignored).
+ * 
+ * NOTE:
+ * A field may be enclosed in double quotes to contain commas, line breaks and double quotes,
+ * where a double quote is escaped by another double quote.
+ * An empty field is read as null so that its default value is assigned.
+ */
+public class VocabCsvReader {
+
+    private final Reader reader;
+    // the next character read in advance, or -2 if not read yet
+    private int nextChar = -2;
+
+    private VocabCsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads all records from CSV.
+     * 
+     * @param reader a reader of CSV with a header line
+     * @return a list of vocabulary forms in the order of the lines
+     * @throws IOException if CSV cannot be read
+     * @throws IllegalArgumentException if CSV has no header line
+     */
+    public static List<VocabForm> read(Reader reader) throws IOException {
+        VocabCsvReader csvReader = new VocabCsvReader(reader);
+        if (csvReader.peek() == '\uFEFF') {
+            // skips BOM (e.g. added by Excel)
+            csvReader.next();
+        }
+        List<String> header = csvReader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV has no header line.");
+        }
+        List<String> columnNames
+         = header.stream()
+            .map(name -> (name == null) ? "" : name.trim().replace("_", "").toLowerCase())
+            .toList();
+
+        List<VocabForm> vocabForms = new ArrayList<>();
+        List<String> fields;
+        while ((fields = csvReader.readLine()) != null) {
+            if (fields.size() == 1 && fields.get(0) == null) {
+                // skips an empty line
+                continue;
+            }
+            VocabForm vocabForm = new VocabForm();
+            for (int i = 0; i < Math.min(fields.size(), columnNames.size()); i++) {
+                String value = fields.get(i);
+                switch (columnNames.get(i)) {
+                    case "spelling" -> vocabForm.setSpelling(value);
+                    case "meaning" -> vocabForm.setMeaning(value);
+                    case "exampleen" -> vocabForm.setExampleEn(value);
+                    case "examplejp" -> vocabForm.setExampleJp(value);
+                    case "usersid" -> vocabForm.setUsersId(value);
+                    default -> { }
+                }
+            }
+            vocabForms.add(vocabForm);
+        }
+        return vocabForms;
+    }
+
+    /**
+     * Reads fields of one line.
+     * 
+     * @return a list of fields (null for an empty field), or null at the end of CSV
+     */
+    private List<String> readLine() throws IOException {
+        if (peek() == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isQuoted = false;
+        while (true) {
+            int c = next();
+            if (isQuoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("CSV has an unclosed double quote.");
+                } else if (c == '"' && peek() == '"') {
+                    next();
+                    field.append('"');
+                } else if (c == '"') {
+                    isQuoted = false;
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                isQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.isEmpty() ? null : field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    next();
+                }
+                fields.add(field.isEmpty() ? null : field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (nextChar == -2) {
+            nextChar = reader.read();
+        }
+        return nextChar;
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        nextChar = -2;
+        return c;
+    }
+
+}
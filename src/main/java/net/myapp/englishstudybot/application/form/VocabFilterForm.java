@@ -0,0 +1,15 @@
+package net.myapp.englishstudybot.application.form;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * VocabFilterForm is a filter of a batch delete request.
+ * Conditions specified as not null are combined with AND.
+ */
+@Data
+public class VocabFilterForm {
+    private List<Integer> ids;
+    private String usersId;
+}
@@ -0,0 +1,31 @@
+package net.myapp.englishstudybot.application.form;
+
+import lombok.Data;
+import net.myapp.englishstudybot.domain.model.VocabEntity;
+
+/**
+ * VocabPatchForm is one element of a batch update request.
+ * Columns not specified (null) are not updated.
+ */
+@Data
+public class VocabPatchForm {
+    private Integer id;
+    private String spelling;
+    private String meaning;
+    private String exampleEn;
+    private String exampleJp;
+
+    public VocabEntity toEntity() {
+        return new VocabEntity(
+                this.id,
+                this.spelling,
+                this.meaning,
+                this.exampleEn,
+                this.exampleJp,
+                null, 
+                null,
+                null
+            );
+        
+    }
+}
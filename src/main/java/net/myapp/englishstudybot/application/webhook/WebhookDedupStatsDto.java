@@ -0,0 +1,19 @@
+package net.myapp.englishstudybot.application.webhook;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * WebhookDedupStatsDto is a snapshot of the metrics of WebhookEventDeduplicator.
+ */
+@Data
+@AllArgsConstructor
+public class WebhookDedupStatsDto {
+    // event IDs kept to detect duplicates
+    private int keptEventIdCount;
+    // events with IDs checked since the startup
+    private long checkedCount;
+    // events dropped as duplicates since the startup
+    private long duplicateCount;
+    private double duplicateRate;
+}
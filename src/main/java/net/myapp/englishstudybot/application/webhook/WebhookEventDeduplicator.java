@@ -0,0 +1,113 @@
+package net.myapp.englishstudybot.application.webhook;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * WebhookEventDeduplicator is a class which detects webhook events delivered more than once
+ * (e.g. redelivered by LINE after a timeout) by their webhook event IDs.
+ *
+ * The IDs of recently received events are kept in the received order,
+ * and an event whose ID is kept is regarded as a duplicate.
+ * Both the check and the record of an ID take O(1) time without any DB access,
+ * so that a duplicate is dropped before any work for it starts.
+ *
+ * NOTE:
+ * IDs are kept for "englishstudybot.webhook.dedup.retention-minutes"
+ * and at most "englishstudybot.webhook.dedup.max-size" IDs are kept to limit the memory usage.
+ * A duplicate delivered after its ID is discarded is not detected.
+ * The ID of an event which is not handled (e.g. dropped because the queue is full) is forgotten
+ * so that its redelivery is handled.
+ * An exact set is used rather than a probabilistic one (e.g. a bloom filter)
+ * because a false positive would drop a user's message.
+ */
+@Slf4j
+@Component
+public class WebhookEventDeduplicator {
+
+    private final int maxSize;
+    private final long retentionNanos;
+
+    // the received time of each event ID in the received order
+    private final Map<String, Long> receivedTimesById
+     = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private long checkedCount;
+    private long duplicateCount;
+
+    @Autowired
+    public WebhookEventDeduplicator(
+        @Value("${englishstudybot.webhook.dedup.max-size:10000}") int maxSize,
+        @Value("${englishstudybot.webhook.dedup.retention-minutes:30}") long retentionMinutes
+    ) {
+        this.maxSize = maxSize;
+        this.retentionNanos = TimeUnit.MINUTES.toNanos(retentionMinutes);
+    }
+
+    /**
+     * Checks whether an event has been received before, and records its ID if not.
+     *
+     * @param eventId a webhook event ID (nullable)
+     * @return true if the event is a duplicate, or false if it is new or has no ID
+     */
+    public synchronized boolean isDuplicate(String eventId) {
+        if (eventId == null) {
+            return false;
+        }
+        checkedCount++;
+
+        long now = System.nanoTime();
+        // discards expired IDs from the eldest
+        Iterator<Long> iterator = receivedTimesById.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next() < retentionNanos) {
+                break;
+            }
+            iterator.remove();
+        }
+
+        if (receivedTimesById.putIfAbsent(eventId, now) != null) {
+            duplicateCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the ID of an event which has not been handled so that its redelivery is not a duplicate.
+     *
+     * @param eventId a webhook event ID (nullable)
+     */
+    public synchronized void forget(String eventId) {
+        if (eventId != null) {
+            receivedTimesById.remove(eventId);
+        }
+    }
+
+    /**
+     * Gets the metrics of duplicate events.
+     *
+     * @return a dto of the metrics
+     */
+    public synchronized WebhookDedupStatsDto getStats() {
+        return new WebhookDedupStatsDto(
+            receivedTimesById.size(),
+            checkedCount,
+            duplicateCount,
+            (checkedCount == 0) ? 0 : (double) duplicateCount / checkedCount
+        );
+    }
+
+}
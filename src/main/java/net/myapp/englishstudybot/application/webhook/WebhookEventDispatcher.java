@@ -0,0 +1,318 @@
+package net.myapp.englishstudybot.application.webhook;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.util.KeyedSequentialExecutor;
+
+/**
+ * WebhookEventDispatcher runs handlers of LINE webhook events
+ * according to the execution mode specified by the property
+ * "englishstudybot.webhook.execution-mode":
+ *  - direct: runs a handler on the webhook (servlet) thread.
+ *  - platform: runs a handler on a fixed size pool of platform threads. (default)
+ *    The default pool size (10) equals the default maximum pool size of HikariCP,
+ *    because handlers hold a DB connection while running and more threads would only wait for connections.
+ *  - virtual: runs a handler on a new virtual thread.
+ *
+ * In the virtual mode, blocking calls in a handler (e.g. JDBC calls in DAO classes)
+ * only park the virtual thread and no longer occupy a platform thread.
+ *
+ * Handlers dispatched with a key (e.g. a LINE user ID) run strictly in the dispatched order for each key,
+ * including asynchronous actions chained to the handlers, while those with different keys run in parallel.
+ * Thereby, events sent by one user close together (e.g. a double-tap on a quick reply)
+ * never interleave their DB writes.
+ *
+ * Handlers dispatched with a key are admitted into a bounded in-process queue,
+ * and the webhook returns (i.e. LINE receives 200) as soon as the event is admitted
+ * unless the direct mode is used.
+ * The number of events admitted but not completed yet is bounded by "englishstudybot.webhook.queue-capacity",
+ * and an event beyond it is handled according to "englishstudybot.webhook.overflow-policy":
+ *  - reject: drops the event at once. (default)
+ *  - block: waits for "englishstudybot.webhook.overflow-wait-millis" at most, and drops the event if still full.
+ * The backpressure metrics (e.g. in-flight and dropped events) are provided by getStats().
+ *
+ * Actions chained to LINE API calls (e.g. DB writes after a reply) run on the callback executor
+ * provided by getCallbackExecutor(), which is the same executor as handlers except in the direct mode,
+ * where a fixed size pool of platform threads is created only for callbacks.
+ *
+ * NOTE:
+ * Virtual threads are available as a standard feature from Java SE 21.
+ * Since this application is built with Java SE 17, the virtual thread executor
+ * is looked up by reflection and the platform mode is used instead
+ * if it is not available in the running JVM.
+ */
+@Slf4j
+@Component
+public class WebhookEventDispatcher {
+
+    /**
+     * ExecutionMode defines how webhook event handlers are executed.
+     */
+    public enum ExecutionMode {
+        DIRECT,
+        PLATFORM,
+        VIRTUAL;
+
+        /**
+         * Gets an execution mode from a property value (case insensitive).
+         *
+         * @param value a property value such as "direct", "platform" or "virtual"
+         * @return the corresponding execution mode
+         */
+        public static ExecutionMode nameOf(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * OverflowPolicy defines how an event is handled when the queue is full.
+     */
+    public enum OverflowPolicy {
+        REJECT,
+        BLOCK;
+
+        /**
+         * Gets an overflow policy from a property value (case insensitive).
+         *
+         * @param value a property value such as "reject" or "block"
+         * @return the corresponding overflow policy
+         */
+        public static OverflowPolicy nameOf(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    @Getter
+    private final ExecutionMode executionMode;
+    private final ExecutorService executor;
+    private final ExecutorService callbackExecutor;
+    private final KeyedSequentialExecutor<String> keyedExecutor;
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long overflowWaitMillis;
+    // permits of events which can be admitted
+    private final Semaphore queuePermits;
+    // backpressure metrics
+    private final AtomicInteger peakInFlightCount = new AtomicInteger();
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+
+    @Autowired
+    public WebhookEventDispatcher(
+        @Value("${englishstudybot.webhook.execution-mode:platform}") String executionMode,
+        @Value("${englishstudybot.webhook.platform-pool-size:10}") int platformPoolSize,
+        @Value("${englishstudybot.webhook.queue-capacity:1000}") int queueCapacity,
+        @Value("${englishstudybot.webhook.overflow-policy:reject}") String overflowPolicy,
+        @Value("${englishstudybot.webhook.overflow-wait-millis:100}") long overflowWaitMillis
+    ) {
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = OverflowPolicy.nameOf(overflowPolicy);
+        this.overflowWaitMillis = overflowWaitMillis;
+        this.queuePermits = new Semaphore(queueCapacity);
+
+        ExecutionMode mode = ExecutionMode.nameOf(executionMode);
+        ExecutorService virtualExecutor = null;
+        if (mode == ExecutionMode.VIRTUAL) {
+            virtualExecutor = createVirtualThreadExecutor();
+            if (virtualExecutor == null) {
+                log.warn("Virtual threads are not available in this JVM. Uses platform threads instead.");
+                mode = ExecutionMode.PLATFORM;
+            }
+        }
+
+        this.executionMode = mode;
+        switch (mode) {
+            case VIRTUAL:
+                this.executor = virtualExecutor;
+                break;
+            case PLATFORM:
+                this.executor = createPlatformThreadExecutor(platformPoolSize, "webhook-");
+                break;
+            default:
+                this.executor = null;
+                break;
+        }
+        this.callbackExecutor
+         = (this.executor != null) ? this.executor : createPlatformThreadExecutor(platformPoolSize, "webhook-callback-");
+        // in the direct mode, a handler runs on the webhook thread unless one with the same key is running
+        this.keyedExecutor
+         = new KeyedSequentialExecutor<>((this.executor == null) ? Runnable::run : this.executor);
+        log.info("Webhook event execution mode: {}", this.executionMode);
+    }
+
+    /**
+     * Dispatches a webhook event handler which runs after all handlers dispatched before with the same key.
+     * Exceptions thrown by the handler are logged and never propagated to the webhook thread.
+     *
+     * @param key a key of the handler (e.g. a LINE user ID)
+     * @param handler a handler of a webhook event
+     * @return true if the event is admitted, or false if dropped because the queue is full
+     */
+    public boolean dispatchInOrder(String key, Runnable handler) {
+        return dispatchAsyncInOrder(key, () -> {
+            handler.run();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Dispatches an asynchronous webhook event handler which runs after all handlers
+     * dispatched before with the same key complete.
+     * The next handler with the same key starts after the future returned by this handler completes.
+     * Exceptions thrown by the handler are logged and never propagated to the webhook thread.
+     *
+     * @param key a key of the handler (e.g. a LINE user ID)
+     * @param handler a handler of a webhook event which returns a future of its completion
+     * @return true if the event is admitted, or false if dropped because the queue is full
+     */
+    public <T> boolean dispatchAsyncInOrder(String key, Supplier<? extends CompletionStage<T>> handler) {
+        if (! admit()) {
+            rejectedCount.incrementAndGet();
+            log.warn("A webhook event is dropped because the queue is full.");
+            return false;
+        }
+        acceptedCount.incrementAndGet();
+        peakInFlightCount.accumulateAndGet(queueCapacity - queuePermits.availablePermits(), Math::max);
+
+        long admittedAt = System.nanoTime();
+        keyedExecutor.submit(key, () -> {
+                startedCount.incrementAndGet();
+                totalQueueNanos.addAndGet(System.nanoTime() - admittedAt);
+                return handler.get();
+            })
+            .whenComplete((result, e) -> {
+                queuePermits.release();
+                if (e != null) {
+                    failedCount.incrementAndGet();
+                    log.error("Handling webhook event failed: {}", e.getMessage(), e);
+                } else {
+                    completedCount.incrementAndGet();
+                }
+            });
+        return true;
+    }
+
+    /**
+     * Gets the executor on which actions chained to LINE API calls run.
+     *
+     * @return the callback executor
+     */
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * Gets the backpressure metrics of the events dispatched with keys.
+     *
+     * @return a dto of the metrics
+     */
+    public WebhookStatsDto getStats() {
+        long started = startedCount.get();
+        return new WebhookStatsDto(
+            executionMode.name().toLowerCase(Locale.ROOT),
+            overflowPolicy.name().toLowerCase(Locale.ROOT),
+            queueCapacity,
+            queueCapacity - queuePermits.availablePermits(),
+            peakInFlightCount.get(),
+            acceptedCount.get(),
+            rejectedCount.get(),
+            completedCount.get(),
+            failedCount.get(),
+            (started == 0) ? 0 : totalQueueNanos.get() / (started * 1_000_000.0)
+        );
+    }
+
+    /**
+     * Acquires a permit of the queue according to the overflow policy.
+     *
+     * @return true if a permit is acquired
+     */
+    private boolean admit() {
+        if (overflowPolicy == OverflowPolicy.REJECT) {
+            return queuePermits.tryAcquire();
+        }
+        try {
+            return queuePermits.tryAcquire(overflowWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Stops accepting new handlers and waits for running handlers to finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        callbackExecutor.shutdown();
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (! executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Some webhook event handlers did not finish before shutdown.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates a fixed size pool of platform threads.
+     *
+     * @param poolSize the number of threads
+     * @param threadNamePrefix a prefix of thread names
+     * @return an executor service of platform threads
+     */
+    private ExecutorService createPlatformThreadExecutor(int poolSize, String threadNamePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates an executor which starts a new virtual thread for each task
+     * by invoking Executors#newVirtualThreadPerTaskExecutor reflectively.
+     *
+     * @return an executor service of virtual threads, or null if not available
+     */
+    private ExecutorService createVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // on Java SE 19 and 20 virtual threads are a preview feature and may be disabled
+            log.debug("Virtual thread executor is not available: {}", e.toString());
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,285 @@
+package net.myapp.englishstudybot.application.webhook;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.model.WebhookOutboxEntity;
+import net.myapp.englishstudybot.domain.repository.WebhookOutboxRepository;
+
+/**
+ * WebhookOutbox is a class which persists webhook message events before they are processed
+ * so that events being processed when the application stops can be replayed at the next startup.
+ *
+ * An event is appended to webhook_outbox table before it is dispatched,
+ * and deleted from the table after its processing completes (or fails).
+ * Hence, the events left in the table at startup are exactly those not completed.
+ *
+ * Writes are group-committed by one background thread:
+ * appends and completions requested while the previous batch is being committed
+ * are written together in one transaction, so that the durability costs one commit per batch.
+ * An append returns after its batch is committed, while a completion returns at once.
+ * Completions in a failed batch are queued again and retried at most MAX_COMPLETE_ATTEMPTS times,
+ * so that answered events are not replayed at the next startup because of a transient failure.
+ *
+ * NOTE:
+ * Events are processed at least once; an event completed just before a crash may be replayed.
+ * Events older than "englishstudybot.webhook.outbox.replay-max-age-minutes" are not replayed
+ * because a quiz given long after the user's message would be confusing.
+ * The outbox is disabled by the property "englishstudybot.webhook.outbox.enabled=false".
+ */
+@Slf4j
+@Component
+public class WebhookOutbox {
+
+    private final WebhookOutboxRepository webhookOutboxRepository;
+    private final boolean isEnabled;
+    private final int maxBatchSize;
+    private final long replayMaxAgeMinutes;
+
+    // the number of attempts to delete a completed event before giving up (then it is replayed)
+    private static final int MAX_COMPLETE_ATTEMPTS = 3;
+    // the wait after a failed batch so that the retries do not flood a failing DB
+    private static final long RETRY_WAIT_MILLIS = 1000;
+
+    // writes waiting for the next group commit
+    private final BlockingQueue<OutboxWrite> pendingWrites = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // guarded by this so that no writes are queued after the writer stops
+    private boolean isRunning;
+
+    @Autowired
+    WebhookOutbox(
+        WebhookOutboxRepository webhookOutboxRepository,
+        @Value("${englishstudybot.webhook.outbox.enabled:true}") boolean isEnabled,
+        @Value("${englishstudybot.webhook.outbox.batch-size:100}") int maxBatchSize,
+        @Value("${englishstudybot.webhook.outbox.replay-max-age-minutes:60}") long replayMaxAgeMinutes
+    ) {
+        this.webhookOutboxRepository = webhookOutboxRepository;
+        this.isEnabled = isEnabled;
+        this.maxBatchSize = maxBatchSize;
+        this.replayMaxAgeMinutes = replayMaxAgeMinutes;
+        this.writer = new Thread(this::writeLoop, "webhook-outbox");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Starts the background thread after the bean is initialized.
+     */
+    @PostConstruct
+    public void start() {
+        if (! isEnabled) {
+            return;
+        }
+        synchronized (this) {
+            isRunning = true;
+        }
+        writer.start();
+    }
+
+    /**
+     * Persists a webhook event and waits for the commit.
+     *
+     * @param event a webhook event to be persisted
+     * @return true if the event is persisted, or false if the outbox is disabled or failed
+     */
+    public boolean append(WebhookOutboxEntity event) {
+        if (! isEnabled) {
+            return false;
+        }
+        OutboxWrite write = new OutboxWrite(event, null, new CompletableFuture<>(), 1);
+        synchronized (this) {
+            if (! isRunning) {
+                return false;
+            }
+            pendingWrites.add(write);
+        }
+
+        try {
+            write.committed().join();
+            return true;
+        } catch (CompletionException e) {
+            log.warn("The webhook event is processed without being persisted: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes a persisted webhook event asynchronously after its processing.
+     *
+     * @param eventId ID of the completed webhook event
+     */
+    public void complete(String eventId) {
+        if (! isEnabled) {
+            return;
+        }
+        OutboxWrite write = new OutboxWrite(null, eventId, null, 1);
+        synchronized (this) {
+            if (isRunning) {
+                pendingWrites.add(write);
+                return;
+            }
+        }
+        // after the writer stopped (e.g. an event completed during the shutdown)
+        if (! writeBatch(List.of(write)).isEmpty()) {
+            log.error("The completed webhook event is left and will be replayed: {}", eventId);
+        }
+    }
+
+    /**
+     * Extracts the persisted events to be replayed in the received order.
+     * Events too old to be replayed are deleted.
+     *
+     * @return a list of webhook events not completed yet
+     */
+    public List<WebhookOutboxEntity> findReplayableEvents() {
+        if (! isEnabled) {
+            return List.of();
+        }
+        LocalDateTime replayableFrom = LocalDateTime.now().minusMinutes(replayMaxAgeMinutes);
+        Predicate<WebhookOutboxEntity> isReplayable = event -> event.getReceivedAt().isAfter(replayableFrom);
+
+        List<WebhookOutboxEntity> events = webhookOutboxRepository.findAll();
+        List<String> expiredEventIds
+         = events.stream()
+            .filter(isReplayable.negate())
+            .map(WebhookOutboxEntity::getEventId)
+            .toList();
+        if (! expiredEventIds.isEmpty()) {
+            log.warn("{} webhook events are discarded without being replayed.", expiredEventIds.size());
+            webhookOutboxRepository.write(List.of(), expiredEventIds);
+        }
+
+        return events.stream().filter(isReplayable).toList();
+    }
+
+    /**
+     * Stops the background thread after the pending writes are committed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            isRunning = false;
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // writes left if the writer did not finish in time
+        List<OutboxWrite> writes = new ArrayList<>();
+        pendingWrites.drainTo(writes);
+        if (! writes.isEmpty() && ! writeBatch(writes).isEmpty()) {
+            log.error("Some completed webhook events are left and will be replayed.");
+        }
+    }
+
+    /**
+     * Commits the pending writes in batches until the outbox is stopped and no writes are left.
+     */
+    private void writeLoop() {
+        List<OutboxWrite> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            OutboxWrite firstWrite;
+            try {
+                firstWrite = pendingWrites.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (firstWrite == null) {
+                synchronized (this) {
+                    if (! isRunning && pendingWrites.isEmpty()) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            // writes queued while the previous batch was being committed are committed together
+            batch.add(firstWrite);
+            pendingWrites.drainTo(batch, maxBatchSize - 1);
+            List<OutboxWrite> retriedWrites = writeBatch(batch);
+            batch.clear();
+            if (retriedWrites.isEmpty()) {
+                continue;
+            }
+
+            pendingWrites.addAll(retriedWrites);
+            try {
+                Thread.sleep(RETRY_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction and notifies the waiting appends of the result.
+     *
+     * @param batch writes to be committed together
+     * @return completions to be retried because the batch failed (empty if committed)
+     */
+    private List<OutboxWrite> writeBatch(List<OutboxWrite> batch) {
+        List<WebhookOutboxEntity> addedEvents = new ArrayList<>();
+        List<String> completedEventIds = new ArrayList<>();
+        for (OutboxWrite write : batch) {
+            if (write.addedEvent() != null) {
+                addedEvents.add(write.addedEvent());
+            } else {
+                completedEventIds.add(write.completedEventId());
+            }
+        }
+
+        try {
+            webhookOutboxRepository.write(addedEvents, completedEventIds);
+            batch.stream()
+                .filter(write -> write.committed() != null)
+                .forEach(write -> write.committed().complete(null));
+            return List.of();
+        } catch (RuntimeException e) {
+            log.error("Writing webhook outbox failed: {}", e.getMessage());
+            batch.stream()
+                .filter(write -> write.committed() != null)
+                .forEach(write -> write.committed().completeExceptionally(e));
+        }
+
+        List<OutboxWrite> retriedWrites = new ArrayList<>();
+        for (OutboxWrite write : batch) {
+            if (write.completedEventId() == null) {
+                continue;
+            }
+            if (write.attempts() < MAX_COMPLETE_ATTEMPTS) {
+                retriedWrites.add(
+                    new OutboxWrite(null, write.completedEventId(), null, write.attempts() + 1)
+                );
+            } else {
+                log.error("The completed webhook event is left and will be replayed: {}", write.completedEventId());
+            }
+        }
+        return retriedWrites;
+    }
+
+    /**
+     * OutboxWrite is either an appended event with a future of its commit or an ID of a completed event,
+     * with the number of attempts to write it.
+     */
+    private record OutboxWrite(
+        WebhookOutboxEntity addedEvent, String completedEventId, CompletableFuture<Void> committed, int attempts
+    ) {}
+
+}
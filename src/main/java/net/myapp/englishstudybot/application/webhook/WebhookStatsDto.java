@@ -0,0 +1,25 @@
+package net.myapp.englishstudybot.application.webhook;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * WebhookStatsDto is a snapshot of the backpressure metrics of WebhookEventDispatcher.
+ */
+@Data
+@AllArgsConstructor
+public class WebhookStatsDto {
+    private String executionMode;
+    private String overflowPolicy;
+    private int queueCapacity;
+    // events admitted but not completed yet (waiting or running)
+    private int inFlightCount;
+    private int peakInFlightCount;
+    private long acceptedCount;
+    // events dropped because the queue was full
+    private long rejectedCount;
+    private long completedCount;
+    private long failedCount;
+    // the average time from admission to the start of handling
+    private double averageQueueMillis;
+}
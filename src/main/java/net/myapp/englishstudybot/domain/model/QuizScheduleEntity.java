@@ -0,0 +1,22 @@
+package net.myapp.englishstudybot.domain.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class QuizScheduleEntity {
+
+    private Integer vocabulariesId;
+    private String usersId;
+    private Boolean isJpQuestionQuiz;
+    private Integer repetitions;
+    private Integer intervalDays;
+    private Double easeFactor;
+    private LocalDateTime dueAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+}
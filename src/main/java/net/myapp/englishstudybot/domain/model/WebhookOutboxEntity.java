@@ -0,0 +1,18 @@
+package net.myapp.englishstudybot.domain.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class WebhookOutboxEntity {
+
+    private String eventId;
+    private String usersId;
+    private String replyToken;
+    private String message;
+    private LocalDateTime receivedAt;
+
+}
@@ -0,0 +1,20 @@
+package net.myapp.englishstudybot.domain.model.quiz;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * QuizAnswerDto is a result of a user's answer to a quiz,
+ * which is written to quiz_aggregations and quiz_schedules tables.
+ */
+@Data
+@AllArgsConstructor
+public class QuizAnswerDto {
+    private Integer vocabulariesId;
+    private String usersId;
+    private Boolean isJpQuestionQuiz;
+    private Boolean isAnswerCorrect;
+    private LocalDateTime answeredAt;
+}
@@ -0,0 +1,15 @@
+package net.myapp.englishstudybot.domain.model.quiz;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * QuizCandidateDto is a vocabulary which had been given as a quiz to a user
+ * and may be selected by QuizSelectionStrategy, composed of its ID and score.
+ */
+@Data
+@AllArgsConstructor
+public class QuizCandidateDto {
+    private Integer vocabularyId;
+    private QuizSelectionScore score;
+}
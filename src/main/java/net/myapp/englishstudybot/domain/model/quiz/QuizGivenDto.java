@@ -0,0 +1,19 @@
+package net.myapp.englishstudybot.domain.model.quiz;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * QuizGivenDto is a record of a quiz given to a user,
+ * which is written to quiz_aggregations table.
+ */
+@Data
+@AllArgsConstructor
+public class QuizGivenDto {
+    private Integer vocabulariesId;
+    private String usersId;
+    private Boolean isJpQuestionQuiz;
+    private LocalDateTime givenAt;
+}
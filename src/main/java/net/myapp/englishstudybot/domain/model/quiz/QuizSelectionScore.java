@@ -0,0 +1,28 @@
+package net.myapp.englishstudybot.domain.model.quiz;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * QuizSelectionScore is a score of a quiz candidate given by QuizSelectionStrategy.
+ * Scores are compared by the tier first and then by the value, and the higher one is preferred.
+ * A tier represents a step of the cascade (e.g. "not given yet, else the oldest"),
+ * and the value orders candidates in the same tier.
+ */
+@Data
+@AllArgsConstructor
+public class QuizSelectionScore implements Comparable<QuizSelectionScore> {
+    // a step of the cascade (higher is preferred)
+    private int tier;
+    // a score in the tier (higher is preferred)
+    private double value;
+
+    @Override
+    public int compareTo(QuizSelectionScore other) {
+        if (tier != other.tier) {
+            return Integer.compare(tier, other.tier);
+        }
+        // NOTE: not Double.compare, which regards -0.0 (e.g. a negated zero ratio) as less than 0.0
+        return (value < other.value) ? -1 : ((value > other.value) ? 1 : 0);
+    }
+}
@@ -0,0 +1,14 @@
+package net.myapp.englishstudybot.domain.model.quiz;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import net.myapp.englishstudybot.domain.model.VocabEntity;
+
+@Data
+@AllArgsConstructor
+public class QuizVocabsDto {
+    private VocabEntity targetVocab;
+    private List<VocabEntity> candidateVocabs;
+}
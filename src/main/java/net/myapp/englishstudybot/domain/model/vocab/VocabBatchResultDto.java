@@ -0,0 +1,13 @@
+package net.myapp.englishstudybot.domain.model.vocab;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * VocabBatchResultDto is a result of a batch delete of vocabularies.
+ */
+@Data
+@AllArgsConstructor
+public class VocabBatchResultDto {
+    private int affectedCount;
+}
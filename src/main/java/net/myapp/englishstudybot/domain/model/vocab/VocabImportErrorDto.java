@@ -0,0 +1,16 @@
+package net.myapp.englishstudybot.domain.model.vocab;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * VocabImportErrorDto is a row which is not imported in a bulk import.
+ * row is the 1-based number of the record in the imported data (excluding a CSV header).
+ */
+@Data
+@AllArgsConstructor
+public class VocabImportErrorDto {
+    private int row;
+    private String spelling;
+    private String reason;
+}
@@ -0,0 +1,18 @@
+package net.myapp.englishstudybot.domain.model.vocab;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * VocabImportResultDto is a result of a bulk import of vocabularies.
+ * Only rows which are not imported (e.g. duplicates) are reported one by one.
+ */
+@Data
+@AllArgsConstructor
+public class VocabImportResultDto {
+    private int totalCount;
+    private int importedCount;
+    private List<VocabImportErrorDto> errors;
+}
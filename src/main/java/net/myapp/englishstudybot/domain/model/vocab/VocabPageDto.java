@@ -0,0 +1,18 @@
+package net.myapp.englishstudybot.domain.model.vocab;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import net.myapp.englishstudybot.domain.model.VocabEntity;
+
+/**
+ * VocabPageDto is a page of vocabularies ordered by id for keyset (cursor) pagination.
+ * nextCursor is the id to be specified to get the next page, and null for the last page.
+ */
+@Data
+@AllArgsConstructor
+public class VocabPageDto {
+    private List<VocabEntity> vocabs;
+    private Integer nextCursor;
+}
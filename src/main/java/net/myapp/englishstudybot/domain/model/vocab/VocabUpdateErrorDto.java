@@ -0,0 +1,14 @@
+package net.myapp.englishstudybot.domain.model.vocab;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * VocabUpdateErrorDto is a record which is not updated in a batch update.
+ */
+@Data
+@AllArgsConstructor
+public class VocabUpdateErrorDto {
+    private Integer id;
+    private String reason;
+}
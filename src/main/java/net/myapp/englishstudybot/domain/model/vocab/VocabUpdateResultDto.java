@@ -0,0 +1,18 @@
+package net.myapp.englishstudybot.domain.model.vocab;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * VocabUpdateResultDto is a result of a batch update of vocabularies.
+ * Only records which are not updated (e.g. invalid values) are reported one by one.
+ */
+@Data
+@AllArgsConstructor
+public class VocabUpdateResultDto {
+    private int totalCount;
+    private int updatedCount;
+    private List<VocabUpdateErrorDto> errors;
+}
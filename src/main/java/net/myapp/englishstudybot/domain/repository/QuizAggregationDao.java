@@ -1,14 +1,16 @@
 package net.myapp.englishstudybot.domain.repository;
 
-import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
@@ -16,7 +18,9 @@ import org.springframework.stereotype.Repository;
 
 import lombok.extern.slf4j.Slf4j;
 import net.myapp.englishstudybot.domain.model.QuizAggregationEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerDto;
 import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerRatioDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizGivenDto;
 
 /**
  * QuizAggregationDao is an implementation of QuizAggregationRepository by using JdbcTemplate.
@@ -29,10 +33,6 @@ import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerRatioDto;
  *    Thereby, maintanability is expected to improve
  *    because query and each DB parameters such as table name could be independent
  *    of repository class file.
- * 3) All add or update methods use to findById return entity, which might be better to be changed.
- *    This is because those methods access DB at least twice
- *    which could delay this class's behavior when DB records are huge.
- *    Instead, use RETURNING sentence for query to reduce DB access.
  */
 @Slf4j
 @Repository
@@ -41,12 +41,78 @@ public class QuizAggregationDao implements QuizAggregationRepository {
     private final String TABLE_NAME = "quiz_aggregations";
     private final String COL_NAME_VOCABULARIES_ID = "vocabularies_id";
     private final String COL_NAME_USERS_ID = "users_id";
+    private final String COL_NAME_RATIO = "ratio";
+
+    // appended to the writing queries when the written record is returned
+    private static final String RETURNING_ALL = "RETURNING *";
 
     private final JdbcTemplate jdbcTemplate;
+    private final RowMapper<QuizAnswerRatioDto> answerRatioRowMapper
+     = (rs, rowNum) -> new QuizAnswerRatioDto(
+        rs.getInt(COL_NAME_VOCABULARIES_ID),
+        rs.getDouble(COL_NAME_RATIO)
+    );
+    private final VocabIdIndex vocabIdIndex;
+    private final SimpleJdbcInsert insert;
+
+    // queries built once at startup
+    private final String findByIdQuery
+     = String.format(
+        """
+        SELECT * FROM %s
+        WHERE %s = ? AND %s = ?
+        """,
+        TABLE_NAME, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID
+    );
+    private final String findAllVocabIdsForOneUserQuery
+     = String.format(
+        "SELECT %s FROM %s WHERE %s = ?",
+        COL_NAME_VOCABULARIES_ID, TABLE_NAME, COL_NAME_USERS_ID
+    );
+    private final String deleteQuery
+     = String.format(
+        """
+            DELETE FROM %1$s
+            WHERE %2$s = ? AND %3$s = ?
+        """,
+        TABLE_NAME, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID 
+    );
+    // queries for "_en" and "_jp" columns keyed by isJpQuestionQuiz, built once at startup
+    private final Map<Boolean, String> findLeastRecentGivenVocabQueries;
+    private final Map<Boolean, String> findLowestIncorrectionRatioQueries;
+    private final Map<Boolean, String> findZeroIncorrectionRatioVocabsQueries;
+    private final Map<Boolean, String> findLastIncorrectVocabsQueries;
+    private final Map<Boolean, String> updateGivenQuizQueries;
+    private final Map<Boolean, String> upsertGivenQuizQueries;
+    private final Map<Boolean, String> upsertGivenQuizzesQueries;
+    private final Map<Boolean, String> updateAnswerHistoryQueries;
+    private final Map<Boolean, String> updateAnswerResultsQueries;
 
     @Autowired
-    QuizAggregationDao(JdbcTemplate jdbcTemplate) {
+    QuizAggregationDao(JdbcTemplate jdbcTemplate, VocabIdIndex vocabIdIndex) {
         this.jdbcTemplate = jdbcTemplate;
+        this.vocabIdIndex = vocabIdIndex;
+        // compiles the insert operation (i.e. looks up column metadata) only once
+        this.insert = new SimpleJdbcInsert(jdbcTemplate).withTableName(TABLE_NAME);
+        this.insert.compile();
+        this.findLeastRecentGivenVocabQueries
+         = buildQueriesForEachType(this::buildFindLeastRecentGivenVocabQuery);
+        this.findLowestIncorrectionRatioQueries
+         = buildQueriesForEachType(this::buildFindLowestIncorrectionRatioQuery);
+        this.findZeroIncorrectionRatioVocabsQueries
+         = buildQueriesForEachType(this::buildFindZeroIncorrectionRatioVocabsQuery);
+        this.findLastIncorrectVocabsQueries
+         = buildQueriesForEachType(this::buildFindLastIncorrectVocabsQuery);
+        this.updateGivenQuizQueries
+         = buildQueriesForEachType(this::buildUpdateGivenQuizQuery);
+        this.upsertGivenQuizQueries
+         = buildQueriesForEachType(suffix -> buildUpsertGivenQuizQuery(suffix) + RETURNING_ALL);
+        this.upsertGivenQuizzesQueries
+         = buildQueriesForEachType(this::buildUpsertGivenQuizQuery);
+        this.updateAnswerHistoryQueries
+         = buildQueriesForEachType(suffix -> buildUpdateAnswerHistoryQuery(suffix) + RETURNING_ALL);
+        this.updateAnswerResultsQueries
+         = buildQueriesForEachType(this::buildUpdateAnswerHistoryQuery);
     }
     
     /**
@@ -60,34 +126,11 @@ public class QuizAggregationDao implements QuizAggregationRepository {
         log.info("START: QuizAggregationDao#findById");
 
         QuizAggregationEntity quizAggregation;
-        String query
-         = String.format(
-            """
-            SELECT * FROM %s
-            WHERE %s = ? AND %s = ?
-            """,
-            TABLE_NAME, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID
-        );
+        String query = findByIdQuery;
         try {
-            Map<String, Object> item
-             = jdbcTemplate.queryForMap(query, vocabulariesId, usersId);
-            quizAggregation 
-             = new QuizAggregationEntity(
-                (Integer) item.get(COL_NAME_VOCABULARIES_ID),
-                (String) item.get(COL_NAME_USERS_ID),
-                (Integer) item.get("total_count_question_en"),
-                (Integer) item.get("total_count_question_jp"),
-                Optional.ofNullable((Timestamp) item.get("last_question_datetime_en"))
-                    .map(Timestamp::toLocalDateTime).orElse(null),
-                Optional.ofNullable((Timestamp) item.get("last_question_datetime_jp"))
-                    .map(Timestamp::toLocalDateTime).orElse(null),
-                (Integer) item.get("total_count_correct_en"),
-                (Integer) item.get("total_count_correct_jp"),
-                (Boolean) item.get("is_last_answer_correct_en"),
-                (Boolean) item.get("is_last_answer_correct_jp"),
-                (Boolean) item.get("is_quiz_disallowed"),
-                ((Timestamp) item.get("created_at")).toLocalDateTime(),
-                ((Timestamp) item.get("updated_at")).toLocalDateTime()
+            quizAggregation
+             = jdbcTemplate.queryForObject(
+                query, QuizAggregationRowMapper.INSTANCE, vocabulariesId, usersId
             );
         } catch(EmptyResultDataAccessException e) {
             quizAggregation = null;
@@ -106,18 +149,11 @@ public class QuizAggregationDao implements QuizAggregationRepository {
     public List<Integer> findAllVocabIdsForOneUser(String userId) {
         log.info("START: QuizAggregationDao#findAllVocabIdsByUser");
 
-        String query
-         = String.format(
-            "SELECT %s FROM %s WHERE %s = ?",
-            COL_NAME_VOCABULARIES_ID, TABLE_NAME, COL_NAME_USERS_ID
-        );
+        String query = findAllVocabIdsForOneUserQuery;
 
         List<Integer> vocabularyIds;
         try {
-            List<Map<String, Object>> extractedList
-             = jdbcTemplate.queryForList(query, userId);
-            vocabularyIds = extractedList.stream()
-                .map(item -> (Integer) item.get(COL_NAME_VOCABULARIES_ID)).toList();
+            vocabularyIds = jdbcTemplate.queryForList(query, Integer.class, userId);
         } catch (EmptyResultDataAccessException e) {
             vocabularyIds = List.of();
         }
@@ -141,29 +177,12 @@ public class QuizAggregationDao implements QuizAggregationRepository {
     public Integer findLeastRecentGivenVocab(String userId, Boolean isJpQuestionQuiz) {
         log.info("START: QuizAggregationDao#findLeastRecentGivenVocab");
 
-        String targetColumnSuffix;
-        if (isJpQuestionQuiz) {
-            targetColumnSuffix = "jp";
-        } else {
-            targetColumnSuffix = "en";
-        }
-        String targetColumnName = "last_question_datetime_" + targetColumnSuffix;
-        String query
-         = String.format(
-            """
-                SELECT %1$s FROM %2$s WHERE %3$s = ? AND %4$s = 
-                    (SELECT MIN(%4$s) FROM %2$s WHERE %3$s = ?) 
-                LIMIT 1
-            """,
-            COL_NAME_VOCABULARIES_ID, TABLE_NAME,
-            COL_NAME_USERS_ID, targetColumnName
-        );
+        String query = findLeastRecentGivenVocabQueries.get(isJpQuestionQuiz);
 
         Integer leastRecentvocabularyId;
         try {
             leastRecentvocabularyId 
-             = (Integer) jdbcTemplate.queryForMap(query, userId, userId)
-                .get(COL_NAME_VOCABULARIES_ID);
+             = jdbcTemplate.queryForObject(query, Integer.class, userId, userId);
         } catch (EmptyResultDataAccessException e) {
             leastRecentvocabularyId = null;
         }
@@ -174,70 +193,59 @@ public class QuizAggregationDao implements QuizAggregationRepository {
     }
     
     /**
-     * Extracts all vocabularies IDs and calculated quiz incorrection ratio
-     * ordered by the quiz incorrection ratio for a specified user.
+     * Extracts at most the specified number of vocabularies IDs and calculated quiz correction ratios
+     * ordered by the ratio for a specified user
      * by executing the following SQL:
      *  SELECT 
      *      vocabularies_id, 
-     *      CAST( COALSESCE(
+     *      CAST( COALESCE(
      *          CAST(total_count_correct_(en|jp)*100 AS NUMERIC) / 
      *          NULLIF(total_count_question_(en|jp) ,0) , 0
-     *          ) AS NUMERIC(5,2)
+     *          ) AS DOUBLE PRECISION
      *      ) AS ratio 
-     *  FROM quiz_aggregations 
-     *  WHERE users_id = {specified ID} 
-     *  ORDER BY ratio ASC;
+     *  FROM quiz_aggregations
+     *  WHERE users_id = {specified ID}
+     *  ORDER BY ratio ASC, vocabularies_id ASC
+     *  LIMIT {specified limit};
      * 
      * When total_count_question_(en|jp) is 0, the ratio returns 0 for the row.
-     * When no data are found for the user, returns an empty list. 
+     * 
+     * NOTE:
+     * The ratio is read from the expression index created in V1.0.4,
+     * so that only the lowest records are read and transferred regardless of the user's history size.
      */
     @Override
-    public List<QuizAnswerRatioDto> extractOrderedByIncorrectionRatio(
-        String userId, Boolean isJpQuestionQuiz
+    public List<QuizAnswerRatioDto> findLowestIncorrectionRatio(
+        String userId, Boolean isJpQuestionQuiz, int limit
     ) {
-        log.info("START: QuizAggregationDao#extractOrderedByIncorrectionRatio");
+        log.info("START: QuizAggregationDao#findLowestIncorrectionRatio");
 
-        String targetColumnSuffix;
-        if (isJpQuestionQuiz) {
-            targetColumnSuffix = "jp";
-        } else {
-            targetColumnSuffix = "en";
-        }
-        final String COL_NAME_RATIO = "ratio";
-        String query = String.format(
-            """
-                SELECT %1$s, 
-                    CAST( 
-                        COALESCE(
-                            CAST(total_count_correct_%2$s * 100 AS NUMERIC) / 
-                                NULLIF(total_count_question_%2$s, 0)
-                            , 0
-                        ) AS DOUBLE PRECISION
-                    ) AS %3$s from %4$s 
-                WHERE %5$s = ?
-                ORDER BY %3$s ASC;
-            """,
-            COL_NAME_VOCABULARIES_ID, targetColumnSuffix,
-            COL_NAME_RATIO, TABLE_NAME, COL_NAME_USERS_ID
-        );
+        String query = findLowestIncorrectionRatioQueries.get(isJpQuestionQuiz);
+        List<QuizAnswerRatioDto> lowestRatios
+         = (limit <= 0) ? List.of() : jdbcTemplate.query(query, answerRatioRowMapper, userId, limit);
 
-        List<QuizAnswerRatioDto> correctionRecordsList;
-        try {
-            List<Map<String, Object>> records = jdbcTemplate.queryForList(query, userId);
-            correctionRecordsList 
-             = records.stream()
-                .map( item -> new QuizAnswerRatioDto(
-                                (Integer) item.get(COL_NAME_VOCABULARIES_ID),
-                                (Double) item.get(COL_NAME_RATIO)
-                            )
-                ).toList();
-        } catch (EmptyResultDataAccessException e) {
-            correctionRecordsList = List.of();
-        }
+        log.info("END: QuizAggregationDao#findLowestIncorrectionRatio");
+        return lowestRatios;
+    }
 
-        log.info("END: QuizAggregationDao#extractOrderedByIncorrectionRatio");
-        return correctionRecordsList;
+    /**
+     * Extracts all vocabularies IDs whose quiz correction ratio is zero for a specified user
+     * by executing the following SQL:
+     *  SELECT vocabularies_id FROM quiz_aggregations
+     *  WHERE users_id = {specified ID} AND {the same ratio as findLowestIncorrectionRatio} = 0;
+     * When no data which satisfy the condition are found, returns an empty list. 
+     */
+    @Override
+    public List<Integer> findZeroIncorrectionRatioVocabs(
+        String userId, Boolean isJpQuestionQuiz
+    ) {
+        log.info("START: QuizAggregationDao#findZeroIncorrectionRatioVocabs");
+
+        String query = findZeroIncorrectionRatioVocabsQueries.get(isJpQuestionQuiz);
+        List<Integer> vocabularyIds = jdbcTemplate.queryForList(query, Integer.class, userId);
 
+        log.info("END: QuizAggregationDao#findZeroIncorrectionRatioVocabs");
+        return vocabularyIds;
     }
 
     /**
@@ -254,30 +262,11 @@ public class QuizAggregationDao implements QuizAggregationRepository {
     ) {
         log.info("START: QuizAggregationDao#extractLastIncorrectQuiz");
 
-        String targetColumnSuffix;
-        if (isJpQuestionQuiz) {
-            targetColumnSuffix = "jp";
-        } else {
-            targetColumnSuffix = "en";
-        }
-        String query = String.format(
-            """
-                SELECT %1$s FROM %2$s
-                WHERE %3$s = ? AND is_last_answer_correct_%4$s = false
-                    
-            """,
-                COL_NAME_VOCABULARIES_ID, TABLE_NAME,
-                COL_NAME_USERS_ID, targetColumnSuffix
-        );
+        String query = findLastIncorrectVocabsQueries.get(isJpQuestionQuiz);
 
         List<Integer> vocabularyIds;
         try {
-            List<Map<String, Object>> extractedItems
-             = jdbcTemplate.queryForList(query, userId);
-            vocabularyIds
-             = extractedItems.stream()
-                .map( item -> (Integer) item.get(COL_NAME_VOCABULARIES_ID))
-                .toList();
+            vocabularyIds = jdbcTemplate.queryForList(query, Integer.class, userId);
         } catch (EmptyResultDataAccessException e) {
             vocabularyIds = List.of();
         }
@@ -288,24 +277,27 @@ public class QuizAggregationDao implements QuizAggregationRepository {
 
     /**
      * Inserts one new record by executing the following SQL:
-     * INSERT INTO vocabularies {all columns} VALUES {each specified value};
+     * INSERT INTO quiz_aggregations {all columns} VALUES {each specified value};
+     * 
+     * NOTE:
+     * The argument entity is returned without extracting the inserted record again
+     * because all columns are inserted with the values of the entity.
+     * Timestamps are truncated to microseconds, which is the precision of DB.
      */
     @Override
     public QuizAggregationEntity add(QuizAggregationEntity quizAggregation) {
         log.info("START: QuizAggregationDao#add");
 
-        LocalDateTime currentTime = LocalDateTime.now();
+        LocalDateTime currentTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         quizAggregation.setCreatedAt(currentTime);
         quizAggregation.setUpdatedAt(currentTime);
         
-        SimpleJdbcInsert insert
-         = new SimpleJdbcInsert(jdbcTemplate)
-            .withTableName(TABLE_NAME);
         SqlParameterSource param = new BeanPropertySqlParameterSource(quizAggregation);
         insert.execute(param);
+        vocabIdIndex.markGiven(quizAggregation.getUsersId(), quizAggregation.getVocabulariesId());
 
         log.info("END: QuizAggregationDao#add");
-        return findById(quizAggregation.getVocabulariesId(), quizAggregation.getUsersId());
+        return quizAggregation;
     }
 
     /**
@@ -314,7 +306,9 @@ public class QuizAggregationDao implements QuizAggregationRepository {
      *  total_count_questions_(en|jp) = total_count_questions_(en|jp) + 1
      *  last_question_datetime_(en|jp) = {current time}
      *  updated_at = {current time}
-     *  WHERE vocabularies_id = {specified id} AND users_id = {specified id};
+     *  WHERE vocabularies_id = {specified id} AND users_id = {specified id}
+     *  RETURNING *;
+     * When no data are found, returns null.
      */
     @Override
     public QuizAggregationEntity updateGivenQuiz(
@@ -324,28 +318,87 @@ public class QuizAggregationDao implements QuizAggregationRepository {
     ) {
         log.info("START: QuizAggregationDao#updateGivenQuiz");
 
-        String updateColumnSuffix;
-        if (isJpQuestionQuiz) {
-            updateColumnSuffix = "jp";
-        } else {
-            updateColumnSuffix = "en";
-        }
-        String query
-         = String.format(
-            """
-            UPDATE %1$s SET
-                total_count_question_%2$s = total_count_question_%2$s + 1,
-                last_question_datetime_%2$s = ?,
-                updated_at = ?
-            WHERE %3$s = ? AND %4$s = ?                
-            """,
-            TABLE_NAME, updateColumnSuffix, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID
-        );
+        String query = updateGivenQuizQueries.get(isJpQuestionQuiz);
         LocalDateTime currentTime = LocalDateTime.now();
-        jdbcTemplate.update(query, currentTime, currentTime, vocabulariesId, usersId);
+        QuizAggregationEntity quizAggregation
+         = updateAndReturn(query, currentTime, currentTime, vocabulariesId, usersId);
 
         log.info("END: QuizAggregationDao#updateGivenQuiz");
-        return findById(vocabulariesId, usersId);
+        return quizAggregation;
+    }
+
+    /**
+     * Inserts or updates one record when a quiz is given by executing the following SQL:
+     * INSERT INTO quiz_aggregations (
+     *  vocabularies_id, users_id, total_count_question_(en|jp), last_question_datetime_(en|jp),
+     *  is_last_answer_correct_en, is_last_answer_correct_jp, created_at, updated_at
+     * ) VALUES ({specified id}, {specified id}, 1, {current time}, NULL, NULL, {current time}, {current time})
+     * ON CONFLICT (vocabularies_id, users_id) DO UPDATE SET
+     *  total_count_question_(en|jp) = quiz_aggregations.total_count_question_(en|jp) + 1,
+     *  last_question_datetime_(en|jp) = EXCLUDED.last_question_datetime_(en|jp),
+     *  updated_at = EXCLUDED.updated_at
+     * RETURNING *;
+     * 
+     * NOTE:
+     * is_last_answer_correct_(en|jp) are inserted as NULL in the same way as a new record
+     * has been added before, which means the quiz has not been answered yet.
+     * The row lock taken by ON CONFLICT DO UPDATE serializes concurrent upserts
+     * for the same record, and hence no increment is lost.
+     */
+    @Override
+    public QuizAggregationEntity upsertGivenQuiz(
+        Integer vocabulariesId, 
+        String usersId, 
+        Boolean isJpQuestionQuiz
+    ) {
+        log.info("START: QuizAggregationDao#upsertGivenQuiz");
+
+        String query = upsertGivenQuizQueries.get(isJpQuestionQuiz);
+        LocalDateTime currentTime = LocalDateTime.now();
+        QuizAggregationEntity quizAggregation
+         = jdbcTemplate.queryForObject(
+            query, 
+            QuizAggregationRowMapper.INSTANCE, 
+            vocabulariesId, usersId, currentTime, currentTime, currentTime
+        );
+        vocabIdIndex.markGiven(usersId, vocabulariesId);
+
+        log.info("END: QuizAggregationDao#upsertGivenQuiz");
+        return quizAggregation;
+    }
+
+    /**
+     * Inserts or updates records when quizzes are given
+     * by executing the same SQL as upsertGivenQuiz without RETURNING clause as JDBC batches,
+     * one batch for each type of question.
+     * 
+     * NOTE:
+     * The records are written in the order of the list within each type of question.
+     * Since the two types of question update the different columns,
+     * the order between the types does not change the result.
+     */
+    @Override
+    public void upsertGivenQuizzes(List<QuizGivenDto> givenQuizzes) {
+        log.info("START: QuizAggregationDao#upsertGivenQuizzes");
+
+        for (Boolean isJpQuestionQuiz : List.of(false, true)) {
+            List<Object[]> batchArgs
+             = givenQuizzes.stream()
+                .filter(givenQuiz -> Objects.equals(givenQuiz.getIsJpQuestionQuiz(), isJpQuestionQuiz))
+                .map(givenQuiz -> new Object[] {
+                    givenQuiz.getVocabulariesId(), givenQuiz.getUsersId(),
+                    givenQuiz.getGivenAt(), givenQuiz.getGivenAt(), givenQuiz.getGivenAt()
+                })
+                .toList();
+            if (! batchArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(upsertGivenQuizzesQueries.get(isJpQuestionQuiz), batchArgs);
+            }
+        }
+        givenQuizzes.forEach(
+            givenQuiz -> vocabIdIndex.markGiven(givenQuiz.getUsersId(), givenQuiz.getVocabulariesId())
+        );
+
+        log.info("END: QuizAggregationDao#upsertGivenQuizzes");
     }
 
     /**
@@ -354,7 +407,9 @@ public class QuizAggregationDao implements QuizAggregationRepository {
      *  total_count_correct_(en|jp) = total_count_correct_(en|jp) + 1
      *  is_last_answer_correct_(en|jp) = TRUE
      *  updated_at = {current time}
-     *  WHERE vocabularies_id = {specified id} AND users_id = {specified id};
+     *  WHERE vocabularies_id = {specified id} AND users_id = {specified id}
+     *  RETURNING *;
+     * When no data are found, returns null.
      */
     @Override
     public QuizAggregationEntity updateCorrectCase(
@@ -380,7 +435,9 @@ public class QuizAggregationDao implements QuizAggregationRepository {
      * UPDATE quiz_aggregations SET 
      *  is_last_answer_correct_(en|jp) = FALSE
      *  updated_at = {current time}
-     *  WHERE vocabularies_id = {specified id} AND users_id = {specified id};
+     *  WHERE vocabularies_id = {specified id} AND users_id = {specified id}
+     *  RETURNING *;
+     * When no data are found, returns null.
      */
     @Override
     public QuizAggregationEntity updateIncorrectCase(
@@ -425,24 +482,9 @@ public class QuizAggregationDao implements QuizAggregationRepository {
         int incrementNum
     ) {
 
-        String updateColumnSuffix;
-        if (isJpQuestionQuiz) {
-            updateColumnSuffix = "jp";
-        } else {
-            updateColumnSuffix = "en";
-        }
-        String query
-         = String.format(
-            """
-            UPDATE %1$s SET
-                total_count_correct_%2$s = total_count_correct_%2$s + ?,
-                is_last_answer_correct_%2$s = ?,
-                updated_at = ?
-            WHERE %3$s = ? AND %4$s = ?                
-            """,
-            TABLE_NAME, updateColumnSuffix, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID
-        );
-        jdbcTemplate.update(
+        String query = updateAnswerHistoryQueries.get(isJpQuestionQuiz);
+
+        return updateAndReturn(
             query, 
             incrementNum, 
             isCorrected, 
@@ -450,11 +492,54 @@ public class QuizAggregationDao implements QuizAggregationRepository {
             vocabulariesId, 
             usersId
         );
-
-        return findById(vocabulariesId, usersId);
  
     }
 
+    /**
+     * Updates records according to answer results
+     * by executing the same SQL as updateCorrectCase or updateIncorrectCase without RETURNING clause
+     * as JDBC batches, one batch for each type of question.
+     * 
+     * NOTE:
+     * The records are written in the order of the list within each type of question
+     * so that is_last_answer_correct_(en|jp) becomes the result of the last answer.
+     */
+    @Override
+    public void updateAnswerResults(List<QuizAnswerDto> answers) {
+        log.info("START: QuizAggregationDao#updateAnswerResults");
+
+        for (Boolean isJpQuestionQuiz : List.of(false, true)) {
+            List<Object[]> batchArgs
+             = answers.stream()
+                .filter(answer -> Objects.equals(answer.getIsJpQuestionQuiz(), isJpQuestionQuiz))
+                .map(answer -> new Object[] {
+                    answer.getIsAnswerCorrect() ? 1 : 0, answer.getIsAnswerCorrect(),
+                    answer.getAnsweredAt(), answer.getVocabulariesId(), answer.getUsersId()
+                })
+                .toList();
+            if (! batchArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(updateAnswerResultsQueries.get(isJpQuestionQuiz), batchArgs);
+            }
+        }
+
+        log.info("END: QuizAggregationDao#updateAnswerResults");
+    }
+
+    /**
+     * Executes an UPDATE ... RETURNING * query and converts the returned row into an entity.
+     * 
+     * @param query an UPDATE query with RETURNING * clause
+     * @param args arguments bound to the query
+     * @return an updated quiz aggregation record, or null if no record is updated
+     */
+    private QuizAggregationEntity updateAndReturn(String query, Object... args) {
+        try {
+            return jdbcTemplate.queryForObject(query, QuizAggregationRowMapper.INSTANCE, args);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
     /**
      * Deletes one existing record by executing the following SQL:
      * DELETE FROM question_aggregations 
@@ -464,18 +549,184 @@ public class QuizAggregationDao implements QuizAggregationRepository {
     public void delete(Integer vocabulariesId, String usersId) {
         log.info("START: QuizAggregationDao#delete");
 
-        String query
-         = String.format(
+        String query = deleteQuery;
+        jdbcTemplate.update(query, vocabulariesId, usersId);
+        vocabIdIndex.unmarkGiven(usersId, vocabulariesId);
+
+        log.info("END: QuizAggregationDao#delete");
+    }
+
+    /**
+     * Builds queries for both types of question, "_en" and "_jp" columns.
+     * 
+     * @param queryBuilder a function which builds a query from a suffix of the target columns
+     * @return a map of the queries keyed by isJpQuestionQuiz
+     */
+    private Map<Boolean, String> buildQueriesForEachType(Function<String, String> queryBuilder) {
+        return Map.of(false, queryBuilder.apply("en"), true, queryBuilder.apply("jp"));
+    }
+
+    /**
+     * Builds the query used in findLeastRecentGivenVocab for one type of question.
+     * This method and the other builders of selection queries are package-private
+     * so that QuizAggregationQueryPlanTest can check the plans of the built queries.
+     * 
+     * @param targetColumnSuffix a suffix of the target columns, "en" or "jp"
+     * @return the query
+     */
+    String buildFindLeastRecentGivenVocabQuery(String targetColumnSuffix) {
+        String targetColumnName = "last_question_datetime_" + targetColumnSuffix;
+        return String.format(
+            """
+                SELECT %1$s FROM %2$s WHERE %3$s = ? AND %4$s = 
+                    (SELECT MIN(%4$s) FROM %2$s WHERE %3$s = ?) 
+                LIMIT 1
+            """,
+            COL_NAME_VOCABULARIES_ID, TABLE_NAME,
+            COL_NAME_USERS_ID, targetColumnName
+        );
+    }
+
+    /**
+     * Builds the query used in findLowestIncorrectionRatio for one type of question.
+     * 
+     * @param targetColumnSuffix a suffix of the target columns, "en" or "jp"
+     * @return the query
+     */
+    String buildFindLowestIncorrectionRatioQuery(String targetColumnSuffix) {
+        return String.format(
             """
-                DELETE FROM %1$s
-                WHERE %2$s = ? AND %3$s = ?
+                SELECT %1$s, %2$s AS %3$s FROM %4$s
+                WHERE %5$s = ?
+                ORDER BY %3$s ASC, %1$s ASC
+                LIMIT ?
             """,
-            TABLE_NAME, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID 
+            COL_NAME_VOCABULARIES_ID, buildRatioExpression(targetColumnSuffix),
+            COL_NAME_RATIO, TABLE_NAME, COL_NAME_USERS_ID
         );
-        jdbcTemplate.update(query, vocabulariesId, usersId);
+    }
 
-        log.info("END: QuizAggregationDao#delete");
+    /**
+     * Builds the query used in findZeroIncorrectionRatioVocabs for one type of question.
+     * 
+     * @param targetColumnSuffix a suffix of the target columns, "en" or "jp"
+     * @return the query
+     */
+    String buildFindZeroIncorrectionRatioVocabsQuery(String targetColumnSuffix) {
+        return String.format(
+            """
+                SELECT %1$s FROM %2$s
+                WHERE %3$s = ? AND %4$s = 0
+            """,
+            COL_NAME_VOCABULARIES_ID, TABLE_NAME,
+            COL_NAME_USERS_ID, buildRatioExpression(targetColumnSuffix)
+        );
+    }
+
+    /**
+     * Builds the expression of the quiz correction ratio for one type of question.
+     * The ratio is 0 when total_count_question_(en|jp) is 0.
+     * 
+     * NOTE:
+     * The expression must be the same as that of the expression indexes created in V1.0.4
+     * so that the queries using it are served by the indexes.
+     * 
+     * @param targetColumnSuffix a suffix of the target columns, "en" or "jp"
+     * @return the expression
+     */
+    private String buildRatioExpression(String targetColumnSuffix) {
+        return String.format(
+            """
+            CAST( 
+                COALESCE(
+                    CAST(total_count_correct_%1$s * 100 AS NUMERIC) / 
+                        NULLIF(total_count_question_%1$s, 0)
+                    , 0
+                ) AS DOUBLE PRECISION
+            )""",
+            targetColumnSuffix
+        );
+    }
+
+    /**
+     * Builds the query used in findLastIncorrectVocabs for one type of question.
+     * 
+     * @param targetColumnSuffix a suffix of the target columns, "en" or "jp"
+     * @return the query
+     */
+    String buildFindLastIncorrectVocabsQuery(String targetColumnSuffix) {
+        return String.format(
+            """
+                SELECT %1$s FROM %2$s
+                WHERE %3$s = ? AND is_last_answer_correct_%4$s = false
+                    
+            """,
+                COL_NAME_VOCABULARIES_ID, TABLE_NAME,
+                COL_NAME_USERS_ID, targetColumnSuffix
+        );
+    }
+
+    /**
+     * Builds the query used in updateGivenQuiz for one type of question.
+     * 
+     * @param updateColumnSuffix a suffix of the target columns, "en" or "jp"
+     * @return the query
+     */
+    private String buildUpdateGivenQuizQuery(String updateColumnSuffix) {
+        return String.format(
+            """
+            UPDATE %1$s SET
+                total_count_question_%2$s = total_count_question_%2$s + 1,
+                last_question_datetime_%2$s = ?,
+                updated_at = ?
+            WHERE %3$s = ? AND %4$s = ?
+            RETURNING *
+            """,
+            TABLE_NAME, updateColumnSuffix, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID
+        );
+    }
+
+    /**
+     * Builds the query used in upsertGivenQuiz and upsertGivenQuizzes for one type of question.
+     * RETURNING clause is appended when the written record is returned.
+     * 
+     * @param updateColumnSuffix a suffix of the target columns, "en" or "jp"
+     * @return the query
+     */
+    private String buildUpsertGivenQuizQuery(String updateColumnSuffix) {
+        return String.format(
+            """
+            INSERT INTO %1$s (
+                %3$s, %4$s, total_count_question_%2$s, last_question_datetime_%2$s,
+                is_last_answer_correct_en, is_last_answer_correct_jp, created_at, updated_at
+            ) VALUES (?, ?, 1, ?, NULL, NULL, ?, ?)
+            ON CONFLICT (%3$s, %4$s) DO UPDATE SET
+                total_count_question_%2$s = %1$s.total_count_question_%2$s + 1,
+                last_question_datetime_%2$s = EXCLUDED.last_question_datetime_%2$s,
+                updated_at = EXCLUDED.updated_at
+            """,
+            TABLE_NAME, updateColumnSuffix, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID
+        );
+    }
+
+    /**
+     * Builds the query used in updateAnswerHistory and updateAnswerResults for one type of question.
+     * RETURNING clause is appended when the written record is returned.
+     * 
+     * @param updateColumnSuffix a suffix of the target columns, "en" or "jp"
+     * @return the query
+     */
+    private String buildUpdateAnswerHistoryQuery(String updateColumnSuffix) {
+        return String.format(
+            """
+            UPDATE %1$s SET
+                total_count_correct_%2$s = total_count_correct_%2$s + ?,
+                is_last_answer_correct_%2$s = ?,
+                updated_at = ?
+            WHERE %3$s = ? AND %4$s = ?
+            """,
+            TABLE_NAME, updateColumnSuffix, COL_NAME_VOCABULARIES_ID, COL_NAME_USERS_ID
+        );
     }
 
-    
 }
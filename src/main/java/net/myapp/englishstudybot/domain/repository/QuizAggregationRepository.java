@@ -3,7 +3,9 @@ package net.myapp.englishstudybot.domain.repository;
 import java.util.List;
 
 import net.myapp.englishstudybot.domain.model.QuizAggregationEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerDto;
 import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerRatioDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizGivenDto;
 
 /**
  * QuizAggregationRepository is a repostory interface which provides CRUD methods 
@@ -41,16 +43,31 @@ public interface QuizAggregationRepository {
     public Integer findLeastRecentGivenVocab(String userId, Boolean isJpQuestionQuiz);
 
     /**
-     * Extracts all vocabularies IDs and calculated quiz incorrection ratio
-     * ordered by the quiz incorrection ratio for a specified user.
+     * Extracts at most the specified number of vocabularies IDs and calculated quiz correction ratios
+     * ordered by the ratio (and vocabularies ID for the same ratio) for a specified user.
      * Which column "_jp" or "_en" becomes target depends on an argument of isJpQuestionQuiz.
      * When the boolean is true, "_jp" columns will be the target.
-      * 
+     * 
+     * @param userId ID of the target user
+     * @param isJpQuestionQuiz a flag to configure which type of question, "_jp" or "_en" is target
+     * @param limit the maximum number of records to be extracted
+     * @return a list of dtos composed of vocabularies ID and correction ratio
+     */
+    public List<QuizAnswerRatioDto> findLowestIncorrectionRatio(
+        String userId, Boolean isJpQuestionQuiz, int limit
+    );
+
+    /**
+     * Extracts all vocabularies IDs whose quiz correction ratio is zero for a specified user
+     * (i.e. vocabularies which have never been answered correctly).
+     * Which column "_jp" or "_en" becomes target depends on an argument of isJpQuestionQuiz.
+     * When the boolean is true, "_jp" columns will be the target.
+     * 
      * @param userId ID of the target user
      * @param isJpQuestionQuiz a flag to configure which type of question, "_jp" or "_en" is target
-     * @return a list of maps composed of vocabularies ID and incorrection ratio.
+     * @return a list of vocabularies IDs which satisfy the condition
      */
-    public List<QuizAnswerRatioDto> extractOrderedByIncorrectionRatio(
+    public List<Integer> findZeroIncorrectionRatioVocabs(
         String userId, Boolean isJpQuestionQuiz
     );
 
@@ -95,6 +112,36 @@ public interface QuizAggregationRepository {
         Boolean isJpQuestionQuiz
     );
 
+    /**
+     * Inserts or updates one quiz aggregation record atomically when a quiz is given to a user.
+     * When the record does not exist, a new record is inserted with the following column data
+     *  - "total_count_question_en" or "total_count_question_jp" (to be 1)
+     *  - "last_question_datetime_en" or "last_question_datetime_jp" (to be the current time)
+     * When the record exists, the same columns are updated as updateGivenQuiz.
+     * which column "_jp" or "_en" to be updated depends on an argument of isJpQuestionQuiz.
+     * When the boolean is true, "_jp" columns will be updated and vice versa.
+     * 
+     * @param vocablariesId vocabularies ID of the record to be inserted or udpated
+     * @param usersId users ID of the record to be inserted or updated
+     * @param isJpQuestionQuiz a flag to configure which type of question, "_jp" or "_en" is given
+     * @return an inserted or updated quiz aggregation record
+     */
+    public QuizAggregationEntity upsertGivenQuiz(
+        Integer vocablariesId, 
+        String usersId, 
+        Boolean isJpQuestionQuiz
+    );
+
+    /**
+     * Inserts or updates quiz aggregation records in one batch when quizzes are given to users.
+     * Each record is inserted or updated in the same way as upsertGivenQuiz,
+     * except that the given time of each quiz is used instead of the current time
+     * and the written records are not returned.
+     * 
+     * @param givenQuizzes a list of the given quizzes
+     */
+    public void upsertGivenQuizzes(List<QuizGivenDto> givenQuizzes);
+
     /**
      * Updates one quiz aggregation record when the user answers CORRECTLY.
      * The following column data will be udpated
@@ -132,6 +179,16 @@ public interface QuizAggregationRepository {
         Boolean isJpQuestionQuiz
     );
 
+    /**
+     * Updates quiz aggregation records in one batch according to users' answer results.
+     * Each record is updated in the same way as updateCorrectCase or updateIncorrectCase,
+     * except that the answered time of each answer is used instead of the current time
+     * and the written records are not returned.
+     * 
+     * @param answers a list of the answer results
+     */
+    public void updateAnswerResults(List<QuizAnswerDto> answers);
+
     /**
      * Deletes one existing record.
      * 
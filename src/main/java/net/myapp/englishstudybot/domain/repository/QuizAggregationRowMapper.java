@@ -0,0 +1,44 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import net.myapp.englishstudybot.domain.model.QuizAggregationEntity;
+
+/**
+ * QuizAggregationRowMapper is a RowMapper which converts a row of quiz_aggregations table
+ * into a quiz aggregation entity.
+ *
+ * NOTE:
+ * This class is stateless and the shared instance INSTANCE should be used.
+ */
+class QuizAggregationRowMapper implements RowMapper<QuizAggregationEntity> {
+
+    static final QuizAggregationRowMapper INSTANCE = new QuizAggregationRowMapper();
+
+    private QuizAggregationRowMapper() {
+    }
+
+    @Override
+    public QuizAggregationEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new QuizAggregationEntity(
+            rs.getInt("vocabularies_id"),
+            rs.getString("users_id"),
+            rs.getObject("total_count_question_en", Integer.class),
+            rs.getObject("total_count_question_jp", Integer.class),
+            rs.getObject("last_question_datetime_en", LocalDateTime.class),
+            rs.getObject("last_question_datetime_jp", LocalDateTime.class),
+            rs.getObject("total_count_correct_en", Integer.class),
+            rs.getObject("total_count_correct_jp", Integer.class),
+            rs.getObject("is_last_answer_correct_en", Boolean.class),
+            rs.getObject("is_last_answer_correct_jp", Boolean.class),
+            rs.getObject("is_quiz_disallowed", Boolean.class),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class)
+        );
+    }
+
+}
@@ -0,0 +1,243 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.model.QuizScheduleEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerDto;
+
+/**
+ * QuizScheduleDao is an implementation of QuizScheduleRepository by using JdbcTemplate.
+ * 
+ * The next review of a vocabulary is scheduled by the SM-2 algorithm
+ * (q is the quality of an answer from 0 to 5):
+ *  - if q >= 3, increments the repetitions and sets the interval to
+ *    1 day (1st), 6 days (2nd), or the previous interval multiplied by the ease factor (3rd and later).
+ *  - if q < 3, resets the repetitions to zero and sets the interval to 1 day.
+ *  - updates the ease factor by EF + (0.1 - (5 - q) * (0.08 + (5 - q) * 0.02)),
+ *    which never becomes less than 1.3.
+ *  - the next due date is the answered date plus the interval.
+ * Since answers of this bot are only judged as correct or incorrect,
+ * a correct answer is regarded as q = 4 (the ease factor is kept)
+ * and an incorrect answer as q = 2 (the ease factor decreases by 0.32).
+ * 
+ * NOTE:
+ * findEarliestDue is served by the index (users_id, is_jp_question_quiz, due_at)
+ * and hence reads only one index entry regardless of how many vocabularies a user has reviewed.
+ * The SM-2 algorithm is computed in DB from the existing record
+ * so that an answer is recorded by one statement without extracting the record.
+ */
+@Slf4j
+@Repository
+public class QuizScheduleDao implements QuizScheduleRepository {
+
+    private static final double INITIAL_EASE_FACTOR = 2.5;
+    private static final double MIN_EASE_FACTOR = 1.3;
+    private static final int QUALITY_CORRECT = 4;
+    private static final int QUALITY_INCORRECT = 2;
+    private static final int FIRST_INTERVAL_DAYS = 1;
+    private static final int SECOND_INTERVAL_DAYS = 6;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    // built once at startup because it depends only on the constants of the algorithm
+    private final String scheduleNextReviewQuery;
+
+    @Autowired
+    QuizScheduleDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.scheduleNextReviewQuery = buildScheduleNextReviewQuery();
+    }
+
+    /**
+     * Extracts one record by executing the following SQL:
+     * SELECT * FROM quiz_schedules
+     *  WHERE vocabularies_id = {specified id} AND users_id = {specified id}
+     *  AND is_jp_question_quiz = {specified flag};
+     * When no data are found, return null.
+     */
+    @Override
+    public QuizScheduleEntity findById(
+        Integer vocabulariesId, String usersId, Boolean isJpQuestionQuiz
+    ) {
+        log.info("START: QuizScheduleDao#findById");
+
+        String query
+         = """
+            SELECT * FROM quiz_schedules
+            WHERE vocabularies_id = ? AND users_id = ? AND is_jp_question_quiz = ?
+            """;
+        QuizScheduleEntity quizSchedule;
+        try {
+            quizSchedule
+             = jdbcTemplate.queryForObject(
+                query, QuizScheduleRowMapper.INSTANCE, vocabulariesId, usersId, isJpQuestionQuiz
+            );
+        } catch (EmptyResultDataAccessException e) {
+            quizSchedule = null;
+        }
+
+        log.info("END: QuizScheduleDao#findById");
+        return quizSchedule;
+    }
+
+    /**
+     * Extracts one record whose due date is the earliest by executing the following SQL:
+     * SELECT * FROM quiz_schedules
+     *  WHERE users_id = {specified id} AND is_jp_question_quiz = {specified flag}
+     *  ORDER BY due_at LIMIT 1;
+     * When no data are found, return null.
+     */
+    @Override
+    public QuizScheduleEntity findEarliestDue(String usersId, Boolean isJpQuestionQuiz) {
+        log.info("START: QuizScheduleDao#findEarliestDue");
+
+        String query
+         = """
+            SELECT * FROM quiz_schedules
+            WHERE users_id = ? AND is_jp_question_quiz = ?
+            ORDER BY due_at
+            LIMIT 1
+            """;
+        QuizScheduleEntity quizSchedule;
+        try {
+            quizSchedule
+             = jdbcTemplate.queryForObject(
+                query, QuizScheduleRowMapper.INSTANCE, usersId, isJpQuestionQuiz
+            );
+        } catch (EmptyResultDataAccessException e) {
+            quizSchedule = null;
+        }
+
+        log.info("END: QuizScheduleDao#findEarliestDue");
+        return quizSchedule;
+    }
+
+    /**
+     * Inserts or updates records by executing the following SQL as a JDBC batch:
+     * INSERT INTO quiz_schedules {all columns}
+     *  VALUES {specified ids, the first schedule computed by SM-2, answered time}
+     *  ON CONFLICT (vocabularies_id, users_id, is_jp_question_quiz)
+     *  DO UPDATE SET {the next schedule computed by SM-2 from the existing record};
+     * 
+     * NOTE:
+     * All statements are sent in one round trip.
+     * The row lock taken by ON CONFLICT DO UPDATE serializes concurrent answers
+     * for the same record, and hence each answer is computed from the latest schedule.
+     * Timestamps are truncated to microseconds, which is the precision of DB.
+     */
+    @Override
+    public void scheduleNextReviews(List<QuizAnswerDto> answers) {
+        log.info("START: QuizScheduleDao#scheduleNextReviews");
+
+        SqlParameterSource[] params
+         = answers.stream()
+            .map(answer -> new MapSqlParameterSource()
+                .addValue("vocabulariesId", answer.getVocabulariesId())
+                .addValue("usersId", answer.getUsersId())
+                .addValue("isJpQuestionQuiz", answer.getIsJpQuestionQuiz())
+                .addValue("isAnswerCorrect", answer.getIsAnswerCorrect())
+                .addValue("answeredAt", answer.getAnsweredAt().truncatedTo(ChronoUnit.MICROS))
+            )
+            .toArray(SqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(scheduleNextReviewQuery, params);
+
+        log.info("END: QuizScheduleDao#scheduleNextReviews");
+    }
+
+    /**
+     * Builds the query used in scheduleNextReviews.
+     * The first schedule is computed from the initial values in the same way as the next one
+     * is computed from the existing record.
+     * 
+     * @return the query
+     */
+    private String buildScheduleNextReviewQuery() {
+        String insertedColumns
+         = buildNextScheduleColumns("0", "0", String.valueOf(INITIAL_EASE_FACTOR));
+        String updatedColumns
+         = buildNextScheduleColumns(
+            "quiz_schedules.repetitions", "quiz_schedules.interval_days", "quiz_schedules.ease_factor"
+        );
+        return String.format(
+            """
+            INSERT INTO quiz_schedules (
+                vocabularies_id, users_id, is_jp_question_quiz,
+                repetitions, interval_days, ease_factor, due_at, created_at, updated_at
+            )
+            SELECT
+                :vocabulariesId, :usersId, :isJpQuestionQuiz,
+                next.repetitions, next.interval_days, next.ease_factor, next.due_at,
+                CAST(:answeredAt AS timestamp), CAST(:answeredAt AS timestamp)
+            FROM (SELECT %1$s) AS next
+            ON CONFLICT (vocabularies_id, users_id, is_jp_question_quiz)
+            DO UPDATE SET
+                (repetitions, interval_days, ease_factor, due_at, updated_at)
+                 = (SELECT next.*, CAST(:answeredAt AS timestamp) FROM (SELECT %2$s) AS next)
+            """,
+            insertedColumns, updatedColumns
+        );
+    }
+
+    /**
+     * Builds the columns of the next schedule computed by SM-2 from a previous schedule,
+     * in the order of repetitions, interval_days, ease_factor and due_at.
+     * 
+     * @param repetitions an expression of the previous repetitions
+     * @param intervalDays an expression of the previous interval days
+     * @param easeFactor an expression of the previous ease factor
+     * @return the select list of the columns
+     */
+    private String buildNextScheduleColumns(String repetitions, String intervalDays, String easeFactor) {
+        // round() of numeric in DB rounds half away from zero (e.g. 2.5 -> 3), not half to even
+        String nextIntervalDays
+         = String.format(
+            """
+            CASE
+                WHEN NOT CAST(:isAnswerCorrect AS boolean) OR %1$s = 0 THEN %4$d
+                WHEN %1$s = 1 THEN %5$d
+                ELSE CAST(round(CAST(%2$s * %3$s AS numeric)) AS int)
+            END""",
+            repetitions, intervalDays, easeFactor, FIRST_INTERVAL_DAYS, SECOND_INTERVAL_DAYS
+        );
+        return String.format(
+            """
+            CASE WHEN CAST(:isAnswerCorrect AS boolean) THEN %1$s + 1 ELSE 0 END AS repetitions,
+                %2$s AS interval_days,
+                GREATEST(
+                    %3$s,
+                    %4$s + CASE WHEN CAST(:isAnswerCorrect AS boolean) THEN %5$s ELSE %6$s END
+                ) AS ease_factor,
+                CAST(:answeredAt AS timestamp) + %2$s * INTERVAL '1 day' AS due_at""",
+            repetitions,
+            nextIntervalDays,
+            MIN_EASE_FACTOR,
+            easeFactor,
+            calculateEaseFactorDelta(QUALITY_CORRECT),
+            calculateEaseFactorDelta(QUALITY_INCORRECT)
+        );
+    }
+
+    /**
+     * Calculates the change of the ease factor by an answer of a quality.
+     * 
+     * @param quality the quality of an answer from 0 to 5
+     * @return the change of the ease factor
+     */
+    private static double calculateEaseFactorDelta(int quality) {
+        int qualityLoss = 5 - quality;
+        // rounded so that the literal in the query is not affected by the floating point error
+        return Math.round((0.1 - qualityLoss * (0.08 + qualityLoss * 0.02)) * 100) / 100.0;
+    }
+
+}
@@ -0,0 +1,42 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.util.List;
+
+import net.myapp.englishstudybot.domain.model.QuizScheduleEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerDto;
+
+/**
+ * QuizScheduleRepository is a repostory interface which provides CRUD methods 
+ * for quiz_schedules table.
+ */
+public interface QuizScheduleRepository {
+
+    /**
+     * Extracts one record by specifying the primary key.
+     * 
+     * @param vocabulariesId vocabularies ID as a primary key
+     * @param usersId users ID as a primary key
+     * @param isJpQuestionQuiz a flag of the question type ("_jp" or "_en") as a primary key
+     * @return a quiz schedule record (null if not found)
+     */
+    public QuizScheduleEntity findById(Integer vocabulariesId, String usersId, Boolean isJpQuestionQuiz);
+
+    /**
+     * Extracts one record whose due date is the earliest for a user.
+     * 
+     * @param usersId a user's ID
+     * @param isJpQuestionQuiz a flag of the question type ("_jp" or "_en")
+     * @return a quiz schedule record (null if the user has no schedules)
+     */
+    public QuizScheduleEntity findEarliestDue(String usersId, Boolean isJpQuestionQuiz);
+
+    /**
+     * Schedules the next reviews of answered quizzes by the SM-2 algorithm
+     * (inserts a new record or updates an existing record with the same primary key).
+     * The next schedule is computed from the existing record in DB without extracting it.
+     * 
+     * @param answers results of users' answers
+     */
+    public void scheduleNextReviews(List<QuizAnswerDto> answers);
+
+}
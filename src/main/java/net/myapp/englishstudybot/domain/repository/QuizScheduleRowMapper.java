@@ -0,0 +1,40 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import net.myapp.englishstudybot.domain.model.QuizScheduleEntity;
+
+/**
+ * QuizScheduleRowMapper is a RowMapper which converts a row of quiz_schedules table
+ * into a quiz schedule entity.
+ *
+ * NOTE:
+ * This class is stateless and the shared instance INSTANCE should be used.
+ */
+class QuizScheduleRowMapper implements RowMapper<QuizScheduleEntity> {
+
+    static final QuizScheduleRowMapper INSTANCE = new QuizScheduleRowMapper();
+
+    private QuizScheduleRowMapper() {
+    }
+
+    @Override
+    public QuizScheduleEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new QuizScheduleEntity(
+            rs.getInt("vocabularies_id"),
+            rs.getString("users_id"),
+            rs.getObject("is_jp_question_quiz", Boolean.class),
+            rs.getObject("repetitions", Integer.class),
+            rs.getObject("interval_days", Integer.class),
+            rs.getObject("ease_factor", Double.class),
+            rs.getObject("due_at", LocalDateTime.class),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class)
+        );
+    }
+
+}
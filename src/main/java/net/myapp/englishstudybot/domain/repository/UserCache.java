@@ -0,0 +1,248 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.model.QuizStateName;
+import net.myapp.englishstudybot.domain.model.UserEntity;
+
+/**
+ * UserCache is an implementation of UserRepository which caches users in memory
+ * in front of UserDao (write-through session cache).
+ *
+ * A user is loaded from DB at the first access and kept while the user is talking with the bot,
+ * so that a steady conversation causes no reads of the users table.
+ * All writes are executed by UserDao synchronously in the caller's transaction,
+ * and the written records are applied to the cache after the transaction is committed.
+ * Hence, a failed or rolled back write never leaves the cache different from DB.
+ *
+ * NOTE:
+ * Users idle for the configured minutes are evicted, and the number of cached users is bounded.
+ * DB is never accessed with the lock of this class held.
+ * A user loaded from DB is not cached if any committed write is applied to the cache during the load,
+ * since the loaded record may be older than the written one.
+ * UserEntity is mutable and hence this class always returns copies of cached entities.
+ * Records changed directly in DB (not through this class) are not reflected until the user is evicted.
+ */
+@Slf4j
+@Primary
+@Repository
+public class UserCache implements UserRepository {
+
+    private final UserDao userDao;
+    private final int maxCachedUsers;
+    private final long idleNanos;
+
+    // cached users ordered by access to evict idle users from the eldest
+    private final Map<String, CachedUser> usersById
+     = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+            return size() > maxCachedUsers;
+        }
+    };
+    // incremented whenever a committed write is applied, so that stale loads are discarded
+    private long version;
+
+    @Autowired
+    UserCache(
+        UserDao userDao,
+        @Value("${englishstudybot.user.cache.max-size:1000}") int maxCachedUsers,
+        @Value("${englishstudybot.user.cache.idle-minutes:30}") long idleMinutes
+    ) {
+        this.userDao = userDao;
+        this.maxCachedUsers = maxCachedUsers;
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+    }
+
+    /**
+     * Extracts one record from the cache, or from DB if not cached.
+     */
+    @Override
+    public UserEntity findById(String id) {
+        UserEntity user = getCachedOrLoad(id);
+        return (user == null) ? null : copyOf(user);
+    }
+
+    /**
+     * Inserts one new record into DB and caches it after the commit.
+     */
+    @Override
+    public UserEntity add(UserEntity user) {
+        UserEntity addedUser = userDao.add(user);
+        cacheAfterCommit(addedUser);
+        return addedUser;
+    }
+
+    /**
+     * Updates the quiz status in DB and replaces the user in the cache after the commit.
+     * When no data are found, returns null.
+     */
+    @Override
+    public UserEntity updateUserStatus(String id, QuizStateName quizStatus) {
+        UserEntity updatedUser = userDao.updateUserStatus(id, quizStatus);
+        cacheAfterCommit(updatedUser);
+        return updatedUser;
+    }
+
+    /**
+     * Updates the last quiz info. in DB and replaces the user in the cache after the commit.
+     * When no data are found, returns null.
+     */
+    @Override
+    public UserEntity updateLastQuizInfo(UserEntity user) {
+        UserEntity updatedUser = userDao.updateLastQuizInfo(user);
+        cacheAfterCommit(updatedUser);
+        return updatedUser;
+    }
+
+    /**
+     * Deletes one existing record from DB and removes it from the cache after the commit.
+     */
+    @Override
+    public void delete(String id) {
+        userDao.delete(id);
+        runAfterCommit(() -> usersById.remove(id));
+    }
+
+    /**
+     * Evicts a user from the cache so that the user is loaded from DB at the next access.
+     *
+     * @param id ID of the user to be evicted
+     */
+    public synchronized void invalidate(String id) {
+        usersById.remove(id);
+    }
+
+    /**
+     * Gets a cached user, or loads the user from DB and caches it.
+     *
+     * @param id ID of the user
+     * @return the cached or loaded user entity, which must not be returned to callers as is (nullable)
+     */
+    private UserEntity getCachedOrLoad(String id) {
+        long loadedVersion;
+        synchronized (this) {
+            UserEntity cachedUser = getCachedUser(id);
+            if (cachedUser != null) {
+                return cachedUser;
+            }
+            loadedVersion = version;
+        }
+
+        UserEntity user = userDao.findById(id);
+        if (user == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (version != loadedVersion) {
+                // a write committed during the load may be newer than the loaded user
+                return user;
+            }
+            CachedUser cached = usersById.computeIfAbsent(id, key -> new CachedUser(user));
+            return cached.user;
+        }
+    }
+
+    /**
+     * Gets a cached user and records the access after evicting idle users.
+     */
+    private synchronized UserEntity getCachedUser(String id) {
+        long now = System.nanoTime();
+        // evicts idle users from the least recently accessed one
+        Iterator<CachedUser> iterator = usersById.values().iterator();
+        while (iterator.hasNext()) {
+            CachedUser cached = iterator.next();
+            if (now - cached.accessedAt < idleNanos) {
+                break;
+            }
+            iterator.remove();
+        }
+
+        CachedUser cached = usersById.get(id);
+        if (cached == null) {
+            return null;
+        }
+        cached.accessedAt = now;
+        return cached.user;
+    }
+
+    /**
+     * Caches a written user after the current transaction is committed.
+     *
+     * @param user a user entity written to DB (nullable)
+     */
+    private void cacheAfterCommit(UserEntity user) {
+        if (user == null) {
+            return;
+        }
+        UserEntity cachedUser = copyOf(user);
+        runAfterCommit(() -> usersById.put(cachedUser.getId(), new CachedUser(cachedUser)));
+    }
+
+    /**
+     * Runs an update of the cache with the lock after the current transaction is committed.
+     * If no transaction is active, runs it immediately.
+     *
+     * @param update an update of the cache
+     */
+    private void runAfterCommit(Runnable update) {
+        Runnable versionedUpdate = () -> {
+            synchronized (this) {
+                version++;
+                update.run();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        versionedUpdate.run();
+                    }
+                }
+            );
+        } else {
+            versionedUpdate.run();
+        }
+    }
+
+    private UserEntity copyOf(UserEntity user) {
+        return new UserEntity(
+            user.getId(),
+            user.getIsSelfWordOnly(),
+            user.getIsExampleQuiz(),
+            user.getIsJpQuestionQuiz(),
+            user.getIsDescriptionQuiz(),
+            user.getQuizStatus(),
+            user.getLastVocabulariesId(),
+            user.getLastQuizSentence(),
+            user.getLastQuizAnswer(),
+            user.getCreatedAt(),
+            user.getUpdatedAt()
+        );
+    }
+
+    /**
+     * CachedUser holds a cached user and the last access time.
+     */
+    private static class CachedUser {
+        private final UserEntity user;
+        private long accessedAt = System.nanoTime();
+
+        private CachedUser(UserEntity user) {
+            this.user = user;
+        }
+    }
+
+}
@@ -1,8 +1,7 @@
 package net.myapp.englishstudybot.domain.repository;
 
-import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.time.temporal.ChronoUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -21,10 +20,16 @@ import net.myapp.englishstudybot.domain.model.UserEntity;
 public class UserDao implements UserRepository{
 
     private final JdbcTemplate jdbcTemplate;
+    private final VocabIdIndex vocabIdIndex;
+    private final SimpleJdbcInsert insert;
 
     @Autowired
-    UserDao(JdbcTemplate jdbcTemplate){
+    UserDao(JdbcTemplate jdbcTemplate, VocabIdIndex vocabIdIndex){
         this.jdbcTemplate = jdbcTemplate;
+        this.vocabIdIndex = vocabIdIndex;
+        // compiles the insert operation (i.e. looks up column metadata) only once
+        this.insert = new SimpleJdbcInsert(jdbcTemplate).withTableName("users");
+        this.insert.compile();
     }
 
     /**
@@ -38,20 +43,7 @@ public class UserDao implements UserRepository{
         UserEntity user;
         String query = "SELECT * FROM users WHERE id = ?";
         try{
-           Map<String, Object> extractedItem = jdbcTemplate.queryForMap(query, id);
-           user = new UserEntity(
-                    (String) extractedItem.get("id"),
-                    (Boolean) extractedItem.get("is_self_word_only"),
-                    (Boolean) extractedItem.get("is_example_quiz"),
-                    (Boolean) extractedItem.get("is_jp_question_quiz"),
-                    (Boolean) extractedItem.get("is_description_quiz"),
-                    (Integer) extractedItem.get("quiz_status"),
-                    (Integer) extractedItem.get("last_vocabularies_id"),
-                    (String) extractedItem.get("last_quiz"),
-                    (String) extractedItem.get("last_quiz_answer"),
-                    ((Timestamp) extractedItem.get("created_at")).toLocalDateTime(),
-                    ((Timestamp) extractedItem.get("updated_at")).toLocalDateTime()
-                );
+           user = jdbcTemplate.queryForObject(query, UserRowMapper.INSTANCE, id);
         } catch (EmptyResultDataAccessException e) {
             user = null;
         }
@@ -63,27 +55,31 @@ public class UserDao implements UserRepository{
     /**
      * Inserts one new record by executing the following SQL:
      * INSERT INTO users {all columns} VALUES {each specified value};
+     * 
+     * NOTE:
+     * The argument entity is returned without extracting the inserted record again
+     * because all columns are inserted with the values of the entity.
+     * Timestamps are truncated to microseconds, which is the precision of DB.
      */
     @Override
     public UserEntity add(UserEntity user) {
         log.info("START: UserDao#add");
 
-        LocalDateTime currentTime = LocalDateTime.now();
+        LocalDateTime currentTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         user.setCreatedAt(currentTime);
         user.setUpdatedAt(currentTime);
 
-        SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate)
-                                        .withTableName("users");
         SqlParameterSource param = new BeanPropertySqlParameterSource(user);
         insert.execute(param);
 
         log.info("END: UserDao#add");
-        return findById(user.getId());
+        return user;
     }
 
     /**
      * Updates quiz_status column of one existing record by executing the following SQL:
-     * UDPATE users SET quiz_status = {specified value} WHERE id = {specified id};
+     * UDPATE users SET quiz_status = {specified value} WHERE id = {specified id} RETURNING *;
+     * When no data are found, returns null.
      */
     @Override
     public UserEntity updateUserStatus(String id, QuizStateName quizStatus){
@@ -94,16 +90,25 @@ public class UserDao implements UserRepository{
                             quiz_status = ?,
                             updated_at = ?
                         WHERE id = ?
+                        RETURNING *
                         """;
-        jdbcTemplate.update(query, quizStatus.getCode(), LocalDateTime.now(), id);
+        UserEntity user;
+        try {
+            user = jdbcTemplate.queryForObject(
+                query, UserRowMapper.INSTANCE, quizStatus.getCode(), LocalDateTime.now(), id
+            );
+        } catch (EmptyResultDataAccessException e) {
+            user = null;
+        }
 
         log.info("END: UserDao#updateUserStatus");
-        return findById(id);
+        return user;
     }
 
     /**
      * Updates one existing record related to quiz info. by executing the following SQL:
-     * UPDATE users SET {last_vocabularies_id, last_quiz_sentence, last_quiz_answer} WHERE id = {specified id};
+     * UPDATE users SET {last_vocabularies_id, last_quiz_sentence, last_quiz_answer} WHERE id = {specified id} RETURNING *;
+     * When no data are found, returns null.
      */
     @Override
     public UserEntity updateLastQuizInfo(UserEntity user){
@@ -116,16 +121,23 @@ public class UserDao implements UserRepository{
                            last_quiz_answer = ?,
                            updated_at = ? 
                         WHERE id = ?
+                        RETURNING *
                         """;
-        jdbcTemplate.update(query, 
-                            user.getLastVocabulariesId(),
-                            user.getLastQuizSentence(),
-                            user.getLastQuizAnswer(),
-                            LocalDateTime.now(),
-                            user.getId());
+        UserEntity updatedUser;
+        try {
+            updatedUser = jdbcTemplate.queryForObject(query, 
+                                                      UserRowMapper.INSTANCE,
+                                                      user.getLastVocabulariesId(),
+                                                      user.getLastQuizSentence(),
+                                                      user.getLastQuizAnswer(),
+                                                      LocalDateTime.now(),
+                                                      user.getId());
+        } catch (EmptyResultDataAccessException e) {
+            updatedUser = null;
+        }
 
         log.info("END: UserDao#updateLastQuizInfo");
-        return findById(user.getId());
+        return updatedUser;
     }
 
     /**
@@ -138,6 +150,8 @@ public class UserDao implements UserRepository{
 
         String query = "DELETE FROM users WHERE id = ?";
         jdbcTemplate.update(query, id);
+        // quiz aggregation records of the user are deleted in cascade
+        vocabIdIndex.removeUser(id);
 
         log.info("END: UserDao#delete");
     }
@@ -0,0 +1,41 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import net.myapp.englishstudybot.domain.model.UserEntity;
+
+/**
+ * UserRowMapper is a RowMapper which converts a row of users table into a user entity.
+ *
+ * NOTE:
+ * This class is stateless and the shared instance INSTANCE should be used.
+ */
+class UserRowMapper implements RowMapper<UserEntity> {
+
+    static final UserRowMapper INSTANCE = new UserRowMapper();
+
+    private UserRowMapper() {
+    }
+
+    @Override
+    public UserEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new UserEntity(
+            rs.getString("id"),
+            rs.getObject("is_self_word_only", Boolean.class),
+            rs.getObject("is_example_quiz", Boolean.class),
+            rs.getObject("is_jp_question_quiz", Boolean.class),
+            rs.getObject("is_description_quiz", Boolean.class),
+            rs.getObject("quiz_status", Integer.class),
+            rs.getObject("last_vocabularies_id", Integer.class),
+            rs.getString("last_quiz"),
+            rs.getString("last_quiz_answer"),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class)
+        );
+    }
+
+}
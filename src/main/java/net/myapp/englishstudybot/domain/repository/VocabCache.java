@@ -0,0 +1,377 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.model.VocabEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizVocabsDto;
+
+/**
+ * VocabCache is an implementation of VocabRepository which caches vocabularies in memory
+ * in front of VocabDao (read-through cache).
+ * This class keeps vocabularies keyed by id for a limited number of recently used ones,
+ * whose maximum is specified by "englishstudybot.vocab.cache.max-size".
+ *
+ * Random access (findRandom, findSomeExceptForOne and findWithCandidates) samples IDs by VocabIdIndex
+ * and extracts the sampled vocabularies from the cache,
+ * and only vocabularies not cached are extracted from DB in one round trip.
+ * If the number of all vocabularies does not exceed the maximum,
+ * all vocabularies are loaded at the first access (warm-up) so that random access needs no query.
+ * The warm-up is executed by one thread at a time, and the others read through the cache meanwhile.
+ *
+ * Since the vocabularies table is changed only through VocabServiceImpl,
+ * only the changed vocabularies are updated in the cache and the others remain cached.
+ *
+ * NOTE:
+ * VocabEntity is mutable and hence this class always returns copies of cached entities
+ * so that callers' modifications (e.g. VocabServiceImpl#update) never affect the cache.
+ * When a method is called in a transaction, the cache is updated after the commit
+ * so that rolled back changes are never cached.
+ * Records changed directly in DB (not through this class) are not reflected
+ * until invalidate() is called.
+ */
+@Slf4j
+@Primary
+@Repository
+public class VocabCache implements VocabRepository {
+
+    private final VocabDao vocabDao;
+    private final VocabIdIndex vocabIdIndex;
+    private final int maxCachedVocabs;
+
+    private final Map<Integer, VocabEntity> vocabsById;
+    // true after all vocabularies are loaded
+    private volatile boolean isWarmedUp;
+    // true while a thread is loading all vocabularies
+    private boolean isWarmingUp;
+    // incremented by every change so that entities loaded before a change are not cached
+    private long version;
+
+    @Autowired
+    VocabCache(
+        VocabDao vocabDao,
+        VocabIdIndex vocabIdIndex,
+        @Value("${englishstudybot.vocab.cache.max-size:100000}") int maxCachedVocabs
+    ) {
+        this.vocabDao = vocabDao;
+        this.vocabIdIndex = vocabIdIndex;
+        this.maxCachedVocabs = maxCachedVocabs;
+        this.vocabsById = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, VocabEntity> eldest) {
+                return size() > maxCachedVocabs;
+            }
+        };
+    }
+
+    /**
+     * Extracts all records from DB.
+     */
+    @Override
+    public List<VocabEntity> findAll() {
+        return vocabDao.findAll();
+    }
+
+    /**
+     * Extracts records after a cursor from DB.
+     */
+    @Override
+    public List<VocabEntity> findPage(Integer afterId, int limit) {
+        return vocabDao.findPage(afterId, limit);
+    }
+
+    /**
+     * Extracts all records one by one from DB.
+     */
+    @Override
+    public void forEachVocab(Consumer<VocabEntity> action) {
+        vocabDao.forEachVocab(action);
+    }
+
+    /**
+     * Extracts IDs of all records from DB.
+     */
+    @Override
+    public List<Integer> findAllIds() {
+        return vocabDao.findAllIds();
+    }
+
+    /**
+     * Extracts one record from the cache, or from DB if not cached.
+     */
+    @Override
+    public VocabEntity findById(Integer id) {
+        List<VocabEntity> vocabs = findByIds(new int[] {id});
+        return vocabs.isEmpty() ? null : vocabs.get(0);
+    }
+
+    /**
+     * Extracts records from the cache, and those not cached from DB in one round trip.
+     * The records are returned in the order of the specified IDs.
+     */
+    @Override
+    public List<VocabEntity> findByIds(int[] ids) {
+        Map<Integer, VocabEntity> foundVocabs = new HashMap<>();
+        List<Integer> notCachedIds = new ArrayList<>();
+        long loadedVersion;
+        synchronized (this) {
+            for (int id : ids) {
+                VocabEntity cachedVocab = vocabsById.get(id);
+                if (cachedVocab != null) {
+                    foundVocabs.put(id, copyOf(cachedVocab));
+                } else {
+                    notCachedIds.add(id);
+                }
+            }
+            loadedVersion = version;
+        }
+
+        if (! notCachedIds.isEmpty()) {
+            List<VocabEntity> loadedVocabs
+             = vocabDao.findByIds(notCachedIds.stream().mapToInt(Integer::intValue).toArray());
+            synchronized (this) {
+                for (VocabEntity vocab : loadedVocabs) {
+                    if (version == loadedVersion) {
+                        vocabsById.put(vocab.getId(), copyOf(vocab));
+                    }
+                    foundVocabs.put(vocab.getId(), vocab);
+                }
+            }
+        }
+
+        return Arrays.stream(ids)
+            .mapToObj(foundVocabs::get)
+            .filter(vocab -> vocab != null)
+            .toList();
+    }
+
+    /**
+     * Extracts one record whose ID is picked randomly by VocabIdIndex from the cache.
+     */
+    @Override
+    public VocabEntity findRandom() {
+        warmUpIfNeeded();
+        Integer vocabId = vocabIdIndex.pickRandomVocabId();
+        VocabEntity vocab = (vocabId == null) ? null : findById(vocabId);
+        if (vocab == null) {
+            // VocabDao throws the same exception as before if no records are found
+            return vocabDao.findRandom();
+        }
+        return vocab;
+    }
+
+    /**
+     * Extracts some records whose IDs are sampled randomly by VocabIdIndex from the cache,
+     * except for one specified record.
+     */
+    @Override
+    public List<VocabEntity> findSomeExceptForOne(int findNum, Integer vocabIdExcluded) {
+        warmUpIfNeeded();
+        // throws IllegalArgumentException if findNum exceeds the number of records
+        List<VocabEntity> vocabs = findByIds(vocabIdIndex.sampleVocabIds(findNum, vocabIdExcluded));
+        if (vocabs.size() < findNum) {
+            // some sampled vocabularies have been deleted
+            return vocabDao.findSomeExceptForOne(findNum, vocabIdExcluded);
+        }
+        return vocabs;
+    }
+
+    /**
+     * Extracts a target record and other records sampled randomly by VocabIdIndex from the cache.
+     * The records not cached are extracted from DB in one round trip.
+     */
+    @Override
+    public QuizVocabsDto findWithCandidates(Integer targetVocabId, int candidateNum) {
+        warmUpIfNeeded();
+        // throws IllegalArgumentException if candidateNum exceeds the number of records
+        int[] candidateIds = vocabIdIndex.sampleVocabIds(candidateNum, targetVocabId);
+        List<VocabEntity> vocabs
+         = findByIds(IntStream.concat(IntStream.of(targetVocabId), Arrays.stream(candidateIds)).toArray());
+
+        if (vocabs.isEmpty() || ! vocabs.get(0).getId().equals(targetVocabId)) {
+            return null;
+        }
+        if (vocabs.size() < candidateNum + 1) {
+            // some sampled vocabularies have been deleted
+            return vocabDao.findWithCandidates(targetVocabId, candidateNum);
+        }
+        return new QuizVocabsDto(vocabs.get(0), vocabs.subList(1, vocabs.size()));
+    }
+
+    /**
+     * Inserts one new record into DB and caches it after the commit.
+     */
+    @Override
+    public VocabEntity add(VocabEntity vocab) {
+        VocabEntity addedVocab = vocabDao.add(vocab);
+        if (addedVocab != null) {
+            VocabEntity cachedVocab = copyOf(addedVocab);
+            runAfterCommit(() -> vocabsById.put(cachedVocab.getId(), cachedVocab));
+        }
+        return addedVocab;
+    }
+
+    /**
+     * Inserts new records into DB and caches them after the commit.
+     */
+    @Override
+    public List<VocabEntity> addAll(List<VocabEntity> vocabs) {
+        List<VocabEntity> addedVocabs = vocabDao.addAll(vocabs);
+        List<VocabEntity> cachedVocabs = addedVocabs.stream().map(this::copyOf).toList();
+        runAfterCommit(() -> cachedVocabs.forEach(vocab -> vocabsById.put(vocab.getId(), vocab)));
+        return addedVocabs;
+    }
+
+    /**
+     * Deletes one existing record from DB and removes it from the cache after the commit.
+     */
+    @Override
+    public void delete(Integer id) {
+        vocabDao.delete(id);
+        runAfterCommit(() -> vocabsById.remove(id));
+    }
+
+    /**
+     * Updates one existing record in DB and replaces it in the cache after the commit.
+     */
+    @Override
+    public VocabEntity update(VocabEntity vocab) {
+        VocabEntity updatedVocab = vocabDao.update(vocab);
+        if (updatedVocab != null) {
+            VocabEntity cachedVocab = copyOf(updatedVocab);
+            runAfterCommit(() -> vocabsById.put(cachedVocab.getId(), cachedVocab));
+        }
+        return updatedVocab;
+    }
+
+    /**
+     * Deletes existing records in DB and removes them from the cache after the commit.
+     */
+    @Override
+    public List<Integer> deleteAll(List<Integer> ids, String usersId) {
+        List<Integer> deletedIds = vocabDao.deleteAll(ids, usersId);
+        runAfterCommit(() -> deletedIds.forEach(vocabsById::remove));
+        return deletedIds;
+    }
+
+    /**
+     * Updates existing records in DB and removes them from the cache after the commit,
+     * since only the specified columns are updated and the new records are not returned.
+     * They are extracted from DB again at the next access.
+     */
+    @Override
+    public List<Integer> updateAll(List<VocabEntity> vocabs) {
+        List<Integer> updatedIds = vocabDao.updateAll(vocabs);
+        runAfterCommit(() -> updatedIds.forEach(vocabsById::remove));
+        return updatedIds;
+    }
+
+    /**
+     * Discards all cached data so that they are loaded from DB again at the next access.
+     */
+    public synchronized void invalidate() {
+        version++;
+        vocabsById.clear();
+        isWarmedUp = false;
+    }
+
+    /**
+     * Loads all vocabularies into the cache if not loaded yet
+     * and the number of vocabularies does not exceed the maximum.
+     * The query is executed out of the lock by only one thread,
+     * and the other threads return at once without waiting for the load.
+     * The number of vocabularies is checked by VocabIdIndex,
+     * so that the warm-up starts again once the table shrinks below the maximum.
+     */
+    private void warmUpIfNeeded() {
+        if (isWarmedUp || vocabIdIndex.countVocabIds() > maxCachedVocabs) {
+            return;
+        }
+
+        long loadedVersion;
+        synchronized (this) {
+            if (isWarmedUp || isWarmingUp) {
+                return;
+            }
+            isWarmingUp = true;
+            loadedVersion = version;
+        }
+
+        try {
+            log.info("Loads all vocabularies into the cache.");
+            List<VocabEntity> loadedVocabs = vocabDao.findAll();
+            synchronized (this) {
+                // discarded if changed during the load, and loaded again at the next access
+                if (version == loadedVersion && loadedVocabs.size() <= maxCachedVocabs) {
+                    loadedVocabs.forEach(vocab -> vocabsById.put(vocab.getId(), vocab));
+                    isWarmedUp = true;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                isWarmingUp = false;
+            }
+        }
+    }
+
+    /**
+     * Runs an update of the cache with the lock after the current transaction is committed.
+     * If no transaction is active, runs it immediately.
+     *
+     * @param update an update of the cache
+     */
+    private void runAfterCommit(Runnable update) {
+        Runnable versionedUpdate = () -> {
+            synchronized (this) {
+                version++;
+                update.run();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        versionedUpdate.run();
+                    }
+                }
+            );
+        } else {
+            versionedUpdate.run();
+        }
+    }
+
+    /**
+     * Creates a copy of a vocabulary entity.
+     *
+     * @param vocab a vocabulary entity to be copied
+     * @return a new entity with the same values
+     */
+    private VocabEntity copyOf(VocabEntity vocab) {
+        return new VocabEntity(
+            vocab.getId(),
+            vocab.getSpelling(),
+            vocab.getMeaning(),
+            vocab.getExampleEn(),
+            vocab.getExampleJp(),
+            vocab.getUsersId(),
+            vocab.getCreatedAt(),
+            vocab.getUpdatedAt()
+        );
+    }
+
+}
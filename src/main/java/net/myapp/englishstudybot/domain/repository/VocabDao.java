@@ -1,19 +1,28 @@
 package net.myapp.englishstudybot.domain.repository;
 
-import java.sql.Timestamp;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import lombok.extern.slf4j.Slf4j;
 import net.myapp.englishstudybot.domain.model.VocabEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizVocabsDto;
 
 /**
  * VocabDao is an implementation of VocabRepository by using JdbcTemplate.
@@ -26,52 +35,114 @@ import net.myapp.englishstudybot.domain.model.VocabEntity;
  *    Thereby, maintanability is expected to improve
  *    because query and each DB parameters such as table name could be independent
  *    of repository class file.
- * 3) All add or update methods use to findById return entity, which might be better to be changed.
- *    This is because those methods access DB at least twice
- *    which could delay this class's behavior when DB records are huge.
- *    Instead, use RETURNING sentence for query to reduce DB access.
- * 4) Define table name and column names as constant values and use them
+ * 3) Define table name and column names as constant values and use them
  *    instead of writing in the code directly.
  */
 @Slf4j
 @Repository
 public class VocabDao implements VocabRepository {
 
+    // the number of rows fetched at a time when all records are extracted
+    private static final int FETCH_SIZE = 1000;
+    // the number of rows inserted by one statement in addAll
+    private static final int INSERT_CHUNK_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
+    private final VocabIdIndex vocabIdIndex;
+    private final SimpleJdbcInsert insert;
 
     @Autowired
-    VocabDao(JdbcTemplate jdbcTemplate) {
+    VocabDao(JdbcTemplate jdbcTemplate, VocabIdIndex vocabIdIndex) {
         this.jdbcTemplate = jdbcTemplate;
+        this.vocabIdIndex = vocabIdIndex;
+        // compiles the insert operation (i.e. looks up column metadata) only once
+        this.insert
+         = new SimpleJdbcInsert(jdbcTemplate)
+            .withTableName("vocabularies")
+            .usingGeneratedKeyColumns("id");
+        this.insert.compile();
     }
 
     /**
      * Extracts all records by the following SQL:
      * SELECT * FROM vocabularies;
+     * 
+     * NOTE:
+     * Rows are fetched FETCH_SIZE rows at a time and converted by VocabRowMapper
+     * so that neither the driver nor this class holds intermediate data for all rows at once.
+     * The PostgreSQL driver uses the fetch size only when auto-commit is off,
+     * and hence this method runs in a read-only transaction.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<VocabEntity> findAll() {
         log.info("START: VocabDao#findAll");
 
         String query = "SELECT * FROM vocabularies";
-        List<Map<String, Object>> extractedList = jdbcTemplate.queryForList(query);
         List<VocabEntity> vocabLists
-         = extractedList.stream()
-            .map( (row) -> new VocabEntity(
-                (Integer) row.get("id"),
-                (String) row.get("spelling"),
-                (String) row.get("meaning"),
-                (String) row.get("example_en"),
-                (String) row.get("example_jp"),
-                (String) row.get("users_id"),
-                ((Timestamp) row.get("created_at")).toLocalDateTime(),
-                ((Timestamp) row.get("updated_at")).toLocalDateTime()
-            ))
-            .toList();
+         = jdbcTemplate.query(
+            con -> {
+                PreparedStatement ps = con.prepareStatement(query);
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            },
+            VocabRowMapper.INSTANCE
+        );
 
         log.info("END: VocabDao#findAll");
         return vocabLists;
     }
 
+    /**
+     * Extracts records after a cursor by executing the following SQL:
+     * SELECT * FROM vocabularies WHERE id > {specified id} ORDER BY id LIMIT {specified number};
+     * 
+     * NOTE:
+     * The primary key index is used for both the condition and the order,
+     * and hence the cost does not depend on how deep the page is (unlike OFFSET).
+     */
+    @Override
+    public List<VocabEntity> findPage(Integer afterId, int limit) {
+        log.info("START: VocabDao#findPage");
+
+        String query = "SELECT * FROM vocabularies WHERE id > ? ORDER BY id LIMIT ?";
+        List<VocabEntity> vocabLists
+         = jdbcTemplate.query(
+            query, VocabRowMapper.INSTANCE, (afterId == null) ? 0 : afterId, limit
+        );
+
+        log.info("END: VocabDao#findPage");
+        return vocabLists;
+    }
+
+    /**
+     * Extracts all records one by one by executing the following SQL:
+     * SELECT * FROM vocabularies ORDER BY id;
+     * 
+     * NOTE:
+     * Each row is converted and passed to the action as soon as it comes off the result set,
+     * and only FETCH_SIZE rows are held by the driver at a time.
+     * In the same way as findAll, this method runs in a read-only transaction
+     * so that the PostgreSQL driver uses the fetch size.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachVocab(Consumer<VocabEntity> action) {
+        log.info("START: VocabDao#forEachVocab");
+
+        String query = "SELECT * FROM vocabularies ORDER BY id";
+        jdbcTemplate.query(
+            con -> {
+                PreparedStatement ps = con.prepareStatement(query);
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            },
+            (RowCallbackHandler) rs -> action.accept(VocabRowMapper.INSTANCE.mapRow(rs, rs.getRow()))
+        );
+
+        log.info("END: VocabDao#forEachVocab");
+    }
+
     /**
      * Extracts all vocabulary IDs by the following SQL:
      * SELECT id FROM vocabularies;
@@ -81,10 +152,7 @@ public class VocabDao implements VocabRepository {
         log.info("START: VocabDao#findAllIds");
 
         String query = "SELECT id FROM vocabularies";
-        List<Map<String, Object>> extractedItem = jdbcTemplate.queryForList(query);
-        List<Integer> vocabularyIds
-         = extractedItem.stream()
-            .map( item -> (Integer) item.get("id")).toList();
+        List<Integer> vocabularyIds = jdbcTemplate.queryForList(query, Integer.class);
 
         log.info("END: VocabDao#findAllIds");
         return vocabularyIds;
@@ -101,18 +169,7 @@ public class VocabDao implements VocabRepository {
         VocabEntity vocabRecord;
         String query = "SELECT * FROM vocabularies WHERE id = ?";
         try {
-            Map<String, Object> extractedItem = jdbcTemplate.queryForMap(query, id);
-            vocabRecord
-             = new VocabEntity(
-                id,
-                (String) extractedItem.get("spelling"),
-                (String) extractedItem.get("meaning"),
-                (String) extractedItem.get("example_en"),
-                (String) extractedItem.get("example_jp"),
-                (String) extractedItem.get("users_id"),
-                ((Timestamp) extractedItem.get("created_at")).toLocalDateTime(),
-                ((Timestamp) extractedItem.get("updated_at")).toLocalDateTime()
-            );
+            vocabRecord = jdbcTemplate.queryForObject(query, VocabRowMapper.INSTANCE, id);
         } catch (EmptyResultDataAccessException e) {
             vocabRecord = null;
         }
@@ -122,13 +179,54 @@ public class VocabDao implements VocabRepository {
     }
 
     /**
-     * Extracts one record by executing the following SQL:
-     * SELECT * FROM vocabularies WHERE id = (SELECT id FROM vocabularies ORDER BY random() LIMIT 1);
+     * Extracts records by executing the following SQL:
+     * SELECT * FROM vocabularies WHERE id = ANY({specified ids});
+     */
+    @Override
+    public List<VocabEntity> findByIds(int[] ids) {
+        log.info("START: VocabDao#findByIds");
+
+        String query = "SELECT * FROM vocabularies WHERE id = ANY(?)";
+        Integer[] vocabIdParam = Arrays.stream(ids).boxed().toArray(Integer[]::new);
+        // the array is cast to Object so that it is bound as one SQL array parameter (not varargs)
+        List<VocabEntity> vocabLists
+         = jdbcTemplate.query(query, VocabRowMapper.INSTANCE, (Object) vocabIdParam);
+
+        log.info("END: VocabDao#findByIds");
+        return vocabLists;
+    }
+
+    /**
+     * Extracts one record whose ID is picked randomly from VocabIdIndex
+     * by executing the following SQL:
+     * SELECT * FROM vocabularies WHERE id = {randomly picked id};
+     * 
+     * NOTE:
+     * If the picked record is not found because the index is out of date,
+     * falls back to the SQL which scans the table (see findRandomByScan).
      */
     @Override
     public VocabEntity findRandom() {
         log.info("START: VocabDao#findRandom");
 
+        Integer vocabId = vocabIdIndex.pickRandomVocabId();
+        VocabEntity vocabRecord = (vocabId == null) ? null : findById(vocabId);
+        if (vocabRecord == null) {
+            log.warn("Vocabulary ID index is out of date. Falls back to scanning the table.");
+            vocabRecord = findRandomByScan();
+        }
+
+        log.info("END: VocabDao#findRandom");
+        return vocabRecord;
+    }
+
+    /**
+     * Extracts one record randomly by executing the following SQL:
+     * SELECT * FROM vocabularies WHERE id = (SELECT id FROM vocabularies ORDER BY random() LIMIT 1);
+     * 
+     * @return a vocabulary record found
+     */
+    private VocabEntity findRandomByScan() {
         String query
          = """
             SELECT * FROM vocabularies 
@@ -136,31 +234,47 @@ public class VocabDao implements VocabRepository {
                 SELECT id FROM vocabularies ORDER BY random() LIMIT 1
             )
             """;
-        Map<String, Object> extractedItem = jdbcTemplate.queryForMap(query);
-        VocabEntity vocabRecord
-         = new VocabEntity(
-            (Integer) extractedItem.get("id"),
-            (String) extractedItem.get("spelling"),
-            (String) extractedItem.get("meaning"),
-            (String) extractedItem.get("example_en"),
-            (String) extractedItem.get("example_jp"),
-            (String) extractedItem.get("users_id"),
-            ((Timestamp) extractedItem.get("created_at")).toLocalDateTime(),
-            ((Timestamp) extractedItem.get("updated_at")).toLocalDateTime()
-        );
-
-        log.info("END: VocabDao#findRandom");
-        return vocabRecord;
+        return jdbcTemplate.queryForObject(query, VocabRowMapper.INSTANCE);
     }
 
     /**
-     * Extracts some records by executing the following SQL:
-     * SELECT * FROM vocabularies WHERE id in (SELECT id FROM vocabularies ORDER BY random() WHERE id != {specified id} LIMIT {specified number})"; 
+     * Extracts some records whose IDs are sampled randomly from VocabIdIndex
+     * by executing the following SQL:
+     * SELECT * FROM vocabularies WHERE id = ANY({sampled ids});
+     * 
+     * NOTE:
+     * If some of the sampled records are not found because the index is out of date,
+     * falls back to the SQL which scans the table (see findSomeExceptForOneByScan).
      */
     @Override
     public List<VocabEntity> findSomeExceptForOne(int findNum, Integer vocabIdExcluded) {
         log.info("START: VocabDao#findSomeExceptForOne");
 
+        // throws IllegalArgumentException if findNum exceeds the number of records
+        int[] vocabIds = vocabIdIndex.sampleVocabIds(findNum, vocabIdExcluded);
+        String query = "SELECT * FROM vocabularies WHERE id = ANY(?)";
+        Integer[] vocabIdParam = Arrays.stream(vocabIds).boxed().toArray(Integer[]::new);
+        // the array is cast to Object so that it is bound as one SQL array parameter (not varargs)
+        List<VocabEntity> vocabLists
+         = jdbcTemplate.query(query, VocabRowMapper.INSTANCE, (Object) vocabIdParam);
+        if (vocabLists.size() < findNum) {
+            log.warn("Vocabulary ID index is out of date. Falls back to scanning the table.");
+            vocabLists = findSomeExceptForOneByScan(findNum, vocabIdExcluded);
+        }
+
+        log.info("END: VocabDao#findSomeExceptForOne");
+        return vocabLists;
+    }
+
+    /**
+     * Extracts some records randomly by executing the following SQL:
+     * SELECT * FROM vocabularies WHERE id in (SELECT id FROM vocabularies ORDER BY random() WHERE id != {specified id} LIMIT {specified number})"; 
+     * 
+     * @param findNum the number of records to be extracted
+     * @param vocabIdExcluded the primary key of one record excluded from the extracting
+     * @return a list of vocabulary records found
+     */
+    private List<VocabEntity> findSomeExceptForOneByScan(int findNum, Integer vocabIdExcluded) {
         String query
          = """
             SELECT * FROM vocabularies 
@@ -168,32 +282,78 @@ public class VocabDao implements VocabRepository {
                 SELECT id FROM vocabularies WHERE id != ? ORDER BY random() LIMIT ?
             )
             """;
-        List<Map<String, Object>> extractedItems
-         = jdbcTemplate.queryForList(query, vocabIdExcluded, findNum);
         List<VocabEntity> vocabLists
-         = extractedItems.stream()
-            .map(item -> new VocabEntity(
-                (Integer) item.get("id"),
-                (String) item.get("spelling"),
-                (String) item.get("meaning"),
-                (String) item.get("example_en"),
-                (String) item.get("example_jp"),
-                (String) item.get("users_id"),
-                ((Timestamp) item.get("created_at")).toLocalDateTime(),
-                ((Timestamp) item.get("updated_at")).toLocalDateTime())
-            )
-            .toList();
+         = jdbcTemplate.query(query, VocabRowMapper.INSTANCE, vocabIdExcluded, findNum);
 
         if (vocabLists.size() < findNum) {
             throw new IllegalArgumentException(
                 "The argument findNum exceeds the maximum records in the table."
             );
         }
-
-        log.info("END: VocabDao#findSomeExceptForOne");
         return vocabLists;
     }
 
+    /**
+     * Extracts a target record and other records sampled randomly from VocabIdIndex
+     * in one round trip by executing the following SQL:
+     * SELECT * FROM vocabularies WHERE id = ANY({target id and sampled ids});
+     * 
+     * NOTE:
+     * If some of the sampled records are not found because the index is out of date,
+     * the other records are extracted again by scanning the table.
+     */
+    @Override
+    public QuizVocabsDto findWithCandidates(Integer targetVocabId, int candidateNum) {
+        log.info("START: VocabDao#findWithCandidates");
+
+        // throws IllegalArgumentException if candidateNum exceeds the number of records
+        int[] candidateIds = vocabIdIndex.sampleVocabIds(candidateNum, targetVocabId);
+        Integer[] vocabIdParam
+         = IntStream.concat(IntStream.of(targetVocabId), Arrays.stream(candidateIds))
+            .boxed()
+            .toArray(Integer[]::new);
+        String query = "SELECT * FROM vocabularies WHERE id = ANY(?)";
+        List<VocabEntity> vocabLists
+         = jdbcTemplate.query(query, VocabRowMapper.INSTANCE, (Object) vocabIdParam);
+
+        QuizVocabsDto quizVocabs
+         = toQuizVocabs(vocabLists, targetVocabId, candidateNum);
+
+        log.info("END: VocabDao#findWithCandidates");
+        return quizVocabs;
+    }
+
+    /**
+     * Splits extracted records into a target record and the other records.
+     * If the other records are fewer than required, they are extracted again by scanning the table.
+     * 
+     * @param vocabLists extracted records including the target
+     * @param targetVocabId the primary key of the target record
+     * @param candidateNum the number of records required except for the target
+     * @return a dto of the target record and the other records, or null if the target is not found
+     */
+    private QuizVocabsDto toQuizVocabs(
+        List<VocabEntity> vocabLists, Integer targetVocabId, int candidateNum
+    ) {
+        VocabEntity targetVocab = null;
+        List<VocabEntity> candidateVocabs = new ArrayList<>(candidateNum);
+        for (VocabEntity vocab : vocabLists) {
+            if (vocab.getId().equals(targetVocabId)) {
+                targetVocab = vocab;
+            } else if (candidateVocabs.size() < candidateNum) {
+                candidateVocabs.add(vocab);
+            }
+        }
+        if (targetVocab == null) {
+            return null;
+        }
+
+        if (candidateVocabs.size() < candidateNum) {
+            log.warn("Vocabulary ID index is out of date. Falls back to scanning the table.");
+            candidateVocabs = findSomeExceptForOneByScan(candidateNum, targetVocabId);
+        }
+        return new QuizVocabsDto(targetVocab, candidateVocabs);
+    }
 
     /**
      * Inserts one new record by executing the following SQL:
@@ -202,22 +362,92 @@ public class VocabDao implements VocabRepository {
      * NOTE: 
      * primary key should be null in the argument
      * because the key is automatically set by DB.
+     * The argument entity is returned with the key being set
+     * without extracting the inserted record again.
+     * Timestamps are truncated to microseconds, which is the precision of DB.
      */
     @Override
     public VocabEntity add(VocabEntity vocab) {
         log.info("START: VocabDao#add");
 
-        SimpleJdbcInsert insert
-         = new SimpleJdbcInsert(jdbcTemplate)
-            .withTableName("vocabularies")
-            .usingGeneratedKeyColumns("id");
+        Optional.ofNullable(vocab.getCreatedAt())
+            .ifPresent(time -> vocab.setCreatedAt(time.truncatedTo(ChronoUnit.MICROS)));
+        Optional.ofNullable(vocab.getUpdatedAt())
+            .ifPresent(time -> vocab.setUpdatedAt(time.truncatedTo(ChronoUnit.MICROS)));
         SqlParameterSource param = new BeanPropertySqlParameterSource(vocab);
 
         // gets the primary key of the inserted record
         Number key = insert.executeAndReturnKey(param);
+        vocab.setId(key.intValue());
+        vocabIdIndex.addVocabId(key.intValue());
 
         log.info("END: VocabDao#add");
-        return findById(key.intValue());
+        return vocab;
+    }
+
+    /**
+     * Inserts new records at once by executing the following SQL for each chunk of records:
+     * INSERT INTO vocabularies {all columns except for id}
+     *  SELECT * FROM unnest({arrays of each column values})
+     *  WHERE EXISTS (SELECT 1 FROM users WHERE id = {users_id of each record})
+     *  ON CONFLICT (spelling, users_id) DO NOTHING
+     *  RETURNING *;
+     * 
+     * NOTE:
+     * One statement inserts INSERT_CHUNK_SIZE records with one round trip,
+     * and all chunks are inserted in one transaction.
+     * Records conflicting with existing ones (or with preceding ones in the argument)
+     * and records of users which do not exist are skipped
+     * instead of aborting the transaction by a constraint violation,
+     * and are not included in the returned list.
+     * Timestamps are bound as text because the driver cannot bind an array of timestamps,
+     * and null timestamps are replaced with the current time of DB.
+     */
+    @Override
+    @Transactional
+    public List<VocabEntity> addAll(List<VocabEntity> vocabs) {
+        log.info("START: VocabDao#addAll");
+
+        String query = """
+            INSERT INTO vocabularies
+             (spelling, meaning, example_en, example_jp, users_id, created_at, updated_at)
+             SELECT spelling, meaning, example_en, example_jp, users_id,
+              COALESCE(created_at::timestamp, CURRENT_TIMESTAMP),
+              COALESCE(updated_at::timestamp, CURRENT_TIMESTAMP)
+             FROM unnest(
+              ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::text[], ?::text[]
+             ) AS t(spelling, meaning, example_en, example_jp, users_id, created_at, updated_at)
+             WHERE EXISTS (SELECT 1 FROM users WHERE users.id = t.users_id)
+             ON CONFLICT (spelling, users_id) DO NOTHING
+             RETURNING *
+            """;
+        List<VocabEntity> addedVocabs = new ArrayList<>();
+        for (int from = 0; from < vocabs.size(); from += INSERT_CHUNK_SIZE) {
+            List<VocabEntity> chunk
+             = vocabs.subList(from, Math.min(from + INSERT_CHUNK_SIZE, vocabs.size()));
+            addedVocabs.addAll(
+                jdbcTemplate.query(
+                    query,
+                    VocabRowMapper.INSTANCE,
+                    // each array is cast to Object so that it is bound as one SQL array parameter
+                    (Object) chunk.stream().map(VocabEntity::getSpelling).toArray(String[]::new),
+                    (Object) chunk.stream().map(VocabEntity::getMeaning).toArray(String[]::new),
+                    (Object) chunk.stream().map(VocabEntity::getExampleEn).toArray(String[]::new),
+                    (Object) chunk.stream().map(VocabEntity::getExampleJp).toArray(String[]::new),
+                    (Object) chunk.stream().map(VocabEntity::getUsersId).toArray(String[]::new),
+                    (Object) chunk.stream()
+                        .map(vocab -> Optional.ofNullable(vocab.getCreatedAt()).map(Object::toString).orElse(null))
+                        .toArray(String[]::new),
+                    (Object) chunk.stream()
+                        .map(vocab -> Optional.ofNullable(vocab.getUpdatedAt()).map(Object::toString).orElse(null))
+                        .toArray(String[]::new)
+                )
+            );
+        }
+        vocabIdIndex.addVocabIds(addedVocabs.stream().mapToInt(VocabEntity::getId).toArray());
+
+        log.info("END: VocabDao#addAll");
+        return addedVocabs;
     }
 
     /**
@@ -230,13 +460,15 @@ public class VocabDao implements VocabRepository {
 
         String query = "DELETE FROM vocabularies WHERE id = ?";
         jdbcTemplate.update(query, id);
+        vocabIdIndex.removeVocabId(id);
 
         log.info("END: VocabDao#delete");
     }
 
     /**
      * Updates one existing record by executing the following SQL:
-     * UPDATE vocabularies SET {specified column values} WHERE id = {specified id};
+     * UPDATE vocabularies SET {specified column values} WHERE id = {specified id} RETURNING *;
+     * When no data are found, returns null.
      */
     @Override
     public VocabEntity update(VocabEntity vocab) {
@@ -251,19 +483,122 @@ public class VocabDao implements VocabRepository {
                 example_jp=?, 
                 updated_at=? 
             WHERE id = ?
+            RETURNING *
             """;
-        jdbcTemplate.update(
-            query, 
-            vocab.getSpelling(), 
-            vocab.getMeaning(),
-            vocab.getExampleEn(),
-            vocab.getExampleJp(),
-            vocab.getUpdatedAt(),
-            vocab.getId()
-        );
+        VocabEntity vocabRecord;
+        try {
+            vocabRecord
+             = jdbcTemplate.queryForObject(
+                query, 
+                VocabRowMapper.INSTANCE,
+                vocab.getSpelling(), 
+                vocab.getMeaning(),
+                vocab.getExampleEn(),
+                vocab.getExampleJp(),
+                vocab.getUpdatedAt(),
+                vocab.getId()
+            );
+        } catch (EmptyResultDataAccessException e) {
+            vocabRecord = null;
+        }
 
         log.info("END: VocabDao#update");
-        return findById(vocab.getId());
+        return vocabRecord;
+    }
+
+    /**
+     * Deletes existing records matching a filter by executing the following SQL:
+     * DELETE FROM vocabularies
+     *  WHERE id = ANY({specified ids}) AND users_id = {specified users_id}
+     *  RETURNING id;
+     * where conditions not specified are omitted.
+     * 
+     * NOTE:
+     * One statement deletes all records, and quiz_aggregations records are deleted in cascade
+     * by using its primary key (vocabularies_id, users_id) whose leading column is vocabularies_id.
+     * users.last_vocabularies_id is set to null in cascade by using its index.
+     */
+    @Override
+    @Transactional
+    public List<Integer> deleteAll(List<Integer> ids, String usersId) {
+        log.info("START: VocabDao#deleteAll");
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (ids != null) {
+            conditions.add("id = ANY(?)");
+            params.add(ids.toArray(Integer[]::new));
+        }
+        if (usersId != null) {
+            conditions.add("users_id = ?");
+            params.add(usersId);
+        }
+        if (conditions.isEmpty()) {
+            throw new IllegalArgumentException("At least one condition should be specified.");
+        }
+        String query
+         = "DELETE FROM vocabularies WHERE " + String.join(" AND ", conditions) + " RETURNING id";
+        List<Integer> deletedIds = jdbcTemplate.queryForList(query, Integer.class, params.toArray());
+        vocabIdIndex.removeVocabIds(deletedIds.stream().mapToInt(Integer::intValue).toArray());
+
+        log.info("END: VocabDao#deleteAll");
+        return deletedIds;
+    }
+
+    /**
+     * Updates existing records by executing the following SQL as a JDBC batch:
+     * UPDATE vocabularies SET
+     *  spelling = COALESCE({specified spelling}, spelling),
+     *  {other columns in the same way},
+     *  updated_at = {specified updated_at}
+     *  WHERE id = {specified id};
+     * 
+     * NOTE:
+     * Records are not extracted before updated
+     * because not specified columns are kept by COALESCE in DB.
+     * All statements are sent in one round trip and executed in one transaction.
+     */
+    @Override
+    @Transactional
+    public List<Integer> updateAll(List<VocabEntity> vocabs) {
+        log.info("START: VocabDao#updateAll");
+
+        String query
+         = """
+            UPDATE vocabularies SET 
+                spelling = COALESCE(?, spelling), 
+                meaning = COALESCE(?, meaning), 
+                example_en = COALESCE(?, example_en), 
+                example_jp = COALESCE(?, example_jp), 
+                updated_at = ? 
+            WHERE id = ?
+            """;
+        int[] updatedCounts
+         = jdbcTemplate.batchUpdate(
+            query,
+            vocabs.stream()
+                .map(vocab -> new Object[] {
+                    vocab.getSpelling(),
+                    vocab.getMeaning(),
+                    vocab.getExampleEn(),
+                    vocab.getExampleJp(),
+                    vocab.getUpdatedAt(),
+                    vocab.getId()
+                })
+                .toList(),
+            new int[] {
+                Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.INTEGER
+            }
+        );
+
+        List<Integer> updatedIds
+         = IntStream.range(0, vocabs.size())
+            .filter(i -> updatedCounts[i] > 0)
+            .mapToObj(i -> vocabs.get(i).getId())
+            .toList();
+
+        log.info("END: VocabDao#updateAll");
+        return updatedIds;
     }
 
-} 
+}
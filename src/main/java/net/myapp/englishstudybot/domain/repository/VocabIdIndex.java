@@ -0,0 +1,524 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.util.RandomNumberGenerator;
+
+/**
+ * VocabIdIndex is an in-memory index of vocabulary IDs.
+ * This class keeps the following data so that a vocabulary which has not been given
+ * to a user as a quiz yet can be picked without scanning DB tables:
+ *  - IDs of all vocabularies as a dense array (for random access) and a bitset (for lookup)
+ *  - IDs of vocabularies given to each user as a bitset
+ *
+ * All data are lazily loaded from DB at the first access,
+ * and then maintained by DAO classes when records are added or deleted.
+ * Per-user data are kept for a limited number of recently used users.
+ *
+ * NOTE:
+ * When a DAO method is called in a transaction, the index is updated after the commit
+ * so that rolled back records are never reflected.
+ * Every update increments a version, and a load whose version has changed during its query
+ * is discarded and retried because the update may not be reflected in the loaded data.
+ * After a few retries, the query is executed in the lock so that the load always finishes.
+ * Records inserted or deleted directly into DB (not through DAO classes) are not reflected
+ * until invalidate() is called.
+ */
+@Slf4j
+@Component
+public class VocabIdIndex {
+
+    // the number of trials of picking a not given vocabulary randomly
+    // before falling back to counting up from the head of the array
+    private static final int MAX_RANDOM_PICK_TRIALS = 16;
+    // the number of loads out of the lock before loading in the lock
+    private static final int MAX_UNLOCKED_LOAD_TRIALS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RandomNumberGenerator myRnd;
+
+    private int[] vocabIds;
+    private int vocabCount;
+    private BitSet vocabIdBits;
+    private final Map<String, BitSet> givenVocabIdsByUser;
+    // incremented by every update so that data loaded before an update are not installed
+    private long version;
+
+    @Autowired
+    VocabIdIndex(
+        JdbcTemplate jdbcTemplate,
+        RandomNumberGenerator randomNumberGenerator,
+        @Value("${englishstudybot.vocab.index.max-cached-users:1000}") int maxCachedUsers
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.myRnd = randomNumberGenerator;
+        this.givenVocabIdsByUser = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BitSet> eldest) {
+                return size() > maxCachedUsers;
+            }
+        };
+    }
+
+    /**
+     * Picks one vocabulary ID randomly from all vocabularies.
+     *
+     * @return a vocabulary ID, or null if no vocabularies are registered
+     */
+    public Integer pickRandomVocabId() {
+        ensureVocabIdsLoaded();
+        synchronized (this) {
+            if (vocabCount == 0) {
+                return null;
+            }
+            return vocabIds[myRnd.generateIntRandomNumber(vocabCount)];
+        }
+    }
+
+    /**
+     * Samples distinct vocabulary IDs uniformly at random from all vocabularies
+     * except for one specified vocabulary.
+     *
+     * The algorithm of this method is as follows:
+     *  1) If the number of IDs to be sampled is small compared to all IDs,
+     *     picks random positions of the dense array and rejects duplicated or excluded ones.
+     *     The expected number of trials stays constant regardless of the number of vocabularies.
+     *  2) Otherwise, performs a partial Fisher-Yates shuffle of a copy of the array.
+     *
+     * @param sampleNum the number of IDs to be sampled
+     * @param vocabIdExcluded ID of a vocabulary excluded from the sampling (nullable)
+     * @return an array of sampled vocabulary IDs
+     * @throws IllegalArgumentException if the number of vocabularies is less than sampleNum
+     */
+    public int[] sampleVocabIds(int sampleNum, Integer vocabIdExcluded) {
+        ensureVocabIdsLoaded();
+        synchronized (this) {
+            boolean hasExcluded = vocabIdExcluded != null && vocabIdBits.get(vocabIdExcluded);
+            int candidateNum = hasExcluded ? vocabCount - 1 : vocabCount;
+            if (candidateNum < sampleNum) {
+                throw new IllegalArgumentException(
+                    "The argument findNum exceeds the maximum records in the table."
+                );
+            }
+
+            int[] sampledIds = new int[sampleNum];
+            if (sampleNum * 2 <= candidateNum) {
+                Set<Integer> sampledIdSet = new HashSet<>();
+                int i = 0;
+                while (i < sampleNum) {
+                    int vocabId = vocabIds[myRnd.generateIntRandomNumber(vocabCount)];
+                    if ((! hasExcluded || vocabId != vocabIdExcluded) && sampledIdSet.add(vocabId)) {
+                        sampledIds[i++] = vocabId;
+                    }
+                }
+            } else {
+                int[] candidateIds
+                 = Arrays.stream(vocabIds, 0, vocabCount)
+                    .filter(vocabId -> ! hasExcluded || vocabId != vocabIdExcluded)
+                    .toArray();
+                for (int i = 0; i < sampleNum; i++) {
+                    int j = i + myRnd.generateIntRandomNumber(candidateNum - i);
+                    sampledIds[i] = candidateIds[j];
+                    candidateIds[j] = candidateIds[i];
+                }
+            }
+            return sampledIds;
+        }
+    }
+
+    /**
+     * Counts all vocabularies.
+     *
+     * @return the number of vocabularies
+     */
+    public int countVocabIds() {
+        ensureVocabIdsLoaded();
+        synchronized (this) {
+            return vocabCount;
+        }
+    }
+
+    /**
+     * Counts vocabularies which have not been given to a user as a quiz yet.
+     *
+     * @param userId ID of the target user
+     * @return the number of vocabularies not given yet
+     */
+    public int countNotGivenVocabIds(String userId) {
+        BitSet givenVocabIds = getGivenVocabIds(userId);
+        synchronized (this) {
+            return vocabCount - givenVocabIds.cardinality();
+        }
+    }
+
+    /**
+     * Picks one vocabulary ID randomly from vocabularies
+     * which have not been given to a user as a quiz yet.
+     *
+     * The algorithm of this method is as follows:
+     *  1) Picks a vocabulary ID randomly from all IDs and returns it if not given yet.
+     *     This trial is repeated up to a fixed number of times,
+     *     which is enough when most vocabularies have not been given yet.
+     *  2) If all trials failed, selects the n-th not given vocabulary ID
+     *     where n is a random number less than the number of not given vocabularies.
+     *
+     * @param userId ID of the target user
+     * @return a vocabulary ID not given yet, or null if all vocabularies had already been given
+     */
+    public Integer pickRandomNotGivenVocabId(String userId) {
+        BitSet givenVocabIds = getGivenVocabIds(userId);
+        synchronized (this) {
+            int notGivenCount = vocabCount - givenVocabIds.cardinality();
+            if (notGivenCount <= 0) {
+                return null;
+            }
+
+            for (int i = 0; i < MAX_RANDOM_PICK_TRIALS; i++) {
+                int vocabId = vocabIds[myRnd.generateIntRandomNumber(vocabCount)];
+                if (! givenVocabIds.get(vocabId)) {
+                    return vocabId;
+                }
+            }
+
+            int targetOrder = myRnd.generateIntRandomNumber(notGivenCount);
+            for (int i = 0; i < vocabCount; i++) {
+                if (! givenVocabIds.get(vocabIds[i]) && targetOrder-- == 0) {
+                    return vocabIds[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Adds a vocabulary ID when a new vocabulary is registered.
+     *
+     * @param vocabId ID of the added vocabulary
+     */
+    public void addVocabId(int vocabId) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                if (vocabIdBits == null || vocabIdBits.get(vocabId)) {
+                    return;
+                }
+                if (vocabCount == vocabIds.length) {
+                    vocabIds = Arrays.copyOf(vocabIds, Math.max(16, vocabCount * 2));
+                }
+                vocabIds[vocabCount++] = vocabId;
+                vocabIdBits.set(vocabId);
+            }
+        });
+    }
+
+    /**
+     * Adds vocabulary IDs when new vocabularies are registered at once (e.g. bulk import).
+     *
+     * @param vocabIds IDs of the added vocabularies
+     */
+    public void addVocabIds(int[] vocabIds) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                if (vocabIdBits == null) {
+                    return;
+                }
+                for (int vocabId : vocabIds) {
+                    if (vocabIdBits.get(vocabId)) {
+                        continue;
+                    }
+                    if (vocabCount == this.vocabIds.length) {
+                        this.vocabIds = Arrays.copyOf(this.vocabIds, Math.max(16, vocabCount * 2));
+                    }
+                    this.vocabIds[vocabCount++] = vocabId;
+                    vocabIdBits.set(vocabId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes a vocabulary ID when a vocabulary is deleted.
+     * The ID is also removed from all users' given vocabulary IDs
+     * because quiz aggregation records are deleted in cascade.
+     *
+     * @param vocabId ID of the deleted vocabulary
+     */
+    public void removeVocabId(int vocabId) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                givenVocabIdsByUser.values().forEach(bits -> bits.clear(vocabId));
+                if (vocabIdBits == null || ! vocabIdBits.get(vocabId)) {
+                    return;
+                }
+                for (int i = 0; i < vocabCount; i++) {
+                    if (vocabIds[i] == vocabId) {
+                        // moves the last element to the removed position to keep the array dense
+                        vocabIds[i] = vocabIds[--vocabCount];
+                        break;
+                    }
+                }
+                vocabIdBits.clear(vocabId);
+            }
+        });
+    }
+
+    /**
+     * Removes vocabulary IDs when vocabularies are deleted at once (e.g. bulk delete).
+     * The IDs are also removed from all users' given vocabulary IDs in the same way as removeVocabId.
+     *
+     * @param vocabIds IDs of the deleted vocabularies
+     */
+    public void removeVocabIds(int[] vocabIds) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                BitSet removedIds = new BitSet();
+                Arrays.stream(vocabIds).forEach(removedIds::set);
+                givenVocabIdsByUser.values().forEach(bits -> bits.andNot(removedIds));
+                if (vocabIdBits == null) {
+                    return;
+                }
+                int newCount = 0;
+                for (int i = 0; i < vocabCount; i++) {
+                    if (! removedIds.get(this.vocabIds[i])) {
+                        this.vocabIds[newCount++] = this.vocabIds[i];
+                    }
+                }
+                vocabCount = newCount;
+                vocabIdBits.andNot(removedIds);
+            }
+        });
+    }
+
+    /**
+     * Marks a vocabulary as given to a user when a quiz aggregation record is added.
+     *
+     * @param userId ID of the user
+     * @param vocabId ID of the vocabulary given as a quiz
+     */
+    public void markGiven(String userId, int vocabId) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                BitSet givenVocabIds = givenVocabIdsByUser.get(userId);
+                if (givenVocabIds != null && vocabIdBits != null && vocabIdBits.get(vocabId)) {
+                    givenVocabIds.set(vocabId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Marks a vocabulary as not given to a user when a quiz aggregation record is deleted.
+     *
+     * @param userId ID of the user
+     * @param vocabId ID of the vocabulary
+     */
+    public void unmarkGiven(String userId, int vocabId) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                BitSet givenVocabIds = givenVocabIdsByUser.get(userId);
+                if (givenVocabIds != null) {
+                    givenVocabIds.clear(vocabId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes all data of a user when the user is deleted.
+     *
+     * @param userId ID of the deleted user
+     */
+    public void removeUser(String userId) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                givenVocabIdsByUser.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Discards all data so that they are loaded from DB again at the next access.
+     */
+    public synchronized void invalidate() {
+        version++;
+        vocabIds = null;
+        vocabCount = 0;
+        vocabIdBits = null;
+        givenVocabIdsByUser.clear();
+    }
+
+    /**
+     * Loads all vocabulary IDs from DB if not loaded yet.
+     * The query is executed out of the lock so as not to block other users,
+     * and the result is discarded if the index is updated during the query.
+     */
+    private void ensureVocabIdsLoaded() {
+        for (int trial = 1; ; trial++) {
+            long loadedVersion;
+            synchronized (this) {
+                if (vocabIdBits != null) {
+                    return;
+                }
+                if (trial > MAX_UNLOCKED_LOAD_TRIALS) {
+                    installVocabIds(queryVocabIds());
+                    return;
+                }
+                loadedVersion = version;
+            }
+
+            int[] ids = queryVocabIds();
+
+            synchronized (this) {
+                if (vocabIdBits != null) {
+                    return;
+                }
+                if (version == loadedVersion) {
+                    installVocabIds(ids);
+                    return;
+                }
+            }
+            log.debug("Vocabulary IDs are loaded again because the index was updated during the load.");
+        }
+    }
+
+    /**
+     * Gets the given vocabulary IDs of a user, loading them from DB if not loaded yet.
+     * The query is executed in the same way as ensureVocabIdsLoaded.
+     *
+     * @param userId ID of the target user
+     * @return a bitset of vocabulary IDs given to the user
+     */
+    private BitSet getGivenVocabIds(String userId) {
+        for (int trial = 1; ; trial++) {
+            ensureVocabIdsLoaded();
+            long loadedVersion;
+            synchronized (this) {
+                BitSet givenVocabIds = givenVocabIdsByUser.get(userId);
+                if (givenVocabIds != null) {
+                    return givenVocabIds;
+                }
+                if (vocabIdBits == null) {
+                    // invalidated just after loaded
+                    continue;
+                }
+                if (trial > MAX_UNLOCKED_LOAD_TRIALS) {
+                    return installGivenVocabIds(userId, queryGivenVocabIds(userId));
+                }
+                loadedVersion = version;
+            }
+
+            List<Integer> loadedIds = queryGivenVocabIds(userId);
+
+            synchronized (this) {
+                BitSet givenVocabIds = givenVocabIdsByUser.get(userId);
+                if (givenVocabIds != null) {
+                    return givenVocabIds;
+                }
+                if (version == loadedVersion) {
+                    return installGivenVocabIds(userId, loadedIds);
+                }
+            }
+            log.debug("Given vocabulary IDs are loaded again because the index was updated during the load.");
+        }
+    }
+
+    /**
+     * Queries IDs of all vocabularies.
+     *
+     * @return an array of vocabulary IDs
+     */
+    private int[] queryVocabIds() {
+        log.info("Loads all vocabulary IDs into the index.");
+        return jdbcTemplate.queryForList("SELECT id FROM vocabularies", Integer.class)
+            .stream()
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    /**
+     * Queries IDs of vocabularies given to a user.
+     *
+     * @param userId ID of the target user
+     * @return a list of vocabulary IDs
+     */
+    private List<Integer> queryGivenVocabIds(String userId) {
+        return jdbcTemplate.queryForList(
+            "SELECT vocabularies_id FROM quiz_aggregations WHERE users_id = ?",
+            Integer.class,
+            userId
+        );
+    }
+
+    /**
+     * Installs loaded vocabulary IDs. The caller must hold the lock.
+     *
+     * @param ids IDs of all vocabularies
+     */
+    private void installVocabIds(int[] ids) {
+        BitSet bits = new BitSet();
+        Arrays.stream(ids).forEach(bits::set);
+        vocabIds = ids;
+        vocabCount = ids.length;
+        vocabIdBits = bits;
+    }
+
+    /**
+     * Installs loaded given vocabulary IDs of a user. The caller must hold the lock.
+     *
+     * @param userId ID of the target user
+     * @param loadedIds IDs of vocabularies given to the user
+     * @return a bitset of vocabulary IDs given to the user
+     */
+    private BitSet installGivenVocabIds(String userId, List<Integer> loadedIds) {
+        BitSet bits = new BitSet();
+        // only existing vocabularies are kept so that the cardinality equals the given count
+        loadedIds.stream()
+            .filter(vocabIdBits::get)
+            .forEach(bits::set);
+        givenVocabIdsByUser.put(userId, bits);
+        return bits;
+    }
+
+    /**
+     * Runs an update of the index after the current transaction is committed.
+     * If no transaction is active, runs it immediately.
+     * The version is incremented even if the update is skipped because data are not loaded,
+     * so that a load in progress is discarded.
+     *
+     * @param update an update of the index
+     */
+    private void runAfterCommit(Runnable update) {
+        Runnable versionedUpdate = () -> {
+            synchronized (this) {
+                version++;
+                update.run();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        versionedUpdate.run();
+                    }
+                }
+            );
+        } else {
+            versionedUpdate.run();
+        }
+    }
+
+}
@@ -1,8 +1,10 @@
 package net.myapp.englishstudybot.domain.repository;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import net.myapp.englishstudybot.domain.model.VocabEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizVocabsDto;
 
 /**
  * VocabRepository is a repostory interface which provides CRUD methods for vocabularies table.
@@ -24,6 +26,22 @@ public interface VocabRepository {
      */
     public List<VocabEntity> findAll();
 
+    /**
+     * Extracts records ordered by id whose ids are greater than a cursor (keyset pagination).
+     * 
+     * @param afterId the cursor, which is the last id of the previous page (null for the first page)
+     * @param limit the maximum number of records to be extracted
+     * @return a list of vocabulary records ordered by id
+     */
+    public List<VocabEntity> findPage(Integer afterId, int limit);
+
+    /**
+     * Extracts all records ordered by id one by one without holding all of them at once.
+     * 
+     * @param action an action performed for each extracted record
+     */
+    public void forEachVocab(Consumer<VocabEntity> action);
+
     /**
      * Extracts IDs of all records.
      * 
@@ -39,6 +57,14 @@ public interface VocabRepository {
      */
     public VocabEntity findById(Integer id);
 
+    /**
+     * Extracts records by primary keys in one round trip.
+     * 
+     * @param ids the primary keys of the records to be extracted
+     * @return a list of vocabulary records found (in no particular order, without records not found)
+     */
+    public List<VocabEntity> findByIds(int[] ids);
+
     /**
      * Extracts one record randomly
      * 
@@ -55,6 +81,17 @@ public interface VocabRepository {
      */
     public List<VocabEntity> findSomeExceptForOne(int findNum, Integer vocabIdExcluded);
 
+    /**
+     * Extracts one specified record and some other records randomly at once
+     * (e.g. a target vocabulary of a quiz and its answer candidates).
+     * 
+     * @param targetVocabId the primary key of the target record
+     * @param candidateNum the number of records to be extracted except for the target
+     * @return a dto of the target record and the other records, or null if the target is not found
+     * @throws IllegalArgumentException if candidateNum exceeds the number of the other records
+     */
+    public QuizVocabsDto findWithCandidates(Integer targetVocabId, int candidateNum);
+
     /**
      * Inserts one new record.
      * 
@@ -63,6 +100,15 @@ public interface VocabRepository {
      */
     public VocabEntity add(VocabEntity vocab);
 
+    /**
+     * Inserts new records at once, skipping records whose spelling and users_id already exist
+     * and records whose users_id does not exist in users table.
+     * 
+     * @param vocabs new vocabulary records to be inserted
+     * @return inserted vocabulary records with their primary keys (in no particular order)
+     */
+    public List<VocabEntity> addAll(List<VocabEntity> vocabs);
+
     /**
      * Deletes one existing record.
      * 
@@ -78,5 +124,25 @@ public interface VocabRepository {
      */
     public VocabEntity update(VocabEntity vocab);
 
+    /**
+     * Deletes existing records matching a filter at once.
+     * Conditions specified as not null are combined with AND.
+     * 
+     * @param ids the primary keys of the records to be deleted (null for any)
+     * @param usersId ID of the user who registered the records to be deleted (null for any)
+     * @return IDs of the deleted records
+     * @throws IllegalArgumentException if no conditions are specified
+     */
+    public List<Integer> deleteAll(List<Integer> ids, String usersId);
+
+    /**
+     * Updates existing records at once.
+     * Only columns specified as not null in each argument are updated.
+     * 
+     * @param vocabs vocabulary records with updated values and the primary keys
+     * @return IDs of the updated records (records not found are not included)
+     */
+    public List<Integer> updateAll(List<VocabEntity> vocabs);
+
 
 }
@@ -0,0 +1,41 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import net.myapp.englishstudybot.domain.model.VocabEntity;
+
+/**
+ * VocabRowMapper is a RowMapper which converts a row of vocabularies table
+ * into a vocabulary entity.
+ *
+ * NOTE:
+ * Each column is read directly from the result set with its type,
+ * so that no intermediate map (e.g. by queryForList or queryForMap) is created for each row.
+ * This class is stateless and the shared instance INSTANCE should be used.
+ */
+class VocabRowMapper implements RowMapper<VocabEntity> {
+
+    static final VocabRowMapper INSTANCE = new VocabRowMapper();
+
+    private VocabRowMapper() {
+    }
+
+    @Override
+    public VocabEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new VocabEntity(
+            rs.getInt("id"),
+            rs.getString("spelling"),
+            rs.getString("meaning"),
+            rs.getString("example_en"),
+            rs.getString("example_jp"),
+            rs.getString("users_id"),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class)
+        );
+    }
+
+}
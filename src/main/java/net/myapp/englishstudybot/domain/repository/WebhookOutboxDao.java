@@ -0,0 +1,103 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.sql.Types;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.model.WebhookOutboxEntity;
+
+/**
+ * WebhookOutboxDao is an implementation of WebhookOutboxRepository by using JdbcTemplate.
+ * 
+ * NOTE:
+ * write is called with a batch of events by WebhookOutbox (group commit)
+ * so that the durability costs one commit per batch rather than one per event.
+ */
+@Slf4j
+@Repository
+public class WebhookOutboxDao implements WebhookOutboxRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    WebhookOutboxDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Extracts all records by executing the following SQL:
+     * SELECT * FROM webhook_outbox ORDER BY received_at, event_id;
+     */
+    @Override
+    public List<WebhookOutboxEntity> findAll() {
+        log.info("START: WebhookOutboxDao#findAll");
+
+        String query
+         = """
+            SELECT * FROM webhook_outbox
+            ORDER BY received_at, event_id
+            """;
+        List<WebhookOutboxEntity> events = jdbcTemplate.query(query, WebhookOutboxRowMapper.INSTANCE);
+
+        log.info("END: WebhookOutboxDao#findAll");
+        return events;
+    }
+
+    /**
+     * Inserts and deletes records by executing the following SQL as JDBC batches:
+     * INSERT INTO webhook_outbox {all columns} VALUES {each specified value}
+     *  ON CONFLICT (event_id) DO NOTHING;
+     * DELETE FROM webhook_outbox WHERE event_id = {specified id};
+     * 
+     * NOTE:
+     * Inserts are executed before deletes
+     * so that an event added and completed in the same batch is not left.
+     * All statements are executed in one transaction.
+     * Timestamps are truncated to microseconds, which is the precision of DB.
+     */
+    @Override
+    @Transactional
+    public void write(List<WebhookOutboxEntity> addedEvents, List<String> completedEventIds) {
+        log.info("START: WebhookOutboxDao#write");
+
+        if (! addedEvents.isEmpty()) {
+            String insertQuery
+             = """
+                INSERT INTO webhook_outbox (
+                    event_id, users_id, reply_token, message, received_at
+                ) VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (event_id) DO NOTHING
+                """;
+            jdbcTemplate.batchUpdate(
+                insertQuery,
+                addedEvents.stream()
+                    .map(event -> new Object[] {
+                        event.getEventId(),
+                        event.getUsersId(),
+                        event.getReplyToken(),
+                        event.getMessage(),
+                        event.getReceivedAt().truncatedTo(ChronoUnit.MICROS)
+                    })
+                    .toList(),
+                new int[] {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP}
+            );
+        }
+        if (! completedEventIds.isEmpty()) {
+            String deleteQuery = "DELETE FROM webhook_outbox WHERE event_id = ?";
+            jdbcTemplate.batchUpdate(
+                deleteQuery,
+                completedEventIds.stream().map(eventId -> new Object[] {eventId}).toList(),
+                new int[] {Types.VARCHAR}
+            );
+        }
+
+        log.info("END: WebhookOutboxDao#write");
+    }
+
+}
@@ -0,0 +1,29 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.util.List;
+
+import net.myapp.englishstudybot.domain.model.WebhookOutboxEntity;
+
+/**
+ * WebhookOutboxRepository is a repostory interface which provides methods
+ * for webhook_outbox table.
+ */
+public interface WebhookOutboxRepository {
+
+    /**
+     * Extracts all records in the received order.
+     * 
+     * @return a list of webhook events not completed yet
+     */
+    public List<WebhookOutboxEntity> findAll();
+
+    /**
+     * Inserts new records and deletes completed records in one transaction.
+     * A record whose event ID already exists is not inserted.
+     * 
+     * @param addedEvents webhook events to be inserted
+     * @param completedEventIds IDs of webhook events to be deleted
+     */
+    public void write(List<WebhookOutboxEntity> addedEvents, List<String> completedEventIds);
+
+}
@@ -0,0 +1,36 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import net.myapp.englishstudybot.domain.model.WebhookOutboxEntity;
+
+/**
+ * WebhookOutboxRowMapper is a RowMapper which converts a row of webhook_outbox table
+ * into a webhook outbox entity.
+ *
+ * NOTE:
+ * This class is stateless and the shared instance INSTANCE should be used.
+ */
+class WebhookOutboxRowMapper implements RowMapper<WebhookOutboxEntity> {
+
+    static final WebhookOutboxRowMapper INSTANCE = new WebhookOutboxRowMapper();
+
+    private WebhookOutboxRowMapper() {
+    }
+
+    @Override
+    public WebhookOutboxEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new WebhookOutboxEntity(
+            rs.getString("event_id"),
+            rs.getString("users_id"),
+            rs.getString("reply_token"),
+            rs.getString("message"),
+            rs.getObject("received_at", LocalDateTime.class)
+        );
+    }
+
+}
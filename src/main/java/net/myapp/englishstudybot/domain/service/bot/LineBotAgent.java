@@ -4,9 +4,12 @@ import static java.util.Collections.singletonList;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import com.linecorp.bot.client.LineMessagingClient;
+import com.linecorp.bot.model.PushMessage;
 import com.linecorp.bot.model.ReplyMessage;
 import com.linecorp.bot.model.action.MessageAction;
 import com.linecorp.bot.model.message.Message;
@@ -24,6 +27,14 @@ import lombok.extern.slf4j.Slf4j;
  * This class contains necessary information and functionalities 
  * for the bot to reply to a user who sent a message.
  * All functionalities relating to LINE bot should be defined in this class.
+ * 
+ * NOTE:
+ * All reply methods are non-blocking and return a future of the sending result
+ * so that the calling thread is released without waiting for the LINE API response.
+ * The future completes on the callback executor (i.e. the application's thread pool),
+ * so that actions chained to it (e.g. DB writes) never run on the HTTP client threads of LINE SDK.
+ * For an event replayed after a restart, the reply token has expired
+ * and hence messages are pushed to the user instead of replied.
  */
 @Slf4j
 @Getter
@@ -31,12 +42,28 @@ import lombok.extern.slf4j.Slf4j;
 public class LineBotAgent {
 
     private final LineMessagingClient lineMessagingClient;
+    // executor on which actions after the LINE API response run
+    private final Executor callbackExecutor;
     private String replyToken;
     private final String lineUserId;
     private final String userMessage;
+    // true if the event is replayed from WebhookOutbox
+    private final boolean isReplayed;
 
-    public LineBotAgent(LineMessagingClient lineMessagingClient, String replyToken, String lineUserId){
-        this(lineMessagingClient, replyToken, lineUserId, null);
+    public LineBotAgent(
+        LineMessagingClient lineMessagingClient, Executor callbackExecutor, String replyToken, String lineUserId
+    ) {
+        this(lineMessagingClient, callbackExecutor, replyToken, lineUserId, null);
+    }
+
+    public LineBotAgent(
+        LineMessagingClient lineMessagingClient,
+        Executor callbackExecutor,
+        String replyToken,
+        String lineUserId,
+        String userMessage
+    ) {
+        this(lineMessagingClient, callbackExecutor, replyToken, lineUserId, userMessage, false);
     }
 
     /**
@@ -51,9 +78,9 @@ public class LineBotAgent {
      * Sends a single reply message to a bot user.
      * 
      * @param message a message to be sent
-     * @return sending result (true/false)
+     * @return a future of sending result (true/false)
      */
-    public boolean replyMessage(String message) {
+    public CompletableFuture<Boolean> replyMessage(String message) {
         message = applyMessageSaturation(message);
         return reply(singletonList(new TextMessage(message)));
     }
@@ -62,9 +89,9 @@ public class LineBotAgent {
      * Sends multiple reply messages to a bot user.
      * 
      * @param messages a list of multiple messages to be sent
-     * @return sending result (true/false)
+     * @return a future of sending result (true/false)
      */
-    public boolean replyMultiMessages(List<String> messages) {
+    public CompletableFuture<Boolean> replyMultiMessages(List<String> messages) {
         List<String> saturatedMessages = messages.stream().map(item -> applyMessageSaturation(item)).toList();
         // List<Message> message= new ArrayList<Message>(Arrays.asList(new TextMessage("text")));
         List<Message> messagesList 
@@ -79,9 +106,9 @@ public class LineBotAgent {
      * 
      * @param message a message to be sent
      * @param quickReplyItems quic reply messages sent with a message
-     * @return sending result (true/false)
+     * @return a future of sending result (true/false)
      */
-    public boolean replyMessageWithQuickReply(String message, List<String> quickReplyItems) {
+    public CompletableFuture<Boolean> replyMessageWithQuickReply(String message, List<String> quickReplyItems) {
         message = applyMessageSaturation(message);
         return reply(singletonList(buildQuickReplyTextMessage(message, quickReplyItems)));
     }
@@ -104,35 +131,42 @@ public class LineBotAgent {
     }
 
     /**
-     * Executes reply messaging api by using line bot library method.
+     * Executes reply messaging api (or push messaging api for a replayed event)
+     * by using line bot library method.
+     * This method returns without waiting for the api response,
+     * and the response is handled on the callback executor.
      * 
      * @param messages a list of reply messaging objects
      *  (e.g. one object can contain a single message or a message and quick reply messages, etc.)
-     * @return execution result (true/false)
+     * @return a future of execution result (true/false),
+     *  which completes exceptionally if the api call itself fails
      */
-    private boolean reply(List<Message> messages) {
-        try {
-            log.info("START: LineBotAgent#reply");
-            BotApiResponse apiResponse = lineMessagingClient
-                                        .replyMessage(new ReplyMessage(replyToken, messages))
-                                        .get();
-            log.info("Sending reply message response: {}", apiResponse);
-
-            boolean replyResult;
-            if (apiResponse.getMessage() == null) {
-                log.debug("Sending reply message result: SUCCESS");
-                replyResult = true;
-            } else {
-                log.error("Sending reply message result: FAILURE");
-                replyResult = false;
-            }
-
-            log.info("END: LineBotAgent#reply");
-            return replyResult;
-        } catch (InterruptedException | ExecutionException e) {
-            log.error(e.getMessage());
-            throw new RuntimeException(e);
-        }
+    private CompletableFuture<Boolean> reply(List<Message> messages) {
+        log.info("START: LineBotAgent#reply");
+        CompletableFuture<BotApiResponse> apiResult
+         = isReplayed
+            ? lineMessagingClient.pushMessage(new PushMessage(lineUserId, messages))
+            : lineMessagingClient.replyMessage(new ReplyMessage(replyToken, messages));
+        // handleAsync (not thenApplyAsync) so that a failed api call is also handled on the callback executor
+        CompletableFuture<Boolean> replyResult
+         = apiResult
+            .handleAsync((apiResponse, e) -> {
+                if (e != null) {
+                    log.error(e.getMessage());
+                    throw (e instanceof CompletionException) ? (CompletionException) e : new CompletionException(e);
+                }
+                log.info("Sending reply message response: {}", apiResponse);
+                if (apiResponse.getMessage() == null) {
+                    log.debug("Sending reply message result: SUCCESS");
+                    return true;
+                } else {
+                    log.error("Sending reply message result: FAILURE");
+                    return false;
+                }
+            }, callbackExecutor);
+
+        log.info("END: LineBotAgent#reply");
+        return replyResult;
     }
 
     /**
@@ -2,10 +2,15 @@ package net.myapp.englishstudybot.domain.service.quiz;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
 import net.myapp.englishstudybot.domain.model.QuizStateName;
@@ -19,20 +24,28 @@ import net.myapp.englishstudybot.domain.service.quiz.state.QuizBotState;
  * NOTE:
  * The role of this class is to use each state class through an interface.
  * Therefore, concrete actions and transition conditions for each state should NOT be implemented in this class.
+ * 
+ * This class holds the current state of ONE conversation, and hence is defined as a prototype bean.
+ * A new instance must be obtained for every event (e.g. via ObjectProvider)
+ * so that events from different users can be handled concurrently without sharing the state.
+ * Each state class is a stateless singleton and can be shared among instances of this class.
  */
 @Service
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class QuizBotContext {
 
     private QuizBotState state;
     private final Map<QuizStateName, QuizBotState> stateBeans;
+    private final QuizBotWriteBuffer writeBuffer;
 
     // Injects all beans of QuizBotState concrete classes with the format of
     // Map<QuizStateName, QuizBotState>
     @Autowired
-    QuizBotContext(List<QuizBotState> states) {
+    QuizBotContext(List<QuizBotState> states, QuizBotWriteBuffer writeBuffer) {
         stateBeans = states.stream().collect(
             Collectors.toMap(QuizBotState::getStateName, Function.identity())
         );
+        this.writeBuffer = writeBuffer;
     }
 
     /**
@@ -54,16 +67,62 @@ public class QuizBotContext {
     }
 
     /**
-     * Triggers a state transition of the bot
+     * Gets the write buffer which collects DB writes of all states entered for this event.
+     * 
+     * @return the write buffer of this context
+     */
+    public QuizBotWriteBuffer getWriteBuffer() {
+        return writeBuffer;
+    }
+
+    /**
+     * Triggers a state transition of the bot.
+     * This method returns without waiting for reply messages being sent.
+     * An automatic transition to the next state starts after the entry action is completed.
+     * DB writes recorded by all entered states are flushed in one transaction at the end,
+     * even if one of the states fails (including a failure thrown synchronously).
+     * The flush and automatic transitions run on the callback executor of LineBotAgent,
+     * not on the thread which completes a LINE API call.
+     * 
+     * @param user a user entity who sent a message to this bot
+     * @param lineBotAgent an LineBotAgent instance which contains information 
+     * of a specific user who sent a message to this bot
+     * @return a future which completes after all actions of the transition are done
+     */
+    public CompletableFuture<Void> triggerStateMove(UserEntity user, LineBotAgent lineBotAgent) {
+        Executor callbackExecutor = lineBotAgent.getCallbackExecutor();
+        // composed on a completed future so that an exception thrown by continueStateMove
+        // completes the future exceptionally instead of skipping the flush
+        return CompletableFuture.completedFuture(null)
+            .thenCompose(ignored -> continueStateMove(user, lineBotAgent))
+            .handleAsync((result, e) -> {
+                writeBuffer.flush();
+                if (e != null) {
+                    throw e instanceof CompletionException 
+                        ? (CompletionException) e 
+                        : new CompletionException(e);
+                }
+                return result;
+            }, callbackExecutor);
+    }
+
+    /**
+     * Continues a state transition of the bot without flushing DB writes.
+     * This method is used for automatic transitions in the middle of triggerStateMove.
      * 
      * @param user a user entity who sent a message to this bot
      * @param lineBotAgent an LineBotAgent instance which contains information 
      * of a specific user who sent a message to this bot
+     * @return a future which completes after all actions of the transition are done
      */
-    public void triggerStateMove(UserEntity user, LineBotAgent lineBotAgent) {
+    public CompletableFuture<Void> continueStateMove(UserEntity user, LineBotAgent lineBotAgent) {
         state.changeState(this, lineBotAgent.getUserMessage());
-        lineBotAgent = state.entryAction(user, lineBotAgent);
-        state.goNextAutomatically(this, user, lineBotAgent);
+        QuizBotState enteredState = state;
+        return enteredState.entryAction(this, user, lineBotAgent)
+            .thenComposeAsync(
+                agent -> enteredState.goNextAutomatically(this, user, agent),
+                lineBotAgent.getCallbackExecutor()
+            );
     }
 
 
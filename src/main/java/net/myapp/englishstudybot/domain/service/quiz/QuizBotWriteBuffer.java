@@ -0,0 +1,179 @@
+package net.myapp.englishstudybot.domain.service.quiz;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.model.QuizStateName;
+import net.myapp.englishstudybot.domain.model.UserEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizGivenDto;
+import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
+import net.myapp.englishstudybot.domain.repository.QuizScheduleRepository;
+import net.myapp.englishstudybot.domain.repository.UserRepository;
+
+/**
+ * QuizBotWriteBuffer is a class which collects DB writes of each state
+ * while one webhook event is handled, and flushes them in one transaction.
+ *
+ * The following writes are coalesced before being flushed:
+ *  - quiz_status of a user: only the last status is written
+ *    (e.g. CHECKING_ANSWER is overwritten by WAITING_START in the automatic transition)
+ *  - last quiz info. of a user: only the last quiz is written
+ * Writes of quiz_aggregations and quiz_schedules tables are collected into lists
+ * and flushed as JDBC batches in the recorded order of each kind of write
+ * (given quizzes first, then answer results, and then review schedules),
+ * so that a flush costs a few round trips regardless of the number of the writes.
+ * Writes of users are written to DB in the same transaction, and applied to UserCache after the commit.
+ *
+ * NOTE:
+ * This class is a prototype bean held by QuizBotContext
+ * and hence is never shared among different webhook events.
+ * Writes are recorded only after a reply message is sent successfully in each state,
+ * and the writes recorded before a failure are still flushed
+ * in the same way as they have been committed one by one before.
+ */
+@Slf4j
+@Service
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class QuizBotWriteBuffer {
+
+    private final UserRepository userRepository;
+    private final QuizAggregationRepository quizAggregationRepository;
+    private final QuizScheduleRepository quizScheduleRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, QuizStateName> userStatuses = new LinkedHashMap<>();
+    private final Map<String, UserEntity> lastQuizInfos = new LinkedHashMap<>();
+    private final List<QuizGivenDto> givenQuizzes = new ArrayList<>();
+    private final List<QuizAnswerDto> answers = new ArrayList<>();
+    private final List<Runnable> afterFlushActions = new ArrayList<>();
+
+    @Autowired
+    QuizBotWriteBuffer(
+        UserRepository userRepository,
+        QuizAggregationRepository quizAggregationRepository,
+        QuizScheduleRepository quizScheduleRepository,
+        TransactionTemplate transactionTemplate
+    ) {
+        this.userRepository = userRepository;
+        this.quizAggregationRepository = quizAggregationRepository;
+        this.quizScheduleRepository = quizScheduleRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Records an update of the quiz_status of a user.
+     *
+     * @param userId ID of the user to be updated
+     * @param quizStatus a new quiz status
+     */
+    public synchronized void updateUserStatus(String userId, QuizStateName quizStatus) {
+        userStatuses.put(userId, quizStatus);
+    }
+
+    /**
+     * Records an update of the last quiz info. of a user.
+     *
+     * @param user a user entity with the last quiz info. to be written
+     */
+    public synchronized void updateLastQuizInfo(UserEntity user) {
+        lastQuizInfos.put(user.getId(), user);
+    }
+
+    /**
+     * Records an upsert of a quiz aggregation when a quiz is given to a user.
+     *
+     * @param vocabulariesId vocabularies ID of the given quiz
+     * @param usersId ID of the user to whom the quiz is given
+     * @param isJpQuestionQuiz a flag to configure which type of question, "_jp" or "_en" is given
+     */
+    public synchronized void upsertGivenQuiz(
+        Integer vocabulariesId,
+        String usersId,
+        Boolean isJpQuestionQuiz
+    ) {
+        // the given time is fixed when recorded, not when flushed
+        givenQuizzes.add(new QuizGivenDto(vocabulariesId, usersId, isJpQuestionQuiz, LocalDateTime.now()));
+    }
+
+    /**
+     * Records an update of a quiz aggregation according to a user's answer result,
+     * and a schedule of the next review of the vocabulary.
+     *
+     * @param vocabulariesId vocabularies ID of the answered quiz
+     * @param usersId ID of the user who answered the quiz
+     * @param isJpQuestionQuiz a flag to configure which type of question, "_jp" or "_en" is given
+     * @param isAnswerCorrect a flag of whether a user's answer is correct or not
+     */
+    public synchronized void updateAnswerResult(
+        Integer vocabulariesId,
+        String usersId,
+        Boolean isJpQuestionQuiz,
+        boolean isAnswerCorrect
+    ) {
+        // the answered time is fixed when recorded, not when flushed
+        answers.add(
+            new QuizAnswerDto(vocabulariesId, usersId, isJpQuestionQuiz, isAnswerCorrect, LocalDateTime.now())
+        );
+    }
+
+    /**
+     * Records an action which runs after the recorded writes are committed
+     * (e.g. an action which reads the written data).
+     * The action does not run if the flush fails.
+     *
+     * @param action an action to be run after the flush
+     */
+    public synchronized void runAfterFlush(Runnable action) {
+        afterFlushActions.add(action);
+    }
+
+    /**
+     * Flushes all recorded writes in one transaction and clears them,
+     * and then runs the recorded after-flush actions.
+     * No transaction is executed if no writes are recorded.
+     */
+    public synchronized void flush() {
+        List<Runnable> actions = List.copyOf(afterFlushActions);
+        afterFlushActions.clear();
+        if (! userStatuses.isEmpty() || ! lastQuizInfos.isEmpty() || ! givenQuizzes.isEmpty() || ! answers.isEmpty()) {
+            log.info("START: QuizBotWriteBuffer#flush");
+
+            try {
+                // copied because the lists are cleared after the flush
+                List<QuizGivenDto> flushedGivenQuizzes = List.copyOf(givenQuizzes);
+                List<QuizAnswerDto> flushedAnswers = List.copyOf(answers);
+                transactionTemplate.executeWithoutResult(status -> {
+                    userStatuses.forEach(userRepository::updateUserStatus);
+                    lastQuizInfos.values().forEach(userRepository::updateLastQuizInfo);
+                    if (! flushedGivenQuizzes.isEmpty()) {
+                        quizAggregationRepository.upsertGivenQuizzes(flushedGivenQuizzes);
+                    }
+                    if (! flushedAnswers.isEmpty()) {
+                        quizAggregationRepository.updateAnswerResults(flushedAnswers);
+                        quizScheduleRepository.scheduleNextReviews(flushedAnswers);
+                    }
+                });
+            } finally {
+                userStatuses.clear();
+                lastQuizInfos.clear();
+                givenQuizzes.clear();
+                answers.clear();
+            }
+
+            log.info("END: QuizBotWriteBuffer#flush");
+        }
+        actions.forEach(Runnable::run);
+    }
+
+}
@@ -0,0 +1,264 @@
+package net.myapp.englishstudybot.domain.service.quiz;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.model.UserEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizDto;
+import net.myapp.englishstudybot.domain.model.quiz.UserQuizConfigDto;
+import net.myapp.englishstudybot.domain.service.bot.BotMessageGenerator;
+
+/**
+ * QuizPrefetcher is a class which generates quizzes for active users in advance
+ * so that a quiz is given without waiting for DB queries when a user selects a quiz type.
+ *
+ * For each active user, this class keeps a small queue of quizzes
+ * for each selectable quiz type with the user's current quiz config (e.g. en or jp question).
+ * Each quiz is generated by QuizGenerator and its messages are rendered by BotMessageGenerator
+ * in the same way as QuizBotWaitingAnswerState does.
+ *
+ * The queues of a user are refilled in a background thread when the user enters WAITING_TYPE_SELECT.
+ * Only empty queues are filled, and hence usually only the queue of the quiz type
+ * taken for the last quiz is refilled, which costs one quiz generation per quiz given.
+ *
+ * NOTE:
+ * When a quiz is given, the quizzes of the same vocabulary in the other queues are discarded
+ * so that the same vocabulary is not given twice in a row.
+ * The other quizzes are kept even after the user's answers are written,
+ * although they were selected from the answer history before the answers.
+ * Such a quiz is given at most "englishstudybot.quiz.prefetch.expiration-minutes" after prefetched.
+ * All prefetched quizzes are discarded when vocabularies are
+ * updated or deleted (VocabServiceImpl calls invalidateAll), so that a removed vocabulary is never given.
+ * Only the most recently active users are kept to limit the memory usage
+ * ("englishstudybot.quiz.prefetch.max-cached-users").
+ * Since prefetching is best-effort, a refill is dropped when too many refills are waiting
+ * ("englishstudybot.quiz.prefetch.max-waiting-refills"), and the quiz is generated when taken instead.
+ * Prefetching is disabled by the property "englishstudybot.quiz.prefetch.enabled=false".
+ */
+@Slf4j
+@Service
+public class QuizPrefetcher {
+
+    private final QuizGenerator quizGenerator;
+    private final BotMessageGenerator botMessageGenerator;
+    private final boolean isEnabled;
+    private final int queueSize;
+    private final long expirationNanos;
+    private final ExecutorService executor;
+
+    // queues of each user keyed by quiz config,
+    // ordered by access to discard the least recently active users
+    private final Map<String, Map<UserQuizConfigDto, Deque<PrefetchedQuiz>>> queuesByUser;
+    // incremented by invalidateAll so that quizzes being generated before it are discarded
+    private long version;
+
+    @Autowired
+    QuizPrefetcher(
+        QuizGenerator quizGenerator,
+        BotMessageGenerator botMessageGenerator,
+        @Value("${englishstudybot.quiz.prefetch.enabled:true}") boolean isEnabled,
+        @Value("${englishstudybot.quiz.prefetch.queue-size:1}") int queueSize,
+        @Value("${englishstudybot.quiz.prefetch.expiration-minutes:10}") long expirationMinutes,
+        @Value("${englishstudybot.quiz.prefetch.pool-size:2}") int poolSize,
+        @Value("${englishstudybot.quiz.prefetch.max-cached-users:1000}") int maxCachedUsers,
+        @Value("${englishstudybot.quiz.prefetch.max-waiting-refills:100}") int maxWaitingRefills
+    ) {
+        this.quizGenerator = quizGenerator;
+        this.botMessageGenerator = botMessageGenerator;
+        this.isEnabled = isEnabled;
+        this.queueSize = queueSize;
+        this.expirationNanos = TimeUnit.MINUTES.toNanos(expirationMinutes);
+        this.queuesByUser = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                Map.Entry<String, Map<UserQuizConfigDto, Deque<PrefetchedQuiz>>> eldest
+            ) {
+                return size() > maxCachedUsers;
+            }
+        };
+        AtomicInteger threadCount = new AtomicInteger();
+        // a refill is rejected when too many refills are waiting, and dropped in refill
+        this.executor = new ThreadPoolExecutor(
+            poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxWaitingRefills),
+            runnable -> {
+                Thread thread = new Thread(runnable, "quiz-prefetch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+
+    /**
+     * Takes a prefetched quiz with its messages rendered.
+     *
+     * @param userQuizConfigDto a quiz config of a user including the selected quiz type
+     * @return a prefetched quiz dto, or null if no quizzes are prefetched for the config
+     */
+    public QuizDto takeQuiz(UserQuizConfigDto userQuizConfigDto) {
+        if (! isEnabled) {
+            return null;
+        }
+        synchronized (this) {
+            Map<UserQuizConfigDto, Deque<PrefetchedQuiz>> userQueues
+             = queuesByUser.get(userQuizConfigDto.getTargetUserId());
+            Deque<PrefetchedQuiz> queue = (userQueues == null) ? null : userQueues.get(userQuizConfigDto);
+            while (queue != null && ! queue.isEmpty()) {
+                PrefetchedQuiz prefetchedQuiz = queue.poll();
+                if (System.nanoTime() - prefetchedQuiz.getPrefetchedAt() < expirationNanos) {
+                    log.info("Prefetched quiz is used.");
+                    return prefetchedQuiz.getQuizDto();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Fills the queues of a user asynchronously for each selectable quiz type.
+     * Quizzes already prefetched are kept.
+     * The refill is dropped when too many refills are waiting.
+     *
+     * @param user an entity of a user with the current quiz config
+     * @return a future which completes after the queues are filled or the refill is dropped
+     */
+    public CompletableFuture<Void> refill(UserEntity user) {
+        if (! isEnabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long loadedVersion;
+        synchronized (this) {
+            loadedVersion = version;
+            queuesByUser.computeIfAbsent(user.getId(), key -> new HashMap<>());
+        }
+        List<UserQuizConfigDto> userQuizConfigs
+         = quizGenerator.getSelectableQuizTypes().stream()
+            .map(quizType -> new UserQuizConfigDto(
+                user.getId(),
+                user.getIsSelfWordOnly(),
+                user.getIsExampleQuiz(),
+                user.getIsJpQuestionQuiz(),
+                user.getIsDescriptionQuiz(),
+                quizType
+            ))
+            .toList();
+
+        try {
+            return CompletableFuture.runAsync(() -> {
+                for (UserQuizConfigDto userQuizConfigDto : userQuizConfigs) {
+                    while (needsQuiz(userQuizConfigDto, loadedVersion)) {
+                        QuizDto quizDto = quizGenerator.generateQuiz(userQuizConfigDto);
+                        quizDto = botMessageGenerator.generateQuizAndAnswerMessages(quizDto, userQuizConfigDto);
+                        if (! offerQuiz(userQuizConfigDto, quizDto, loadedVersion)) {
+                            return;
+                        }
+                    }
+                }
+            }, executor).exceptionally(e -> {
+                log.warn("Prefetching quizzes failed: {}", e.getMessage());
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Prefetching quizzes is dropped: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+
+    /**
+     * Discards the prefetched quizzes of a vocabulary for a user
+     * (e.g. when a quiz of the vocabulary is given to the user).
+     *
+     * @param userId ID of the user
+     * @param vocabId vocabulary ID of the quizzes to be discarded
+     */
+    public synchronized void discardVocab(String userId, Integer vocabId) {
+        Map<UserQuizConfigDto, Deque<PrefetchedQuiz>> userQueues = queuesByUser.get(userId);
+        if (userQueues != null) {
+            userQueues.values().forEach(
+                queue -> queue.removeIf(
+                    prefetchedQuiz -> vocabId.equals(prefetchedQuiz.getQuizDto().getTargetVocabId())
+                )
+            );
+        }
+    }
+
+    /**
+     * Discards all prefetched quizzes of all users (e.g. when vocabularies are changed).
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        queuesByUser.clear();
+    }
+
+    /**
+     * Stops background threads without waiting for quizzes being generated.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks whether a queue needs more quizzes and has not been invalidated after the refill started.
+     */
+    private synchronized boolean needsQuiz(UserQuizConfigDto userQuizConfigDto, long loadedVersion) {
+        Map<UserQuizConfigDto, Deque<PrefetchedQuiz>> userQueues
+         = queuesByUser.get(userQuizConfigDto.getTargetUserId());
+        if (version != loadedVersion || userQueues == null) {
+            return false;
+        }
+        Deque<PrefetchedQuiz> queue = userQueues.get(userQuizConfigDto);
+        return queue == null || queue.size() < queueSize;
+    }
+
+    /**
+     * Adds a generated quiz to a queue unless the queue has been invalidated after the refill started.
+     *
+     * @return true if the quiz is added
+     */
+    private synchronized boolean offerQuiz(
+        UserQuizConfigDto userQuizConfigDto, QuizDto quizDto, long loadedVersion
+    ) {
+        Map<UserQuizConfigDto, Deque<PrefetchedQuiz>> userQueues
+         = queuesByUser.get(userQuizConfigDto.getTargetUserId());
+        if (version != loadedVersion || userQueues == null) {
+            return false;
+        }
+        userQueues
+            .computeIfAbsent(userQuizConfigDto, key -> new ArrayDeque<>())
+            .add(new PrefetchedQuiz(quizDto, System.nanoTime()));
+        return true;
+    }
+
+    /**
+     * PrefetchedQuiz is a prefetched quiz with the time when it is prefetched.
+     */
+    @Data
+    @AllArgsConstructor
+    private static class PrefetchedQuiz {
+        private QuizDto quizDto;
+        private long prefetchedAt;
+    }
+
+}
@@ -1,5 +1,7 @@
 package net.myapp.englishstudybot.domain.service.quiz;
 
+import java.util.concurrent.CompletableFuture;
+
 import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
 
 /**
@@ -12,7 +14,8 @@ public interface QuizService {
      * 
      * @param lineBotAgent an LineBotAgent instance which contains information 
      * of a specific user who sent a message to this bot
+     * @return a future which completes after the service is provided
      */
-    public void provideQuizService(LineBotAgent lineBotAgent);
+    public CompletableFuture<Void> provideQuizService(LineBotAgent lineBotAgent);
     
 }
@@ -1,5 +1,8 @@
 package net.myapp.englishstudybot.domain.service.quiz;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -17,19 +20,25 @@ import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
 public class QuizServiceImpl implements QuizService{
 
     private final UserRepository userRepository;
-    private final QuizBotContext quizBotContext;
+    private final ObjectProvider<QuizBotContext> quizBotContextProvider;
 
     @Autowired
-    QuizServiceImpl(UserRepository userRepository, QuizBotContext quizBotContext) {
+    QuizServiceImpl(
+        UserRepository userRepository,
+        ObjectProvider<QuizBotContext> quizBotContextProvider
+    ) {
         this.userRepository = userRepository;
-        this.quizBotContext = quizBotContext;
+        this.quizBotContextProvider = quizBotContextProvider;
     }
 
     /**
      * Provides a quiz service.
+     * A new context is created for each call so that this method can be called
+     * concurrently for different users.
+     * This method returns without waiting for reply messages being sent.
      */
     @Override
-    public void provideQuizService(LineBotAgent lineBotAgent) {
+    public CompletableFuture<Void> provideQuizService(LineBotAgent lineBotAgent) {
         log.info("START: QuizServiceImpl#provideQuizService");
 
         UserEntity user = userRepository.findById(lineBotAgent.getLineUserId());
@@ -40,10 +49,12 @@ public class QuizServiceImpl implements QuizService{
             user.setQuizStatus(QuizStateName.WAITING_START.getCode());
             user = userRepository.add(user);
         }
+        QuizBotContext quizBotContext = quizBotContextProvider.getObject();
         quizBotContext.setState(QuizStateName.nameOf(user.getQuizStatus()));
-        quizBotContext.triggerStateMove(user, lineBotAgent);
+        CompletableFuture<Void> result = quizBotContext.triggerStateMove(user, lineBotAgent);
 
         log.info("END: QuizServiceImpl#provideQuizService");
+        return result;
     }
     
 }
@@ -0,0 +1,54 @@
+package net.myapp.englishstudybot.domain.service.quiz.selection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import net.myapp.englishstudybot.domain.model.quiz.QuizCandidateDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizSelectionScore;
+import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
+
+/**
+ * LastIncorrectSelectionStrategy selects a vocabulary of which the user's last answer was incorrect.
+ * If there are no such vocabularies, one which has not been given as a quiz yet is selected,
+ * and then any vocabulary.
+ */
+@Component
+@Order(3)
+public class LastIncorrectSelectionStrategy implements QuizSelectionStrategy {
+
+    private static final QuizSelectionScore LAST_INCORRECT = new QuizSelectionScore(2, 0);
+    private static final QuizSelectionScore NOT_GIVEN = new QuizSelectionScore(1, 0);
+
+    private final QuizAggregationRepository quizAggregationRepository;
+
+    @Autowired
+    LastIncorrectSelectionStrategy(QuizAggregationRepository quizAggregationRepository) {
+        this.quizAggregationRepository = quizAggregationRepository;
+    }
+
+    @Override
+    public String getQuizType() {
+        return "誤答";
+    }
+
+    @Override
+    public QuizSelectionScore scoreNotGiven() {
+        return NOT_GIVEN;
+    }
+
+    /**
+     * Extracts the vocabularies of which the last answer was incorrect as the candidates.
+     * The others are not candidates since any vocabulary is selected when nothing is scored.
+     */
+    @Override
+    public List<QuizCandidateDto> findCandidates(String userId, Boolean isJpQuestionQuiz, LocalDateTime now) {
+        return quizAggregationRepository.findLastIncorrectVocabs(userId, isJpQuestionQuiz).stream()
+            .map(vocabId -> new QuizCandidateDto(vocabId, LAST_INCORRECT))
+            .toList();
+    }
+
+}
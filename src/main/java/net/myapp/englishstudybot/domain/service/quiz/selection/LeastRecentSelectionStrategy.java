@@ -0,0 +1,55 @@
+package net.myapp.englishstudybot.domain.service.quiz.selection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import net.myapp.englishstudybot.domain.model.quiz.QuizCandidateDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizSelectionScore;
+import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
+
+/**
+ * LeastRecentSelectionStrategy selects a vocabulary whose question date is oldest.
+ * Vocabularies which have not been given as a quiz yet are regarded as the oldest.
+ */
+@Component
+@Order(1)
+public class LeastRecentSelectionStrategy implements QuizSelectionStrategy {
+
+    private static final QuizSelectionScore NOT_GIVEN = new QuizSelectionScore(1, 0);
+    private static final QuizSelectionScore LEAST_RECENT = new QuizSelectionScore(0, 0);
+
+    private final QuizAggregationRepository quizAggregationRepository;
+
+    @Autowired
+    LeastRecentSelectionStrategy(QuizAggregationRepository quizAggregationRepository) {
+        this.quizAggregationRepository = quizAggregationRepository;
+    }
+
+    @Override
+    public String getQuizType() {
+        return "出題日古い";
+    }
+
+    @Override
+    public QuizSelectionScore scoreNotGiven() {
+        return NOT_GIVEN;
+    }
+
+    /**
+     * Extracts the vocabulary whose question date is oldest as the only candidate.
+     */
+    @Override
+    public List<QuizCandidateDto> findCandidates(String userId, Boolean isJpQuestionQuiz, LocalDateTime now) {
+        Integer leastRecentVocabId
+         = quizAggregationRepository.findLeastRecentGivenVocab(userId, isJpQuestionQuiz);
+        if (leastRecentVocabId == null) {
+            return List.of();
+        }
+        return List.of(new QuizCandidateDto(leastRecentVocabId, LEAST_RECENT));
+    }
+
+}
@@ -0,0 +1,64 @@
+package net.myapp.englishstudybot.domain.service.quiz.selection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import net.myapp.englishstudybot.domain.model.quiz.QuizCandidateDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizSelectionScore;
+import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
+
+/**
+ * LowestCorrectionRatioSelectionStrategy selects a vocabulary whose correction ratio is lowest.
+ * Vocabularies which have not been given as a quiz yet are regarded as zero ratio,
+ * and hence one is randomly selected from them and those with zero ratio if any.
+ */
+@Component
+@Order(2)
+public class LowestCorrectionRatioSelectionStrategy implements QuizSelectionStrategy {
+
+    private static final QuizSelectionScore ZERO_RATIO = new QuizSelectionScore(0, 0);
+
+    private final QuizAggregationRepository quizAggregationRepository;
+
+    @Autowired
+    LowestCorrectionRatioSelectionStrategy(QuizAggregationRepository quizAggregationRepository) {
+        this.quizAggregationRepository = quizAggregationRepository;
+    }
+
+    @Override
+    public String getQuizType() {
+        return "正答率低い";
+    }
+
+    @Override
+    public QuizSelectionScore scoreNotGiven() {
+        return ZERO_RATIO;
+    }
+
+    /**
+     * Extracts the vocabularies with zero ratio as the candidates,
+     * or the one whose ratio is lowest if there are no such vocabularies.
+     */
+    @Override
+    public List<QuizCandidateDto> findCandidates(String userId, Boolean isJpQuestionQuiz, LocalDateTime now) {
+        List<Integer> zeroRatioVocabIds
+         = quizAggregationRepository.findZeroIncorrectionRatioVocabs(userId, isJpQuestionQuiz);
+        if (! zeroRatioVocabIds.isEmpty()) {
+            return zeroRatioVocabIds.stream()
+                .map(vocabId -> new QuizCandidateDto(vocabId, ZERO_RATIO))
+                .toList();
+        }
+
+        // the lower the ratio, the higher
+        return quizAggregationRepository.findLowestIncorrectionRatio(userId, isJpQuestionQuiz, 1).stream()
+            .map(dto -> new QuizCandidateDto(
+                dto.getVocabularyId(), new QuizSelectionScore(0, - dto.getAnswerRatio())
+            ))
+            .toList();
+    }
+
+}
@@ -0,0 +1,118 @@
+package net.myapp.englishstudybot.domain.service.quiz.selection;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.domain.model.quiz.QuizCandidateDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizSelectionScore;
+import net.myapp.englishstudybot.domain.repository.VocabIdIndex;
+import net.myapp.englishstudybot.domain.util.RandomNumberGenerator;
+
+/**
+ * QuizSelectionEngine is a class which selects a target vocabulary of a quiz by QuizSelectionStrategy.
+ * 
+ * The algorithm of this class is as follows:
+ *  1) Scores vocabularies which have not been given as a quiz yet (counted by VocabIdIndex) at once.
+ *  2) Offers the candidates which the strategy extracted and scored by its bounded queries.
+ *  3) Returns a vocabulary ID with the highest score, randomly selected among those with the same score.
+ *     If the selected one is "not given yet", picks a vocabulary ID randomly from those.
+ *  4) If no candidates are scored, returns a vocabulary ID randomly selected from all.
+ * 
+ * NOTE:
+ * Vocabularies not given yet are offered as one candidate weighted by their number
+ * (weighted reservoir sampling), so that they are not extracted unless selected.
+ */
+@Slf4j
+@Service
+public class QuizSelectionEngine {
+
+    private final VocabIdIndex vocabIdIndex;
+    private final RandomNumberGenerator myRnd;
+
+    @Autowired
+    QuizSelectionEngine(
+        VocabIdIndex vocabIdIndex,
+        RandomNumberGenerator randomNumberGenerator
+    ) {
+        this.vocabIdIndex = vocabIdIndex;
+        this.myRnd = randomNumberGenerator;
+    }
+
+    /**
+     * Selects a target vocabulary ID of a quiz for a user.
+     * 
+     * @param strategy a strategy which scores candidates for the quiz type
+     * @param userId a user's ID who is communicating with this bot
+     * @param isJpQuestionQuiz a flag to decide which type of question, en or jp, is used (if true, jp is used and vice versa)
+     * @return a vocabulary ID selected (nullable if no vocabularies exist)
+     */
+    public Integer selectVocabId(QuizSelectionStrategy strategy, String userId, Boolean isJpQuestionQuiz) {
+        log.info("START: QuizSelectionEngine#selectVocabId");
+
+        LocalDateTime now = LocalDateTime.now();
+        Selection selection = new Selection();
+
+        int notGivenQuizVocabNum = vocabIdIndex.countNotGivenVocabIds(userId);
+        if (notGivenQuizVocabNum > 0) {
+            // the vocabulary ID is decided at last only if "not given yet" is selected
+            selection.offer(strategy.scoreNotGiven(), null, notGivenQuizVocabNum);
+        }
+        for (QuizCandidateDto candidate : strategy.findCandidates(userId, isJpQuestionQuiz, now)) {
+            selection.offer(candidate.getScore(), candidate.getVocabularyId(), 1);
+        }
+
+        Integer targetVocabId;
+        if (selection.bestScore == null) {
+            log.info("No candidates are found, and a vocabulary is randomly selected.");
+            targetVocabId = vocabIdIndex.pickRandomVocabId();
+        } else if (selection.vocabId == null) {
+            log.info("A vocabulary which has not been given to the user yet is selected.");
+            targetVocabId = vocabIdIndex.pickRandomNotGivenVocabId(userId);
+        } else {
+            targetVocabId = selection.vocabId;
+        }
+
+        log.info("END: QuizSelectionEngine#selectVocabId");
+        return targetVocabId;
+    }
+
+    /**
+     * Selection holds the best candidate offered so far.
+     */
+    private class Selection {
+        private QuizSelectionScore bestScore;
+        // null means "not given yet"
+        private Integer vocabId;
+        // the total weight of the candidates with the best score
+        private int bestWeight;
+
+        /**
+         * Offers a candidate, which replaces the current one with probability weight / (total weight)
+         * if the score is the same as the best.
+         * 
+         * @param score a score of the candidate (ignored if null)
+         * @param vocabId ID of the candidate, or null for vocabularies not given yet
+         * @param weight the number of vocabularies the candidate represents
+         */
+        private void offer(QuizSelectionScore score, Integer vocabId, int weight) {
+            if (score == null) {
+                return;
+            }
+            int comparison = (bestScore == null) ? 1 : score.compareTo(bestScore);
+            if (comparison > 0) {
+                this.bestScore = score;
+                this.vocabId = vocabId;
+                this.bestWeight = weight;
+            } else if (comparison == 0) {
+                this.bestWeight += weight;
+                if (myRnd.generateIntRandomNumber(bestWeight) < weight) {
+                    this.vocabId = vocabId;
+                }
+            }
+        }
+    }
+
+}
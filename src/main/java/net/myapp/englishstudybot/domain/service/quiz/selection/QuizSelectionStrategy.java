@@ -0,0 +1,46 @@
+package net.myapp.englishstudybot.domain.service.quiz.selection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import net.myapp.englishstudybot.domain.model.quiz.QuizCandidateDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizSelectionScore;
+
+/**
+ * QuizSelectionStrategy is an interface to be implemented by concrete classes
+ * which embody how a target vocabulary is selected for each quiz type.
+ * 
+ * A strategy extracts and scores only the candidates which it may select by bounded queries,
+ * and QuizSelectionEngine selects the one with the highest score
+ * (randomly among those with the same score).
+ * Hence a new quiz type is added just by implementing this interface as a bean.
+ */
+public interface QuizSelectionStrategy {
+
+    /**
+     * Gets the quiz type name which a user selects.
+     * 
+     * @return the quiz type name
+     */
+    public String getQuizType();
+
+    /**
+     * Scores vocabularies which have not been given as a quiz to the user yet.
+     * 
+     * @return the score, or null if those vocabularies should not be selected
+     */
+    public QuizSelectionScore scoreNotGiven();
+
+    /**
+     * Extracts scored candidates among vocabularies which had been given as a quiz to the user.
+     * The number of the candidates should be bounded regardless of the user's history size
+     * except for those with the same score.
+     * 
+     * @param userId a user's ID who is communicating with this bot
+     * @param isJpQuestionQuiz a flag to decide which type of question, en or jp, is used (if true, jp is used and vice versa)
+     * @param now the current time when the selection started
+     * @return a list of the scored candidates (empty if no candidates are found)
+     */
+    public List<QuizCandidateDto> findCandidates(String userId, Boolean isJpQuestionQuiz, LocalDateTime now);
+
+}
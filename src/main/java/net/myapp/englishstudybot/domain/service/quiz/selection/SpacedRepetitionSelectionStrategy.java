@@ -0,0 +1,60 @@
+package net.myapp.englishstudybot.domain.service.quiz.selection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import net.myapp.englishstudybot.domain.model.QuizScheduleEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizCandidateDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizSelectionScore;
+import net.myapp.englishstudybot.domain.repository.QuizScheduleRepository;
+
+/**
+ * SpacedRepetitionSelectionStrategy selects a vocabulary whose review is due
+ * by the schedules written by QuizScheduleRepository (the earliest due first).
+ * If no review is due, one which has not been given as a quiz yet is selected,
+ * and then the earliest scheduled one is reviewed ahead of schedule.
+ */
+@Component
+@Order(4)
+public class SpacedRepetitionSelectionStrategy implements QuizSelectionStrategy {
+
+    private static final QuizSelectionScore DUE = new QuizSelectionScore(2, 0);
+    private static final QuizSelectionScore NOT_GIVEN = new QuizSelectionScore(1, 0);
+    private static final QuizSelectionScore NOT_DUE = new QuizSelectionScore(0, 0);
+
+    private final QuizScheduleRepository quizScheduleRepository;
+
+    @Autowired
+    SpacedRepetitionSelectionStrategy(QuizScheduleRepository quizScheduleRepository) {
+        this.quizScheduleRepository = quizScheduleRepository;
+    }
+
+    @Override
+    public String getQuizType() {
+        return "復習";
+    }
+
+    @Override
+    public QuizSelectionScore scoreNotGiven() {
+        return NOT_GIVEN;
+    }
+
+    /**
+     * Extracts the vocabulary whose review is scheduled earliest as the only candidate.
+     */
+    @Override
+    public List<QuizCandidateDto> findCandidates(String userId, Boolean isJpQuestionQuiz, LocalDateTime now) {
+        QuizScheduleEntity earliestSchedule
+         = quizScheduleRepository.findEarliestDue(userId, isJpQuestionQuiz);
+        if (earliestSchedule == null) {
+            return List.of();
+        }
+        QuizSelectionScore score = earliestSchedule.getDueAt().isAfter(now) ? NOT_DUE : DUE;
+        return List.of(new QuizCandidateDto(earliestSchedule.getVocabulariesId(), score));
+    }
+
+}
@@ -3,6 +3,7 @@ package net.myapp.englishstudybot.domain.service.quiz.state;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
@@ -11,8 +12,6 @@ import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 import net.myapp.englishstudybot.domain.model.QuizStateName;
 import net.myapp.englishstudybot.domain.model.UserEntity;
-import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
-import net.myapp.englishstudybot.domain.repository.UserRepository;
 import net.myapp.englishstudybot.domain.service.bot.BotMessageGenerator;
 import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
 import net.myapp.englishstudybot.domain.service.quiz.QuizAnswerChecker;
@@ -28,22 +27,16 @@ public class QuizBotCheckingAnswerState implements QuizBotState {
     private static final QuizStateName STATE_NAME = QuizStateName.CHECKING_ANSWER;
     
     private final MessageSource messageSource;
-    private final UserRepository userRepository;
-    private final QuizAggregationRepository quizAggregationRepository;
     private final BotMessageGenerator botMessageGenerator;
     private final QuizAnswerChecker quizAnswerChecker;
 
     @Autowired
     private QuizBotCheckingAnswerState(
         MessageSource messageSource,
-        UserRepository userRepository,
-        QuizAggregationRepository quizAggregationRepository,
         BotMessageGenerator botMessageGenerator,
         QuizAnswerChecker quizAnswerChecker
     ) {
         this.messageSource = messageSource;
-        this.userRepository = userRepository;
-        this.quizAggregationRepository = quizAggregationRepository;
         this.botMessageGenerator = botMessageGenerator;
         this.quizAnswerChecker = quizAnswerChecker;
     }
@@ -70,30 +63,38 @@ public class QuizBotCheckingAnswerState implements QuizBotState {
      * Performs the following entry actions.
      * - checking if the user's answer is correct or not.
      * - sending a message to let the user know the checking result.
-     * - if the sending succeeded, update the quiz_status in the user table.
+     * - if the sending succeeded, update the quiz_status in the user table
+     *   and the quiz_aggregations table.
+     * The updates are chained to the result of the sending so as not to block the caller thread.
      */
     @Override
-    public LineBotAgent entryAction(UserEntity user, LineBotAgent lineBotAgent) {
+    public CompletableFuture<LineBotAgent> entryAction(
+        QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent
+    ) {
         log.info("START: QuizBotCheckingAnswerState#entryAction");
 
         boolean isAnswerCorrect = checkUserAnswer(user, lineBotAgent.getUserMessage());
-        boolean isReplySucceeded
+        CompletableFuture<Boolean> replyResult
          = sendCheckResultMessage(lineBotAgent, isAnswerCorrect, user.getLastQuizAnswer());
         lineBotAgent.setReplyTokenNullAfterReply();
-        if (isReplySucceeded) {
-            updateUserStatusToThis(user);
-            updateQuizResult(user, isAnswerCorrect);
-        } else {
-            // if sending LINE reply message failed, throws an exception.
-            String errorMessage
-             = messageSource.getMessage(
-                "error.replyMessageFailed.checkingAnswer", null, Locale.JAPAN
-            );
-            throw new RuntimeException(errorMessage); 
-        }
+        CompletableFuture<LineBotAgent> result
+         = replyResult.thenApply(isReplySucceeded -> {
+            if (isReplySucceeded) {
+                updateUserStatusToThis(quizBotContext, user);
+                updateQuizResult(quizBotContext, user, isAnswerCorrect);
+            } else {
+                // if sending LINE reply message failed, throws an exception.
+                String errorMessage
+                 = messageSource.getMessage(
+                    "error.replyMessageFailed.checkingAnswer", null, Locale.JAPAN
+                );
+                throw new RuntimeException(errorMessage); 
+            }
+            return lineBotAgent;
+        });
 
         log.info("END: QuizBotCheckingAnswerState#entryAction");
-        return lineBotAgent;
+        return result;
     }
 
     /**
@@ -127,9 +128,9 @@ public class QuizBotCheckingAnswerState implements QuizBotState {
      * @param lineBotAgent an instance which provides LINE Bot messaging functionalities
      * @param isAnswerCorrect a flag of whether a user's answer is correct or not
      * @param quizAnswer a quiz answer
-     * @return the result of the sending
+     * @return a future of the result of the sending
      */
-    private boolean sendCheckResultMessage(
+    private CompletableFuture<Boolean> sendCheckResultMessage(
         LineBotAgent lineBotAgent, 
         boolean isAnswerCorrect,
         String quizAnswer
@@ -147,34 +148,29 @@ public class QuizBotCheckingAnswerState implements QuizBotState {
     }
 
     /**
-     * Updates the quiz_status in the user table to this class state.
+     * Records an update of the quiz_status in the user table to this class state.
      * 
+     * @param quizBotContext an instance of context class which holds the write buffer
      * @param user an entity of a user to be updated
      */
-    private void updateUserStatusToThis(UserEntity user) {
-        userRepository.updateUserStatus(user.getId(), getStateName());
+    private void updateUserStatusToThis(QuizBotContext quizBotContext, UserEntity user) {
+        quizBotContext.getWriteBuffer().updateUserStatus(user.getId(), getStateName());
     }
  
     /**
-     * Updates quiz_aggreagtions table record according to the quiz answer result.
+     * Records an update of quiz_aggreagtions table record according to the quiz answer result.
      * 
+     * @param quizBotContext an instance of context class which holds the write buffer
      * @param user an entity of a user who is communicating with this bot
      * @param isAnswerCorrect a flag of whether a user's answer is correct or not
      */
-    private void updateQuizResult(UserEntity user, boolean isAnswerCorrect) {
-        if (isAnswerCorrect) {
-            quizAggregationRepository.updateCorrectCase(
-                user.getLastVocabulariesId(), 
-                user.getId(), 
-                user.getIsJpQuestionQuiz() 
-            );
-        } else {
-            quizAggregationRepository.updateIncorrectCase(
-                user.getLastVocabulariesId(), 
-                user.getId(), 
-                user.getIsJpQuestionQuiz() 
-            );
-        }
+    private void updateQuizResult(QuizBotContext quizBotContext, UserEntity user, boolean isAnswerCorrect) {
+        quizBotContext.getWriteBuffer().updateAnswerResult(
+            user.getLastVocabulariesId(), 
+            user.getId(), 
+            user.getIsJpQuestionQuiz(),
+            isAnswerCorrect
+        );
     }
 
     /**
@@ -182,8 +178,8 @@ public class QuizBotCheckingAnswerState implements QuizBotState {
      * the state context class.
      */
     @Override
-    public void goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent) {
-        quizBotContext.triggerStateMove(user, lineBotAgent);
+    public CompletableFuture<Void> goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent) {
+        return quizBotContext.continueStateMove(user, lineBotAgent);
     }
 
 }
@@ -1,5 +1,7 @@
 package net.myapp.englishstudybot.domain.service.quiz.state;
 
+import java.util.concurrent.CompletableFuture;
+
 import net.myapp.englishstudybot.domain.model.QuizStateName;
 import net.myapp.englishstudybot.domain.model.UserEntity;
 import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
@@ -30,13 +32,21 @@ public interface QuizBotState {
 
     /**
      * Performs entry action when the state changes to the one defined in the class.
+     * This method should return without waiting for the reply message being sent,
+     * and actions after the sending (e.g. DB updates) should be chained to the returned future.
+     * DB updates should be recorded in the write buffer of the context
+     * so that they are flushed in one transaction after all states are done.
      * 
+     * @param quizBotContext an instance of context class to manage the quiz bot state
      * @param user an entity of the user who is communicating with the quiz bot.
      * @param lineBotAgent an LineBotAgent instance which contains information 
      * of a specific user who sent a message to this bot
-     * @return a lineBotAgent instance with reply token being null after sending message
+     * @return a future of the lineBotAgent instance with reply token being null after sending message,
+     * which completes after all entry actions are done
      */
-    public LineBotAgent entryAction(UserEntity user, LineBotAgent lineBotAgent);
+    public CompletableFuture<LineBotAgent> entryAction(
+        QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent
+    );
 
     /**
      * Goes to the next state automatically, without any external triggers.
@@ -45,8 +55,9 @@ public interface QuizBotState {
      * @param user an entity of the user who is communicating with the quiz bot.
      * @param lineBotAgent an LineBotAgent instance which contains information 
      * of a specific user who sent a message to this bot
+     * @return a future which completes after all actions of the following states are done
      */
-    public void goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent);
+    public CompletableFuture<Void> goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent);
 
 
 }
@@ -1,25 +1,23 @@
 package net.myapp.englishstudybot.domain.service.quiz.state;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 
 import lombok.extern.slf4j.Slf4j;
-import net.myapp.englishstudybot.domain.model.QuizAggregationEntity;
 import net.myapp.englishstudybot.domain.model.QuizStateName;
 import net.myapp.englishstudybot.domain.model.UserEntity;
 import net.myapp.englishstudybot.domain.model.quiz.QuizDto;
 import net.myapp.englishstudybot.domain.model.quiz.UserQuizConfigDto;
-import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
-import net.myapp.englishstudybot.domain.repository.UserRepository;
 import net.myapp.englishstudybot.domain.service.bot.BotMessageGenerator;
 import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
 import net.myapp.englishstudybot.domain.service.quiz.QuizBotContext;
 import net.myapp.englishstudybot.domain.service.quiz.QuizGenerator;
+import net.myapp.englishstudybot.domain.service.quiz.QuizPrefetcher;
 
 /**
  * QuizBotWaitingAnswerState is an implementation of QuizBotState interface.
@@ -31,24 +29,21 @@ public class QuizBotWaitingAnswerState implements QuizBotState {
     private static final QuizStateName STATE_NAME = QuizStateName.WAITING_ANSWER;
     
     private final MessageSource messageSource;
-    private final UserRepository userRepository;
-    private final QuizAggregationRepository quizAggregationRepository;
     private final BotMessageGenerator botMessageGenerator;
     private final QuizGenerator quizGenerator;
+    private final QuizPrefetcher quizPrefetcher;
 
     @Autowired
     private QuizBotWaitingAnswerState(
         MessageSource messageSource,
-        UserRepository userRepository,
-        QuizAggregationRepository quizAggregationRepository,
         BotMessageGenerator botMessageGenerator,
-        QuizGenerator quizGenerataor
+        QuizGenerator quizGenerataor,
+        QuizPrefetcher quizPrefetcher
     ) {
         this.messageSource = messageSource;
-        this.userRepository = userRepository;
-        this.quizAggregationRepository = quizAggregationRepository;
         this.botMessageGenerator = botMessageGenerator;
         this.quizGenerator = quizGenerataor;
+        this.quizPrefetcher = quizPrefetcher;
     }
 
     /**
@@ -75,38 +70,52 @@ public class QuizBotWaitingAnswerState implements QuizBotState {
 
     /**
      * Performs the following entry actions.
-     * - generating a quiz and its message according to a quiz type which a user selected.
+     * - generating a quiz and its message according to a quiz type which a user selected
+     *   (a quiz prefetched by QuizPrefetcher is used if exists).
      * - sending the quiz message with quick reply messages for answering to the user.
      * - if the sending succeeded, update the tables as follows:
      *    users table: quiz_status and the generated quiz data in the user table.
      *    quiz_aggregations table: adds or updates the quiz aggregation data.
+     * - after the updates are written, discards the other prefetched quizzes of the same vocabulary
+     *   so that the vocabulary is not given twice in a row.
+     * The updates are chained to the result of the sending so as not to block the caller thread.
      */
     @Override
-    public LineBotAgent entryAction(UserEntity user, LineBotAgent lineBotAgent) {
+    public CompletableFuture<LineBotAgent> entryAction(
+        QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent
+    ) {
         log.info("START: QuizBotWaitingAnswerState#entryAction");
 
         QuizDto quizDto = generateQuizDto(user, lineBotAgent.getUserMessage());
-        boolean isReplySucceeded = sendQuizMessage(lineBotAgent, quizDto);
+        CompletableFuture<Boolean> replyResult = sendQuizMessage(lineBotAgent, quizDto);
         lineBotAgent.setReplyTokenNullAfterReply();
-        if (isReplySucceeded) {
-            user = updateUserStatusAndLastQuizInfo(user, quizDto);
-            updateGivenQuizAggregation(user, quizDto);
-        } else {
-            // if sending LINE reply message failed, throws an exception.
-            String errorMessage
-             = messageSource.getMessage(
-                "error.replyMessageFailed.waitingAnswer", null, Locale.JAPAN
-            );
-            throw new RuntimeException(errorMessage); 
-        }
+        CompletableFuture<LineBotAgent> result
+         = replyResult.thenApply(isReplySucceeded -> {
+            if (isReplySucceeded) {
+                updateUserStatusAndLastQuizInfo(quizBotContext, user, quizDto);
+                updateGivenQuizAggregation(quizBotContext, user, quizDto);
+                quizBotContext.getWriteBuffer().runAfterFlush(
+                    () -> quizPrefetcher.discardVocab(user.getId(), quizDto.getTargetVocabId())
+                );
+            } else {
+                // if sending LINE reply message failed, throws an exception.
+                String errorMessage
+                 = messageSource.getMessage(
+                    "error.replyMessageFailed.waitingAnswer", null, Locale.JAPAN
+                );
+                throw new RuntimeException(errorMessage); 
+            }
+            return lineBotAgent;
+        });
 
         log.info("END: QuizBotWaitingAnswerState#entryAction");
-        return lineBotAgent;
+        return result;
     }
 
     /**
      * Generates a quiz dto with all necessary fields being set
-     * by using quizGenerator methods and botMessagegenerator methods.
+     * by using quizGenerator methods and botMessagegenerator methods,
+     * or takes a prefetched one if exists.
      * 
      * @param user an entity of a user who is communicating with this bot
      * @param userMessage a user message sent to this bot.
@@ -121,8 +130,11 @@ public class QuizBotWaitingAnswerState implements QuizBotState {
             user.getIsJpQuestionQuiz(), 
             user.getIsDescriptionQuiz(), 
             userMessage);
-        QuizDto quizDto = quizGenerator.generateQuiz(userQuizConfigDto);
-        quizDto = botMessageGenerator.generateQuizAndAnswerMessages(quizDto, userQuizConfigDto);
+        QuizDto quizDto = quizPrefetcher.takeQuiz(userQuizConfigDto);
+        if (quizDto == null) {
+            quizDto = quizGenerator.generateQuiz(userQuizConfigDto);
+            quizDto = botMessageGenerator.generateQuizAndAnswerMessages(quizDto, userQuizConfigDto);
+        }
         return quizDto;
     }
 
@@ -131,9 +143,9 @@ public class QuizBotWaitingAnswerState implements QuizBotState {
      * 
      * @param lineBotAgent an instance which provides LINE Bot messaging functionalities
      * @param quizDto a quiz dto which contains a generated quiz mesasge and answer candidates
-     * @return the result of the sending
+     * @return a future of the result of the sending
      */
-    private boolean sendQuizMessage(LineBotAgent lineBotAgent, QuizDto quizDto) {
+    private CompletableFuture<Boolean> sendQuizMessage(LineBotAgent lineBotAgent, QuizDto quizDto) {
         String quizMessage = quizDto.getQuizMessage();
         List<String> quickReplyItems
          = botMessageGenerator
@@ -142,77 +154,48 @@ public class QuizBotWaitingAnswerState implements QuizBotState {
     }
 
     /**
-     * Updates the quiz_status in the user table to this class state.
+     * Records updates of the quiz_status and the last quiz info. in the user table.
      * 
+     * @param quizBotContext an instance of context class which holds the write buffer
      * @param user an entity of a user to be updated
      * @param quizDto a quiz dto which contains a quiz data given to a user
-     * @return a user entity with updated data in this method
      */
-    private UserEntity updateUserStatusAndLastQuizInfo(UserEntity user, QuizDto quizDto) {
-        user = userRepository.updateUserStatus(user.getId(), getStateName());
-
+    private void updateUserStatusAndLastQuizInfo(
+        QuizBotContext quizBotContext, UserEntity user, QuizDto quizDto
+    ) {
         user.setLastVocabulariesId(quizDto.getTargetVocabId());
         user.setLastQuizSentence(quizDto.getQuizWord());
         user.setLastQuizAnswer(quizDto.getAnswerMessage());
-        return userRepository.updateLastQuizInfo(user);
+        quizBotContext.getWriteBuffer().updateUserStatus(user.getId(), getStateName());
+        quizBotContext.getWriteBuffer().updateLastQuizInfo(user);
     }
 
     /**
-     * Updates the quiz_aggragations table when a quiz is given to a user.
+     * Records an update of the quiz_aggragations table when a quiz is given to a user.
+     * A new record is added if not exists, and the existing record is updated otherwise
+     * in one statement so that double-tapped messages never cause a duplicate key error.
      * 
+     * @param quizBotContext an instance of context class which holds the write buffer
      * @param user an entity of a user who is communicating with the bot
-     * @param quizDto 
+     * @param quizDto a quiz dto which contains a quiz data given to a user
      */
-    private void updateGivenQuizAggregation(UserEntity user, QuizDto quizDto) {
-        Boolean isJpQuestionQuiz = user.getIsJpQuestionQuiz();
-        QuizAggregationEntity record
-         = quizAggregationRepository.findById(user.getLastVocabulariesId(), user.getId());
-        if (record == null) {
-            //if the quiz aggregation is not found, adds a new record.
-            Integer totalCountQuestionEn = 0;
-            Integer totalCountQuestionJp = 0;
-            LocalDateTime lastQuestionDatetimeEn = null;
-            LocalDateTime lastQuestionDatetimeJp = null;
-            if (isJpQuestionQuiz) {
-                totalCountQuestionJp++;
-                lastQuestionDatetimeJp = LocalDateTime.now();
-            } else {
-                totalCountQuestionEn++;
-                lastQuestionDatetimeEn = LocalDateTime.now();
-            }
-            QuizAggregationEntity quizAggregation
-             = new QuizAggregationEntity(
-                user.getLastVocabulariesId(), 
-                user.getId(), 
-                totalCountQuestionEn, 
-                totalCountQuestionJp, 
-                lastQuestionDatetimeEn, 
-                lastQuestionDatetimeJp, 
-                0, 
-                0, 
-                null,
-                null, 
-                false, 
-                null, 
-                null
-            );
-            quizAggregationRepository.add(quizAggregation);
-        } else {
-            //if the quiz aggregation is found, updates the existing record.
-            quizAggregationRepository.updateGivenQuiz(
-                user.getLastVocabulariesId(), 
-                user.getId(), 
-                isJpQuestionQuiz
-            );
-        }
+    private void updateGivenQuizAggregation(
+        QuizBotContext quizBotContext, UserEntity user, QuizDto quizDto
+    ) {
+        quizBotContext.getWriteBuffer().upsertGivenQuiz(
+            quizDto.getTargetVocabId(), 
+            user.getId(), 
+            user.getIsJpQuestionQuiz()
+        );
     }
 
     /**
      * Does nothing because this state does not transition automatically.
      */
     @Override
-    public void goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent) {
+    public CompletableFuture<Void> goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent) {
         // do nothing
+        return CompletableFuture.completedFuture(null);
     }
 
 
@@ -1,6 +1,7 @@
 package net.myapp.englishstudybot.domain.service.quiz.state;
 
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
@@ -9,7 +10,6 @@ import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 import net.myapp.englishstudybot.domain.model.QuizStateName;
 import net.myapp.englishstudybot.domain.model.UserEntity;
-import net.myapp.englishstudybot.domain.repository.UserRepository;
 import net.myapp.englishstudybot.domain.service.bot.BotMessageGenerator;
 import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
 import net.myapp.englishstudybot.domain.service.quiz.QuizBotContext;
@@ -24,17 +24,14 @@ public class QuizBotWaitingStartState implements QuizBotState {
     private static final QuizStateName STATE_NAME = QuizStateName.WAITING_START;
 
     private final MessageSource messageSource;
-    private final UserRepository userRepository;
     private final BotMessageGenerator botMessageGenerator;
     
     @Autowired
     QuizBotWaitingStartState(
         MessageSource messageSource,
-        UserRepository userRepository,
         BotMessageGenerator botMessageGenerator
     ) {
         this.messageSource = messageSource;
-        this.userRepository = userRepository;
         this.botMessageGenerator = botMessageGenerator;
     }
 
@@ -72,62 +69,71 @@ public class QuizBotWaitingStartState implements QuizBotState {
      * Performs the following entry actions.
      * - sending a message to indicate how a user can start a quiz.
      * - if the sending succeeded, updates a user's quiz state to this.
+     * The update is chained to the result of the sending so as not to block the caller thread.
      */
     @Override
-    public LineBotAgent entryAction(UserEntity user, LineBotAgent lineBotAgent) {
+    public CompletableFuture<LineBotAgent> entryAction(
+        QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent
+    ) {
         log.info("START: QuizBotWaitingStartState#entryAction");
 
-        boolean isSendingSucceeded;
+        CompletableFuture<Boolean> sendingResult;
         if (lineBotAgent.getReplyToken() != null) {
-            isSendingSucceeded = sendQuizStartMessage(lineBotAgent);
+            sendingResult = sendQuizStartMessage(lineBotAgent);
             lineBotAgent.setReplyTokenNullAfterReply();
         } else {
             // if reply token is null after sending a message in other states,
             // this state cannot send another message and hence skip it.
-            isSendingSucceeded = true;
+            sendingResult = CompletableFuture.completedFuture(true);
             log.info("Skipped sending start message");
         }
 
-        if (isSendingSucceeded) {
-            updateUserStatusToThis(user);
-        } else {
-            // if sending LINE reply message failed, throws an exception.
-            String errorMessage
-            = messageSource.getMessage(
-                "error.replyMessageFailed.waitingStart", null, Locale.JAPAN
-            );
-            throw new RuntimeException(errorMessage); 
-        }
+        CompletableFuture<LineBotAgent> result
+         = sendingResult.thenApply(isSendingSucceeded -> {
+            if (isSendingSucceeded) {
+                updateUserStatusToThis(quizBotContext, user);
+            } else {
+                // if sending LINE reply message failed, throws an exception.
+                String errorMessage
+                = messageSource.getMessage(
+                    "error.replyMessageFailed.waitingStart", null, Locale.JAPAN
+                );
+                throw new RuntimeException(errorMessage); 
+            }
+            return lineBotAgent;
+        });
 
         log.info("END: QuizBotWaitingStartState#entryAction");
-        return lineBotAgent;
+        return result;
     }
 
     /**
      * Sends a message to indicate how a user can start a quiz.
      * 
      * @param lineBotAgent an instance which provides LINE Bot messaging functionalities
-     * @return the result of the sending
+     * @return a future of the result of the sending
      */
-    private boolean sendQuizStartMessage(LineBotAgent lineBotAgent) {
+    private CompletableFuture<Boolean> sendQuizStartMessage(LineBotAgent lineBotAgent) {
         return lineBotAgent.replyMessage(botMessageGenerator.getQuizStartMessage());
     }
 
     /**
-     * Updates the quiz_status in the user table to this class state.
+     * Records an update of the quiz_status in the user table to this class state.
      * 
+     * @param quizBotContext an instance of context class which holds the write buffer
      * @param user an entity of a user to be updated
      */
-    private void updateUserStatusToThis(UserEntity user) {
-        userRepository.updateUserStatus(user.getId(), getStateName());
+    private void updateUserStatusToThis(QuizBotContext quizBotContext, UserEntity user) {
+        quizBotContext.getWriteBuffer().updateUserStatus(user.getId(), getStateName());
     }
 
     /**
      * Does nothing because this state does not transition automatically.
      */
     @Override
-    public void goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent) {
+    public CompletableFuture<Void> goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent) {
         // do nothing
+        return CompletableFuture.completedFuture(null);
     }
 
 }
@@ -2,6 +2,7 @@ package net.myapp.englishstudybot.domain.service.quiz.state;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
@@ -10,11 +11,11 @@ import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 import net.myapp.englishstudybot.domain.model.QuizStateName;
 import net.myapp.englishstudybot.domain.model.UserEntity;
-import net.myapp.englishstudybot.domain.repository.UserRepository;
 import net.myapp.englishstudybot.domain.service.bot.BotMessageGenerator;
 import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
 import net.myapp.englishstudybot.domain.service.quiz.QuizBotContext;
 import net.myapp.englishstudybot.domain.service.quiz.QuizGenerator;
+import net.myapp.englishstudybot.domain.service.quiz.QuizPrefetcher;
 
 /**
  * QuizBotWaitingTypeSelectState is an implementation of QuizBotState interface.
@@ -26,21 +27,21 @@ public class QuizBotWaitingTypeSelectState implements QuizBotState {
     private static final QuizStateName STATE_NAME = QuizStateName.WAITING_TYPE_SELECT;
 
     private final MessageSource messageSource;
-    private final UserRepository userRepository;
     private final BotMessageGenerator botMessageGenerator;
     private final QuizGenerator quizGenerator;
+    private final QuizPrefetcher quizPrefetcher;
     
     @Autowired
     QuizBotWaitingTypeSelectState(
         MessageSource messageSource,
-        UserRepository userRepository,
         BotMessageGenerator botMessageGenerator,
-        QuizGenerator quizGenerataor
+        QuizGenerator quizGenerataor,
+        QuizPrefetcher quizPrefetcher
     ) {
         this.messageSource = messageSource;
-        this.userRepository = userRepository;
         this.botMessageGenerator = botMessageGenerator;
         this.quizGenerator = quizGenerataor;
+        this.quizPrefetcher = quizPrefetcher;
     }
 
     /**
@@ -81,26 +82,36 @@ public class QuizBotWaitingTypeSelectState implements QuizBotState {
      * Performs the following entry actions.
      * - sending a message with quick reply messages to indicate selectable quiz types.
      * - if the sending succeeded, update the quiz_status in the user table.
+     * - after the update is written, prefetches quizzes for the user if not prefetched yet
+     *   so that the quiz is ready when the user selects a quiz type.
+     * The update is chained to the result of the sending so as not to block the caller thread.
      */
     @Override
-    public LineBotAgent entryAction(UserEntity user, LineBotAgent lineBotAgent) {
+    public CompletableFuture<LineBotAgent> entryAction(
+        QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent
+    ) {
         log.info("START: QuizBotWaitingTypeSelectState#entryAction");
 
-        boolean isSendingSucceeded = sendSelectableQuizTypesMessage(lineBotAgent);
+        CompletableFuture<Boolean> sendingResult = sendSelectableQuizTypesMessage(lineBotAgent);
         lineBotAgent.setReplyTokenNullAfterReply();
-        if (isSendingSucceeded) {
-            updateUserStatusToThis(user);
-        } else {
-            // if sending LINE reply message failed, throws an exception.
-            String errorMessage
-             = messageSource.getMessage(
-                "error.replyMessageFailed.waitingTypeSelect", null, Locale.JAPAN
-            );
-            throw new RuntimeException(errorMessage); 
-        }
+        CompletableFuture<LineBotAgent> result
+         = sendingResult.thenApply(isSendingSucceeded -> {
+            if (isSendingSucceeded) {
+                updateUserStatusToThis(quizBotContext, user);
+                quizBotContext.getWriteBuffer().runAfterFlush(() -> quizPrefetcher.refill(user));
+            } else {
+                // if sending LINE reply message failed, throws an exception.
+                String errorMessage
+                 = messageSource.getMessage(
+                    "error.replyMessageFailed.waitingTypeSelect", null, Locale.JAPAN
+                );
+                throw new RuntimeException(errorMessage); 
+            }
+            return lineBotAgent;
+        });
 
         log.info("END: QuizBotWaitingTypeSelectState#entryAction");
-        return lineBotAgent;
+        return result;
     }
 
     /**
@@ -109,9 +120,9 @@ public class QuizBotWaitingTypeSelectState implements QuizBotState {
      * selectable quiz types are indicated by quick reply messages.
      * 
      * @param lineBotAgent an instance which provides LINE Bot messaging functionalities
-     * @return the result of the sending
+     * @return a future of the result of the sending
      */
-    private boolean sendSelectableQuizTypesMessage(LineBotAgent lineBotAgent) {
+    private CompletableFuture<Boolean> sendSelectableQuizTypesMessage(LineBotAgent lineBotAgent) {
         String message = botMessageGenerator.getTypeSelectMessage();
         List<String> quickReplyItems = quizGenerator.getSelectableQuizTypes();
 
@@ -119,20 +130,22 @@ public class QuizBotWaitingTypeSelectState implements QuizBotState {
     }
 
     /**
-     * Updates the quiz_status in the user table to this class state.
+     * Records an update of the quiz_status in the user table to this class state.
      * 
+     * @param quizBotContext an instance of context class which holds the write buffer
      * @param user an entity of a user to be updated
      */
-    private void updateUserStatusToThis(UserEntity user) {
-        userRepository.updateUserStatus(user.getId(), getStateName());
+    private void updateUserStatusToThis(QuizBotContext quizBotContext, UserEntity user) {
+        quizBotContext.getWriteBuffer().updateUserStatus(user.getId(), getStateName());
     }
     
     /**
      * Does nothing because this state does not transition automatically.
      */
     @Override
-    public void goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent) {
+    public CompletableFuture<Void> goNextAutomatically(QuizBotContext quizBotContext, UserEntity user, LineBotAgent lineBotAgent) {
         //do nothing
+        return CompletableFuture.completedFuture(null);
     }
 
 }
@@ -34,12 +34,14 @@ public class UserServiceImpl implements UserService{
         user.setQuizStatus(QuizStateName.WAITING_START.getCode());
         userRepository.add(user);
 
-        boolean isReplySucceeded;
-        isReplySucceeded = lineBotAgent.replyMessage(botMessageGenerator.getWelcomeMessage());
-
-        if (! isReplySucceeded) {
-            log.error("Sending welcome message failed.");
-        }
+        // the result of the sending is checked asynchronously so as not to block the caller thread.
+        lineBotAgent.replyMessage(botMessageGenerator.getWelcomeMessage())
+            .exceptionally(e -> false)
+            .thenAccept(isReplySucceeded -> {
+                if (! isReplySucceeded) {
+                    log.error("Sending welcome message failed.");
+                }
+            });
         log.info("END: UserServiceImpl#addUser");
     }
 
@@ -1,8 +1,12 @@
 package net.myapp.englishstudybot.domain.service.vocab;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import net.myapp.englishstudybot.domain.model.VocabEntity;
+import net.myapp.englishstudybot.domain.model.vocab.VocabImportResultDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabPageDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabUpdateResultDto;
 
 /**
  * VocabService is a service interface which provides CRUD methods for vocabularies table.
@@ -18,6 +22,22 @@ public interface VocabService {
      */
     public List<VocabEntity> getAllVocabs();
 
+    /**
+     * Provides reading operation to extract one page of records ordered by id.
+     * 
+     * @param afterId the cursor, which is the last id of the previous page (null for the first page)
+     * @param pageSize the maximum number of records in the page
+     * @return a page of vocabulary records with the cursor of the next page
+     */
+    public VocabPageDto getVocabPage(Integer afterId, int pageSize);
+
+    /**
+     * Provides reading operation to extract all records one by one (e.g. for streaming export).
+     * 
+     * @param action an action performed for each extracted record
+     */
+    public void exportAllVocabs(Consumer<VocabEntity> action);
+
     /**
      * Provides creating operation to insert one new record.
      * 
@@ -26,6 +46,15 @@ public interface VocabService {
      */
     public VocabEntity addVocab(VocabEntity vocab);
 
+    /**
+     * Provides creating operation to insert many new records at once.
+     * Records which cannot be inserted (e.g. duplicates) are skipped and reported.
+     * 
+     * @param vocabs new vocabulary records to be inserted
+     * @return the numbers of records and the skipped records with their reasons
+     */
+    public VocabImportResultDto importVocabs(List<VocabEntity> vocabs);
+
     /**
      * Provides deleting operation to delete one specified record.
      * 
@@ -41,4 +70,24 @@ public interface VocabService {
      */
     public VocabEntity update(VocabEntity vocab);
 
+    /**
+     * Provides deleting operation to delete records matching a filter at once.
+     * 
+     * @param ids the primary keys of the records to be deleted (null for any)
+     * @param usersId ID of the user who registered the records to be deleted (null for any)
+     * @return IDs of the deleted records
+     */
+    public List<Integer> deleteVocabs(List<Integer> ids, String usersId);
+
+    /**
+     * Provides updating operation to update records at once.
+     * Invalid records are not updated and reported with their reasons.
+     * 
+     * @param vocabs vocabulary records with the primary keys and updated column values
+     * @return the result of the update with the records not updated
+     * @throws org.springframework.dao.DuplicateKeyException
+     *  if a record is updated to the same spelling as another record of the same user (nothing is updated)
+     */
+    public VocabUpdateResultDto updateVocabs(List<VocabEntity> vocabs);
+
 }
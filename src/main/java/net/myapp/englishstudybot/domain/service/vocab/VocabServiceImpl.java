@@ -1,13 +1,27 @@
 package net.myapp.englishstudybot.domain.service.vocab;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import net.myapp.englishstudybot.domain.model.VocabEntity;
+import net.myapp.englishstudybot.domain.model.vocab.VocabImportErrorDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabImportResultDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabPageDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabUpdateErrorDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabUpdateResultDto;
+import net.myapp.englishstudybot.domain.repository.UserRepository;
 import net.myapp.englishstudybot.domain.repository.VocabRepository;
+import net.myapp.englishstudybot.domain.service.quiz.QuizPrefetcher;
 
 /**
  * VocabServiceImpl is a service class which implements VocabService interface
@@ -16,15 +30,34 @@ import net.myapp.englishstudybot.domain.repository.VocabRepository;
  * NOTE:
  * Non-specified argument values for CU operation should be supplemented here, 
  * not in controller class (e.g. createdAt, updatedAt, etc.).
+ * VocabRepository is implemented by VocabCache,
+ * which invalidates only the cached vocabulary changed by CUD operations here.
+ * Quizzes prefetched by QuizPrefetcher are discarded when vocabularies are updated or deleted.
  * 
  */
 @Service
 public class VocabServiceImpl implements VocabService {
+
+    // the maximum lengths of columns defined in vocabularies table
+    private static final int MAX_LENGTH_SPELLING = 30;
+    private static final int MAX_LENGTH_MEANING = 50;
+    private static final int MAX_LENGTH_EXAMPLE_EN = 70;
+    private static final int MAX_LENGTH_EXAMPLE_JP = 50;
+    private static final int MAX_LENGTH_USERS_ID = 40;
+
     private final VocabRepository vocabRepository;
+    private final UserRepository userRepository;
+    private final QuizPrefetcher quizPrefetcher;
 
     @Autowired
-    VocabServiceImpl(VocabRepository vocabRepository) {
+    VocabServiceImpl(
+        VocabRepository vocabRepository,
+        UserRepository userRepository,
+        QuizPrefetcher quizPrefetcher
+    ) {
         this.vocabRepository = vocabRepository;
+        this.userRepository = userRepository;
+        this.quizPrefetcher = quizPrefetcher;
     }
 
     /**
@@ -35,6 +68,29 @@ public class VocabServiceImpl implements VocabService {
         return vocabRepository.findAll();
     }
 
+    /**
+     * Uses a reading method to extract one page of vocabularies data.
+     * One more record than the page size is extracted to know whether the next page exists.
+     */
+    @Override
+    public VocabPageDto getVocabPage(Integer afterId, int pageSize) {
+        List<VocabEntity> vocabs = vocabRepository.findPage(afterId, pageSize + 1);
+        Integer nextCursor = null;
+        if (vocabs.size() > pageSize) {
+            vocabs = vocabs.subList(0, pageSize);
+            nextCursor = vocabs.get(pageSize - 1).getId();
+        }
+        return new VocabPageDto(vocabs, nextCursor);
+    }
+
+    /**
+     * Uses a reading method to extract all vocabularies data one by one.
+     */
+    @Override
+    public void exportAllVocabs(Consumer<VocabEntity> action) {
+        vocabRepository.forEachVocab(action);
+    }
+
     /**
      * Uses a creating method to insert one new record.
      * Non-specified argument values are assigned here as follows:
@@ -44,22 +100,118 @@ public class VocabServiceImpl implements VocabService {
      */
     @Override
     public VocabEntity addVocab(VocabEntity vocab) {
-        if (vocab.getExampleEn() == null ) vocab.setExampleEn("");
-        if (vocab.getExampleJp() == null ) vocab.setExampleJp("");
-        if (vocab.getUsersId() == null) vocab.setUsersId("admin");
-
-        vocab.setCreatedAt(LocalDateTime.now());
-        vocab.setUpdatedAt(LocalDateTime.now());
+        supplementNewVocab(vocab);
 
         return vocabRepository.add(vocab);
     }
 
+    /**
+     * Uses a creating method to insert many new records at once.
+     * Non-specified argument values are assigned in the same way as addVocab.
+     * Records violating the constraints of vocabularies table are not inserted
+     * and reported with their reasons as follows:
+     * - an empty spelling or meaning, or a too long column value (checked here)
+     * - the same spelling and usersId as an existing record or a preceding record (checked by DB)
+     * - a usersId which does not exist in users table (skipped by DB, and checked here for the reason)
+     * 
+     * NOTE:
+     * Since the records are inserted with ON CONFLICT DO NOTHING,
+     * the inserted records are matched with the argument by their spelling and usersId.
+     */
+    @Override
+    public VocabImportResultDto importVocabs(List<VocabEntity> vocabs) {
+        List<VocabImportErrorDto> errors = new ArrayList<>();
+        List<VocabEntity> validVocabs = new ArrayList<>();
+        List<Integer> validRows = new ArrayList<>();
+        for (int i = 0; i < vocabs.size(); i++) {
+            VocabEntity vocab = vocabs.get(i);
+            supplementNewVocab(vocab);
+            String invalidReason = validateNewVocab(vocab);
+            if (invalidReason != null) {
+                errors.add(new VocabImportErrorDto(i + 1, vocab.getSpelling(), invalidReason));
+            } else {
+                validVocabs.add(vocab);
+                validRows.add(i + 1);
+            }
+        }
+
+        Map<List<String>, VocabEntity> addedVocabs = new HashMap<>();
+        vocabRepository.addAll(validVocabs).forEach(
+            vocab -> addedVocabs.put(List.of(vocab.getSpelling(), vocab.getUsersId()), vocab)
+        );
+        // whether each user of the records not imported exists, looked up once per user
+        Map<String, Boolean> userExistences = new HashMap<>();
+        for (int i = 0; i < validVocabs.size(); i++) {
+            VocabEntity vocab = validVocabs.get(i);
+            // the first record with the same key is the inserted one
+            VocabEntity addedVocab
+             = addedVocabs.remove(List.of(vocab.getSpelling(), vocab.getUsersId()));
+            if (addedVocab != null) {
+                vocab.setId(addedVocab.getId());
+                continue;
+            }
+            boolean userExists
+             = userExistences.computeIfAbsent(
+                vocab.getUsersId(), usersId -> userRepository.findById(usersId) != null
+            );
+            String reason = userExists ? "duplicated" : "usersId does not exist";
+            errors.add(new VocabImportErrorDto(validRows.get(i), vocab.getSpelling(), reason));
+        }
+        errors.sort(Comparator.comparingInt(VocabImportErrorDto::getRow));
+
+        return new VocabImportResultDto(vocabs.size(), vocabs.size() - errors.size(), errors);
+    }
+
+    /**
+     * Uses a deleting method to delete records matching a filter at once.
+     */
+    @Override
+    public List<Integer> deleteVocabs(List<Integer> ids, String usersId) {
+        List<Integer> deletedIds = vocabRepository.deleteAll(ids, usersId);
+        quizPrefetcher.invalidateAll();
+        return deletedIds;
+    }
+
+    /**
+     * Uses an updating method to update records at once.
+     * Unlike update, records are not extracted here
+     * because columns specified as null are kept as they are in DB.
+     * In addition, Updated time is assigned here.
+     * Records which are not updated are reported with their reasons as follows:
+     * - no id, an empty spelling or meaning, or a too long column value (checked here)
+     * - an id which does not exist (checked by DB)
+     */
+    @Override
+    public VocabUpdateResultDto updateVocabs(List<VocabEntity> vocabs) {
+        LocalDateTime updatedAt = LocalDateTime.now();
+        List<VocabUpdateErrorDto> errors = new ArrayList<>();
+        List<VocabEntity> validVocabs = new ArrayList<>();
+        for (VocabEntity vocab : vocabs) {
+            String invalidReason = validateVocabPatch(vocab);
+            if (invalidReason != null) {
+                errors.add(new VocabUpdateErrorDto(vocab.getId(), invalidReason));
+            } else {
+                vocab.setUpdatedAt(updatedAt);
+                validVocabs.add(vocab);
+            }
+        }
+
+        Set<Integer> updatedIds = new HashSet<>(vocabRepository.updateAll(validVocabs));
+        validVocabs.stream()
+            .filter(vocab -> ! updatedIds.contains(vocab.getId()))
+            .forEach(vocab -> errors.add(new VocabUpdateErrorDto(vocab.getId(), "not found")));
+        quizPrefetcher.invalidateAll();
+
+        return new VocabUpdateResultDto(vocabs.size(), vocabs.size() - errors.size(), errors);
+    }
+
     /**
      * Uses a deleting method to delete one specified record.
      */
     @Override
     public void deleteVocab(Integer id) {
         vocabRepository.delete(id);
+        quizPrefetcher.invalidateAll();
     }
 
     /**
@@ -78,8 +230,65 @@ public class VocabServiceImpl implements VocabService {
         newVocab.setUpdatedAt(LocalDateTime.now());
 
         vocabRepository.update(newVocab);
+        quizPrefetcher.invalidateAll();
         
         return newVocab;
     }
-    
+
+    /**
+     * Supplements non-specified values of a new record.
+     * 
+     * @param vocab a new vocabulary record
+     */
+    private void supplementNewVocab(VocabEntity vocab) {
+        if (vocab.getExampleEn() == null ) vocab.setExampleEn("");
+        if (vocab.getExampleJp() == null ) vocab.setExampleJp("");
+        if (vocab.getUsersId() == null) vocab.setUsersId("admin");
+
+        vocab.setCreatedAt(LocalDateTime.now());
+        vocab.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Validates a new record against the column definitions of vocabularies table.
+     * 
+     * @param vocab a new vocabulary record supplemented by supplementNewVocab
+     * @return the reason why the record is invalid, or null if valid
+     */
+    private String validateNewVocab(VocabEntity vocab) {
+        if (vocab.getSpelling() == null || vocab.getSpelling().isEmpty()) return "spelling is empty";
+        if (vocab.getMeaning() == null || vocab.getMeaning().isEmpty()) return "meaning is empty";
+        if (isTooLong(vocab.getSpelling(), MAX_LENGTH_SPELLING)) return "spelling is too long";
+        if (isTooLong(vocab.getMeaning(), MAX_LENGTH_MEANING)) return "meaning is too long";
+        if (isTooLong(vocab.getExampleEn(), MAX_LENGTH_EXAMPLE_EN)) return "exampleEn is too long";
+        if (isTooLong(vocab.getExampleJp(), MAX_LENGTH_EXAMPLE_JP)) return "exampleJp is too long";
+        if (isTooLong(vocab.getUsersId(), MAX_LENGTH_USERS_ID)) return "usersId is too long";
+        return null;
+    }
+
+    /**
+     * Validates the specified columns of a record to be updated
+     * against the column definitions of vocabularies table.
+     * Columns not specified (null) are not validated because they are not updated.
+     * 
+     * @param vocab a vocabulary record with the primary key and updated column values
+     * @return the reason why the record is invalid, or null if valid
+     */
+    private String validateVocabPatch(VocabEntity vocab) {
+        if (vocab.getId() == null) return "id is empty";
+        if (vocab.getSpelling() != null && vocab.getSpelling().isEmpty()) return "spelling is empty";
+        if (vocab.getMeaning() != null && vocab.getMeaning().isEmpty()) return "meaning is empty";
+        if (isTooLong(vocab.getSpelling(), MAX_LENGTH_SPELLING)) return "spelling is too long";
+        if (isTooLong(vocab.getMeaning(), MAX_LENGTH_MEANING)) return "meaning is too long";
+        if (isTooLong(vocab.getExampleEn(), MAX_LENGTH_EXAMPLE_EN)) return "exampleEn is too long";
+        if (isTooLong(vocab.getExampleJp(), MAX_LENGTH_EXAMPLE_JP)) return "exampleJp is too long";
+        return null;
+    }
+
+    // VARCHAR(n) of PostgreSQL limits the number of characters (not UTF-16 units)
+    // a value not specified (null) is never too long
+    private boolean isTooLong(String value, int maxLength) {
+        return value != null && value.codePointCount(0, value.length()) > maxLength;
+    }
+
 }
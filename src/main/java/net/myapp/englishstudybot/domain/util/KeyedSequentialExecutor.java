@@ -0,0 +1,126 @@
+package net.myapp.englishstudybot.domain.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * KeyedSequentialExecutor is a class which runs tasks with the same key strictly in the submitted order,
+ * and tasks with different keys in parallel on a delegate executor.
+ *
+ * A task may be asynchronous (i.e. returns a future),
+ * and the next task with the same key starts after the future completes.
+ * Tasks are chained per key without any global lock:
+ * each submission atomically replaces the last task of the key and is chained to the replaced one.
+ *
+ * NOTE:
+ * A failure of a task (including an Error or a rejection by the executor)
+ * does not stop the following tasks with the same key.
+ * The last task of each key is kept only until it completes,
+ * and hence the memory usage depends only on the number of keys with pending tasks.
+ *
+ * @param <K> the type of keys (e.g. a user ID)
+ */
+public class KeyedSequentialExecutor<K> {
+
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    private final Executor executor;
+    // the last task of each key, which never completes exceptionally
+    private final ConcurrentHashMap<K, CompletableFuture<Void>> lastTasks = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an instance which runs tasks on a delegate executor.
+     *
+     * @param executor an executor on which tasks run (e.g. Runnable::run to run on the calling thread
+     * if no tasks with the same key are pending)
+     */
+    public KeyedSequentialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Submits a task which runs after all tasks submitted before with the same key complete.
+     *
+     * @param key a key of the task
+     * @param task a task which returns a future of its completion
+     * @return a future which completes with the result of the task
+     */
+    public <T> CompletableFuture<T> submit(K key, Supplier<? extends CompletionStage<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<Void> current = new CompletableFuture<>();
+        CompletableFuture<Void> previous = lastTasks.put(key, current);
+        current.whenComplete((ignored, e) -> lastTasks.remove(key, current));
+
+        (previous == null ? COMPLETED : previous)
+            .whenCompleteAsync((ignored, e) -> runTask(task, current, result), executor)
+            .whenComplete((ignored, e) -> {
+                // the task was not run (e.g. rejected by the executor after its shutdown)
+                if (e != null) {
+                    current.complete(null);
+                    result.completeExceptionally(e);
+                }
+            });
+
+        return result;
+    }
+
+    /**
+     * Submits a synchronous task which runs after all tasks submitted before with the same key complete.
+     *
+     * @param key a key of the task
+     * @param task a task
+     * @return a future which completes after the task is done
+     */
+    public CompletableFuture<Void> execute(K key, Runnable task) {
+        return submit(key, () -> {
+            task.run();
+            return COMPLETED;
+        });
+    }
+
+    /**
+     * Runs a task and completes the futures of the task after its returned future completes.
+     * Any throwable (including an Error) thrown by the task completes them at once
+     * so that the following tasks with the same key are never blocked.
+     *
+     * @param task a task which returns a future of its completion
+     * @param current a future of the task in the chain of its key
+     * @param result a future of the result returned to the submitter
+     */
+    private static <T> void runTask(
+        Supplier<? extends CompletionStage<T>> task, CompletableFuture<Void> current, CompletableFuture<T> result
+    ) {
+        CompletionStage<T> stage;
+        try {
+            stage = task.get();
+        } catch (Throwable error) {
+            current.complete(null);
+            result.completeExceptionally(error);
+            return;
+        }
+        // a null stage throws here and is handled in the same way as a rejected task
+        stage.whenComplete((value, error) -> {
+            current.complete(null);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Gets a future which completes after all tasks submitted before with a key complete.
+     *
+     * @param key a key of tasks
+     * @return a future which never completes exceptionally
+     */
+    public CompletableFuture<Void> awaitKey(K key) {
+        CompletableFuture<Void> last = lastTasks.get(key);
+        return (last == null) ? COMPLETED : last;
+    }
+
+}
@@ -0,0 +1,9 @@
+/**************************/
+/* Index File */
+/**************************/
+
+/* index for setting users.last_vocabularies_id to null when vocabularies are deleted */
+CREATE INDEX IF NOT EXISTS users_last_vocabularies_id_idx ON users (last_vocabularies_id);
+
+/* index for deleting vocabularies registered by a user */
+CREATE INDEX IF NOT EXISTS vocabularies_users_id_idx ON vocabularies (users_id);
@@ -0,0 +1,26 @@
+/**************************/
+/* Schema File */
+/**************************/
+
+/* spaced repetition schedule of each vocabulary for each user and each question type */
+CREATE TABLE IF NOT EXISTS quiz_schedules (
+    vocabularies_id INT,
+    users_id VARCHAR(40),
+    is_jp_question_quiz BOOLEAN,
+    repetitions INT NOT NULL DEFAULT 0,
+    interval_days INT NOT NULL DEFAULT 0,
+    ease_factor DOUBLE PRECISION NOT NULL DEFAULT 2.5,
+    due_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (vocabularies_id, users_id, is_jp_question_quiz)
+);
+
+ALTER TABLE quiz_schedules
+    ADD FOREIGN KEY (vocabularies_id) REFERENCES vocabularies(id) ON DELETE CASCADE,
+    ADD FOREIGN KEY (users_id) REFERENCES users(id) ON DELETE CASCADE
+;
+
+/* index for seeking the earliest due vocabulary of a user for each question type */
+CREATE INDEX IF NOT EXISTS quiz_schedules_users_id_due_at_idx
+    ON quiz_schedules (users_id, is_jp_question_quiz, due_at);
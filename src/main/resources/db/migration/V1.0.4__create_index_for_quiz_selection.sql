@@ -0,0 +1,42 @@
+/**************************/
+/* Index File */
+/**************************/
+
+/*
+ * indexes for the selection queries of QuizAggregationDao, created for each question type (en/jp).
+ * The primary key (vocabularies_id, users_id) cannot serve "WHERE users_id = ?".
+ */
+
+/* findLeastRecentGivenVocab: MIN(last_question_datetime_x) and the equality lookup for a user */
+CREATE INDEX IF NOT EXISTS quiz_aggregations_users_id_last_question_datetime_en_idx
+    ON quiz_aggregations (users_id, last_question_datetime_en);
+CREATE INDEX IF NOT EXISTS quiz_aggregations_users_id_last_question_datetime_jp_idx
+    ON quiz_aggregations (users_id, last_question_datetime_jp);
+
+/* extractOrderedByIncorrectionRatio: the correction ratio computed in the query for a user */
+CREATE INDEX IF NOT EXISTS quiz_aggregations_users_id_ratio_en_idx
+    ON quiz_aggregations (
+        users_id,
+        CAST(
+            COALESCE(
+                CAST(total_count_correct_en * 100 AS NUMERIC) / NULLIF(total_count_question_en, 0)
+                , 0
+            ) AS DOUBLE PRECISION
+        )
+    );
+CREATE INDEX IF NOT EXISTS quiz_aggregations_users_id_ratio_jp_idx
+    ON quiz_aggregations (
+        users_id,
+        CAST(
+            COALESCE(
+                CAST(total_count_correct_jp * 100 AS NUMERIC) / NULLIF(total_count_question_jp, 0)
+                , 0
+            ) AS DOUBLE PRECISION
+        )
+    );
+
+/* findLastIncorrectVocabs: only the records whose last answer is incorrect for a user */
+CREATE INDEX IF NOT EXISTS quiz_aggregations_users_id_last_incorrect_en_idx
+    ON quiz_aggregations (users_id, vocabularies_id) WHERE is_last_answer_correct_en = false;
+CREATE INDEX IF NOT EXISTS quiz_aggregations_users_id_last_incorrect_jp_idx
+    ON quiz_aggregations (users_id, vocabularies_id) WHERE is_last_answer_correct_jp = false;
@@ -0,0 +1,16 @@
+/**************************/
+/* Schema File */
+/**************************/
+
+/* message events received by the webhook and not completed yet (deleted after processed) */
+CREATE TABLE IF NOT EXISTS webhook_outbox (
+    event_id VARCHAR(64) PRIMARY KEY,
+    users_id VARCHAR(40) NOT NULL,
+    reply_token VARCHAR(255) NOT NULL,
+    message TEXT NOT NULL,
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+/* index for replaying unfinished events in the received order */
+CREATE INDEX IF NOT EXISTS webhook_outbox_received_at_idx
+    ON webhook_outbox (received_at);
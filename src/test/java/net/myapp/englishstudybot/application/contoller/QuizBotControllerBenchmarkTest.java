@@ -0,0 +1,196 @@
+package net.myapp.englishstudybot.application.contoller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import com.linecorp.bot.client.LineMessagingClient;
+import com.linecorp.bot.model.ReplyMessage;
+import com.linecorp.bot.model.event.MessageEvent;
+import com.linecorp.bot.model.event.message.TextMessageContent;
+import com.linecorp.bot.model.event.source.Source;
+import com.linecorp.bot.model.response.BotApiResponse;
+
+import lombok.extern.slf4j.Slf4j;
+import net.myapp.englishstudybot.application.webhook.WebhookEventDeduplicator;
+import net.myapp.englishstudybot.application.webhook.WebhookEventDispatcher;
+import net.myapp.englishstudybot.application.webhook.WebhookOutbox;
+import net.myapp.englishstudybot.domain.model.QuizStateName;
+import net.myapp.englishstudybot.domain.model.UserEntity;
+import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
+import net.myapp.englishstudybot.domain.repository.UserRepository;
+import net.myapp.englishstudybot.domain.repository.WebhookOutboxRepository;
+import net.myapp.englishstudybot.domain.service.quiz.QuizService;
+import net.myapp.englishstudybot.domain.service.user.UserService;
+
+/**
+ * QuizBotControllerBenchmarkTest is a load benchmark of QuizBotController
+ * which compares the platform-thread mode and the virtual-thread mode of WebhookEventDispatcher.
+ *
+ * NOTE:
+ * This benchmark is disabled by default and run only when the system property is set as follows:
+ *   mvn test -Dtest=QuizBotControllerBenchmarkTest -Dbenchmark=true
+ * The LINE reply endpoint and DB accesses are replaced with local stubs
+ * which block the calling thread for a fixed latency.
+ * Virtual threads are used only when the tests run on Java SE 21 or later.
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class QuizBotControllerBenchmarkTest {
+
+    private static final int EVENT_NUM = 5000;
+    private static final int PLATFORM_POOL_SIZE = 200;
+    private static final long REPLY_LATENCY_MILLIS = 50;
+    private static final long DB_LATENCY_MILLIS = 5;
+
+    @MockBean
+    private LineMessagingClient lineMessagingClient;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private QuizAggregationRepository quizAggregationRepository;
+
+    @MockBean
+    private WebhookOutboxRepository webhookOutboxRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private WebhookOutbox webhookOutbox;
+
+    @Autowired
+    private WebhookEventDeduplicator webhookEventDeduplicator;
+
+    // the time when each event was received by the controller
+    private final Map<String, Long> receivedTimes = new ConcurrentHashMap<>();
+    // the latencies from receiving each event to finishing all actions for it
+    private final List<Long> latencies = new ArrayList<>();
+
+    @Test
+    @DisplayName("プラットフォームスレッドと仮想スレッドのスループットとp99レイテンシを比較")
+    void compareExecutionModes() throws Exception {
+        //Arrange
+        setUpStubs();
+        List<MessageEvent<TextMessageContent>> events = createEvents();
+
+        //Act
+        long[] platformResult = runBenchmark("platform", events);
+        long[] virtualResult = runBenchmark("virtual", events);
+
+        //Assert
+        log.info("platform mode: {} events/s, p99 {} ms", platformResult[0], platformResult[1]);
+        log.info("virtual mode: {} events/s, p99 {} ms", virtualResult[0], virtualResult[1]);
+        assertThat(platformResult[0]).isPositive();
+        assertThat(virtualResult[0]).isPositive();
+    }
+
+    /**
+     * Runs all events through a controller with a specified execution mode.
+     *
+     * @param executionMode an execution mode of WebhookEventDispatcher
+     * @param events events sent to the controller
+     * @return an array of the throughput (events/s) and the p99 latency (ms)
+     */
+    private long[] runBenchmark(
+        String executionMode,
+        List<MessageEvent<TextMessageContent>> events
+    ) throws InterruptedException {
+        WebhookEventDispatcher dispatcher
+         = new WebhookEventDispatcher(executionMode, PLATFORM_POOL_SIZE, EVENT_NUM, "reject", 0);
+        QuizBotController controller
+         = new QuizBotController(
+            lineMessagingClient, userService, quizService, dispatcher, webhookOutbox, webhookEventDeduplicator
+        );
+        CountDownLatch finishedSignal = new CountDownLatch(events.size());
+        latencies.clear();
+        doAnswer(invocation -> {
+            long latency = System.nanoTime() - receivedTimes.get(invocation.getArgument(0));
+            synchronized (latencies) {
+                latencies.add(latency);
+            }
+            finishedSignal.countDown();
+            return null;
+        }).when(userRepository).updateUserStatus(anyString(), any(QuizStateName.class));
+
+        long startTime = System.nanoTime();
+        for (MessageEvent<TextMessageContent> event : events) {
+            receivedTimes.put(event.getSource().getUserId(), System.nanoTime());
+            controller.handleTextMessageEvent(event);
+        }
+        assertThat(finishedSignal.await(5, TimeUnit.MINUTES)).isTrue();
+        long elapsedTime = System.nanoTime() - startTime;
+        dispatcher.shutdown();
+
+        long[] sortedLatencies;
+        synchronized (latencies) {
+            sortedLatencies = latencies.stream().mapToLong(Long::longValue).toArray();
+        }
+        Arrays.sort(sortedLatencies);
+        long p99Latency = sortedLatencies[(int) Math.ceil(sortedLatencies.length * 0.99) - 1];
+        log.info("mode: {} (requested: {})", dispatcher.getExecutionMode(), executionMode);
+        return new long[] {
+            events.size() * TimeUnit.SECONDS.toNanos(1) / elapsedTime,
+            TimeUnit.NANOSECONDS.toMillis(p99Latency)
+        };
+    }
+
+    // stubs the LINE reply endpoint and DB accesses with blocking calls
+    private void setUpStubs() {
+        BotApiResponse apiResponse = mock(BotApiResponse.class);
+        doAnswer(invocation -> {
+            Thread.sleep(REPLY_LATENCY_MILLIS);
+            return CompletableFuture.completedFuture(apiResponse);
+        }).when(lineMessagingClient).replyMessage(any(ReplyMessage.class));
+        doAnswer(invocation -> {
+            Thread.sleep(DB_LATENCY_MILLIS);
+            UserEntity user = new UserEntity(invocation.getArgument(0));
+            user.setQuizStatus(QuizStateName.WAITING_START.getCode());
+            return user;
+        }).when(userRepository).findById(anyString());
+    }
+
+    // creates events of different users, each of which stays in the WAITING_START state
+    @SuppressWarnings("unchecked")
+    private List<MessageEvent<TextMessageContent>> createEvents() {
+        List<MessageEvent<TextMessageContent>> events = new ArrayList<>(EVENT_NUM);
+        for (int i = 0; i < EVENT_NUM; i++) {
+            Source source = mock(Source.class);
+            doReturn("benchmarkUser" + i).when(source).getUserId();
+            TextMessageContent message = mock(TextMessageContent.class);
+            doReturn("hello").when(message).getText();
+            MessageEvent<TextMessageContent> event = mock(MessageEvent.class);
+            doReturn("replyToken" + i).when(event).getReplyToken();
+            doReturn(source).when(event).getSource();
+            doReturn(message).when(event).getMessage();
+            events.add(event);
+        }
+        return events;
+    }
+
+}
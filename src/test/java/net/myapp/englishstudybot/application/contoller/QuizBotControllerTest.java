@@ -0,0 +1,153 @@
+package net.myapp.englishstudybot.application.contoller;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.bot.client.LineMessagingClient;
+import com.linecorp.bot.model.event.MessageEvent;
+import com.linecorp.bot.model.event.message.TextMessageContent;
+import com.linecorp.bot.model.event.source.Source;
+
+import net.myapp.englishstudybot.application.webhook.WebhookEventDeduplicator;
+import net.myapp.englishstudybot.application.webhook.WebhookEventDispatcher;
+import net.myapp.englishstudybot.application.webhook.WebhookOutbox;
+import net.myapp.englishstudybot.domain.model.WebhookOutboxEntity;
+import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
+import net.myapp.englishstudybot.domain.service.quiz.QuizService;
+import net.myapp.englishstudybot.domain.service.user.UserService;
+
+class QuizBotControllerTest {
+
+    private static final String USER_ID = "testUserA";
+    private static final String EVENT_ID = "testEventA";
+
+    private QuizService quizService;
+    private WebhookEventDispatcher webhookEventDispatcher;
+    private WebhookOutbox webhookOutbox;
+    private QuizBotController quizBotController;
+
+    @BeforeEach
+    void setUpEach() {
+        quizService = mock(QuizService.class);
+        webhookEventDispatcher = mock(WebhookEventDispatcher.class);
+        webhookOutbox = mock(WebhookOutbox.class);
+        quizBotController
+         = new QuizBotController(
+            mock(LineMessagingClient.class),
+            mock(UserService.class),
+            quizService,
+            webhookEventDispatcher,
+            webhookOutbox,
+            new WebhookEventDeduplicator(10, 30)
+        );
+        doReturn(CompletableFuture.completedFuture(null))
+            .when(quizService).provideQuizService(any(LineBotAgent.class));
+    }
+
+    // setup method to run admitted handlers at once, or to reject them
+    private void setUpDispatcher(boolean isAdmitted) {
+        doAnswer(invocation -> {
+            if (isAdmitted) {
+                invocation.getArgument(1, Supplier.class).get();
+            }
+            return isAdmitted;
+        }).when(webhookEventDispatcher).dispatchAsyncInOrder(anyString(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageEvent<TextMessageContent> createEvent() {
+        Source source = mock(Source.class);
+        doReturn(USER_ID).when(source).getUserId();
+        TextMessageContent message = mock(TextMessageContent.class);
+        doReturn("hello").when(message).getText();
+        MessageEvent<TextMessageContent> event = mock(MessageEvent.class);
+        doReturn(EVENT_ID).when(event).getWebhookEventId();
+        doReturn("replyToken").when(event).getReplyToken();
+        doReturn(source).when(event).getSource();
+        doReturn(message).when(event).getMessage();
+        return event;
+    }
+
+    @Test
+    @DisplayName("再起動後に再実行したイベントが再送された場合は処理しない")
+    void dropRedeliveryOfReplayedEvent() {
+        //Arrange
+        setUpDispatcher(true);
+        doReturn(List.of(new WebhookOutboxEntity(EVENT_ID, USER_ID, "replyToken", "hello", LocalDateTime.now())))
+            .when(webhookOutbox).findReplayableEvents();
+
+        //Act
+        quizBotController.replayUnfinishedEvents();
+        quizBotController.handleTextMessageEvent(createEvent());
+
+        //Assert
+        verify(quizService, times(1)).provideQuizService(any(LineBotAgent.class));
+        verify(webhookOutbox, times(0)).append(any(WebhookOutboxEntity.class));
+    }
+
+    @Test
+    @DisplayName("再送を先に受信したイベントは再起動後に再実行しない")
+    void skipReplayOfRedeliveredEvent() {
+        //Arrange
+        setUpDispatcher(true);
+        doReturn(List.of(new WebhookOutboxEntity(EVENT_ID, USER_ID, "replyToken", "hello", LocalDateTime.now())))
+            .when(webhookOutbox).findReplayableEvents();
+
+        //Act
+        quizBotController.handleTextMessageEvent(createEvent());
+        quizBotController.replayUnfinishedEvents();
+
+        //Assert
+        verify(quizService, times(1)).provideQuizService(any(LineBotAgent.class));
+    }
+
+    @Test
+    @DisplayName("キューが満杯で受け付けなかったイベントは再送時に処理")
+    void handleRedeliveryOfRejectedEvent() {
+        //Arrange
+        setUpDispatcher(false);
+        quizBotController.handleTextMessageEvent(createEvent());
+        setUpDispatcher(true);
+
+        //Act
+        quizBotController.handleTextMessageEvent(createEvent());
+
+        //Assert
+        verify(webhookEventDispatcher, times(2)).dispatchAsyncInOrder(anyString(), any());
+        verify(quizService, times(1)).provideQuizService(any(LineBotAgent.class));
+    }
+
+    @Test
+    @DisplayName("永続化で例外となったイベントは再送時に処理")
+    void handleRedeliveryOfFailedEvent() {
+        //Arrange
+        setUpDispatcher(true);
+        doThrow(new IllegalStateException("test")).when(webhookOutbox).append(any(WebhookOutboxEntity.class));
+        assertThatThrownBy(() -> quizBotController.handleTextMessageEvent(createEvent()))
+            .isInstanceOf(IllegalStateException.class);
+        doReturn(true).when(webhookOutbox).append(any(WebhookOutboxEntity.class));
+
+        //Act
+        quizBotController.handleTextMessageEvent(createEvent());
+
+        //Assert
+        verify(quizService, times(1)).provideQuizService(any(LineBotAgent.class));
+    }
+
+}
@@ -0,0 +1,112 @@
+package net.myapp.englishstudybot.application.form;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class VocabCsvReaderTest {
+
+    @Test
+    @DisplayName("ヘッダーの列名の順で値を読み込み、空の値はnull")
+    void readByHeader() throws IOException {
+        //Arrange
+        String csv
+         = "usersId,spelling,example_en,meaning,unknown\n"
+         + "testUserA,apple,,りんご,x\n";
+
+        //Act
+        List<VocabForm> vocabForms = VocabCsvReader.read(new StringReader(csv));
+
+        //Assert
+        assertThat(vocabForms)
+            .extracting(
+                VocabForm::getSpelling, VocabForm::getMeaning,
+                VocabForm::getExampleEn, VocabForm::getExampleJp, VocabForm::getUsersId
+            )
+            .containsExactly(tuple("apple", "りんご", null, null, "testUserA"));
+    }
+
+    @Test
+    @DisplayName("ダブルクォートで囲まれた値のカンマ・改行・エスケープされたダブルクォートを読み込み")
+    void readQuotedFields() throws IOException {
+        //Arrange
+        String csv
+         = "spelling,meaning,exampleEn\n"
+         + "\"a, b\",\"1行目\n2行目\",\"He said \"\"hi\"\".\"\n";
+
+        //Act
+        List<VocabForm> vocabForms = VocabCsvReader.read(new StringReader(csv));
+
+        //Assert
+        assertThat(vocabForms)
+            .extracting(VocabForm::getSpelling, VocabForm::getMeaning, VocabForm::getExampleEn)
+            .containsExactly(tuple("a, b", "1行目\n2行目", "He said \"hi\"."));
+    }
+
+    @Test
+    @DisplayName("CRLFの改行とBOMを読み込み")
+    void readCrlfAndBom() throws IOException {
+        //Arrange
+        String csv
+         = "\uFEFFspelling,meaning\r\n"
+         + "apple,りんご\r\n"
+         + "\"pen\r\nholder\",ペン立て\r\n";
+
+        //Act
+        List<VocabForm> vocabForms = VocabCsvReader.read(new StringReader(csv));
+
+        //Assert
+        assertThat(vocabForms)
+            .extracting(VocabForm::getSpelling, VocabForm::getMeaning)
+            .containsExactly(tuple("apple", "りんご"), tuple("pen\r\nholder", "ペン立て"));
+    }
+
+    @Test
+    @DisplayName("空行を読み飛ばし、最終行に改行がなくても読み込み")
+    void skipEmptyLines() throws IOException {
+        //Arrange
+        String csv
+         = "spelling,meaning\n"
+         + "\n"
+         + "apple,りんご\n"
+         + "\r\n"
+         + "pen,ペン";
+
+        //Act
+        List<VocabForm> vocabForms = VocabCsvReader.read(new StringReader(csv));
+
+        //Assert
+        assertThat(vocabForms)
+            .extracting(VocabForm::getSpelling, VocabForm::getMeaning)
+            .containsExactly(tuple("apple", "りんご"), tuple("pen", "ペン"));
+    }
+
+    @Test
+    @DisplayName("閉じられていないダブルクォートは例外")
+    void failWithUnclosedQuote() {
+        //Arrange
+        String csv
+         = "spelling,meaning\n"
+         + "\"apple,りんご\n";
+
+        //Act and Assert
+        assertThatThrownBy(() -> VocabCsvReader.read(new StringReader(csv)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("ヘッダーがない場合は例外")
+    void failWithoutHeader() {
+        //Act and Assert
+        assertThatThrownBy(() -> VocabCsvReader.read(new StringReader("")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
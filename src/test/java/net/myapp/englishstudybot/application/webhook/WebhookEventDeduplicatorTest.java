@@ -0,0 +1,78 @@
+package net.myapp.englishstudybot.application.webhook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class WebhookEventDeduplicatorTest {
+
+    @Test
+    @DisplayName("受信済みのイベントIDは重複と判定し、重複率を集計")
+    void detectDuplicate() {
+        //Arrange
+        WebhookEventDeduplicator deduplicator = new WebhookEventDeduplicator(10, 30);
+
+        //Act
+        boolean isFirstDuplicate = deduplicator.isDuplicate("testEventA");
+        boolean isRedeliveryDuplicate = deduplicator.isDuplicate("testEventA");
+        boolean isOtherDuplicate = deduplicator.isDuplicate("testEventB");
+        boolean isNoIdDuplicate = deduplicator.isDuplicate(null);
+
+        //Assert
+        assertThat(isFirstDuplicate).isFalse();
+        assertThat(isRedeliveryDuplicate).isTrue();
+        assertThat(isOtherDuplicate).isFalse();
+        assertThat(isNoIdDuplicate).isFalse();
+        assertThat(deduplicator.getStats())
+            .usingRecursiveComparison().isEqualTo(new WebhookDedupStatsDto(2, 3, 1, 1.0 / 3));
+    }
+
+    @Test
+    @DisplayName("保持件数を超えた場合は最も古いイベントIDを破棄")
+    void discardEldestEventId() {
+        //Arrange
+        WebhookEventDeduplicator deduplicator = new WebhookEventDeduplicator(2, 30);
+        deduplicator.isDuplicate("testEventA");
+        deduplicator.isDuplicate("testEventB");
+        deduplicator.isDuplicate("testEventC");
+
+        //Act
+        boolean isEldestDuplicate = deduplicator.isDuplicate("testEventA");
+
+        //Assert
+        assertThat(isEldestDuplicate).isFalse();
+    }
+
+    @Test
+    @DisplayName("保持期間を過ぎたイベントIDは重複と判定しない")
+    void discardExpiredEventId() {
+        //Arrange
+        WebhookEventDeduplicator deduplicator = new WebhookEventDeduplicator(10, 0);
+        deduplicator.isDuplicate("testEventA");
+
+        //Act
+        boolean isExpiredDuplicate = deduplicator.isDuplicate("testEventA");
+
+        //Assert
+        assertThat(isExpiredDuplicate).isFalse();
+        assertThat(deduplicator.getStats().getKeptEventIdCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("処理しなかったイベントのIDは忘れて再送を重複と判定しない")
+    void forgetEventId() {
+        //Arrange
+        WebhookEventDeduplicator deduplicator = new WebhookEventDeduplicator(10, 30);
+        deduplicator.isDuplicate("testEventA");
+
+        //Act
+        deduplicator.forget("testEventA");
+        deduplicator.forget(null);
+        boolean isRedeliveryDuplicate = deduplicator.isDuplicate("testEventA");
+
+        //Assert
+        assertThat(isRedeliveryDuplicate).isFalse();
+    }
+
+}
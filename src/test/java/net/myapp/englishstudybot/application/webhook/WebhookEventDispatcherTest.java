@@ -0,0 +1,43 @@
+package net.myapp.englishstudybot.application.webhook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class WebhookEventDispatcherTest {
+
+    private final WebhookEventDispatcher dispatcher
+     = new WebhookEventDispatcher("platform", 2, 1, "reject", 0);
+
+    @AfterEach
+    void tearDownEach() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("キューが満杯の場合はイベントを破棄し、完了後は再び受付")
+    void rejectWhenQueueIsFull() {
+        //Arrange
+        CompletableFuture<Void> blockingHandler = new CompletableFuture<>();
+        dispatcher.dispatchAsyncInOrder("testUserA", () -> blockingHandler);
+
+        //Act
+        boolean isAdmittedWhenFull = dispatcher.dispatchInOrder("testUserB", () -> {});
+        WebhookStatsDto statsWhenFull = dispatcher.getStats();
+        blockingHandler.complete(null);
+        boolean isAdmittedAfterCompleted = dispatcher.dispatchInOrder("testUserB", () -> {});
+
+        //Assert
+        assertThat(isAdmittedWhenFull).isFalse();
+        assertThat(isAdmittedAfterCompleted).isTrue();
+        assertThat(statsWhenFull.getInFlightCount()).isEqualTo(1);
+        assertThat(statsWhenFull.getAcceptedCount()).isEqualTo(1);
+        assertThat(statsWhenFull.getRejectedCount()).isEqualTo(1);
+        assertThat(dispatcher.getStats().getPeakInFlightCount()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,128 @@
+package net.myapp.englishstudybot.application.webhook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import net.myapp.englishstudybot.domain.model.WebhookOutboxEntity;
+import net.myapp.englishstudybot.domain.repository.WebhookOutboxRepository;
+
+class WebhookOutboxTest {
+
+    private final WebhookOutboxRepository webhookOutboxRepository = mock(WebhookOutboxRepository.class);
+
+    private final WebhookOutbox webhookOutbox = new WebhookOutbox(webhookOutboxRepository, true, 100, 60);
+
+    // webhook threads which append events concurrently
+    private final ExecutorService webhookThreads = Executors.newFixedThreadPool(4);
+
+    @BeforeEach
+    void setUpEach() {
+        webhookOutbox.start();
+    }
+
+    @AfterEach
+    void tearDownEach() {
+        webhookThreads.shutdownNow();
+        webhookOutbox.shutdown();
+    }
+
+    @Test
+    @DisplayName("コミット中に記録されたイベントは次のコミットでまとめて反映")
+    void groupCommitAppends() throws Exception {
+        //Arrange
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch firstWriteReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstWriteStarted.countDown();
+            firstWriteReleased.await();
+            return null;
+        }).when(webhookOutboxRepository).write(List.of(createEvent(0)), List.of());
+
+        //Act
+        CompletableFuture<Boolean> firstAppend
+         = CompletableFuture.supplyAsync(() -> webhookOutbox.append(createEvent(0)), webhookThreads);
+        firstWriteStarted.await();
+        List<CompletableFuture<Boolean>> followingAppends
+         = IntStream.rangeClosed(1, 3)
+            .mapToObj(i -> CompletableFuture.supplyAsync(
+                () -> webhookOutbox.append(createEvent(i)), webhookThreads
+            ))
+            .toList();
+        // waits for the following appends to be queued while the first batch is being committed
+        Thread.sleep(200);
+        firstWriteReleased.countDown();
+
+        //Assert
+        assertThat(firstAppend.join()).isTrue();
+        assertThat(followingAppends).allMatch(CompletableFuture::join);
+        verify(webhookOutboxRepository, times(2)).write(anyList(), anyList());
+    }
+
+    @Test
+    @DisplayName("完了したイベントは非同期に削除")
+    void completeEvent() {
+        //Act
+        webhookOutbox.complete("testEvent0");
+
+        //Assert
+        verify(webhookOutboxRepository, timeout(1000)).write(List.of(), List.of("testEvent0"));
+    }
+
+    @Test
+    @DisplayName("削除に失敗した完了イベントは再試行")
+    void retryFailedCompletion() {
+        //Arrange
+        doThrow(new DataAccessResourceFailureException("test"))
+            .doNothing()
+            .when(webhookOutboxRepository).write(List.of(), List.of("testEvent0"));
+
+        //Act
+        webhookOutbox.complete("testEvent0");
+
+        //Assert
+        verify(webhookOutboxRepository, timeout(3000).times(2)).write(List.of(), List.of("testEvent0"));
+    }
+
+    @Test
+    @DisplayName("完了イベントの削除は指定回数失敗した場合に断念")
+    void giveUpFailedCompletion() throws Exception {
+        //Arrange
+        doThrow(new DataAccessResourceFailureException("test"))
+            .when(webhookOutboxRepository).write(List.of(), List.of("testEvent0"));
+
+        //Act
+        webhookOutbox.complete("testEvent0");
+
+        //Assert
+        verify(webhookOutboxRepository, timeout(5000).times(3)).write(List.of(), List.of("testEvent0"));
+        Thread.sleep(1500);
+        verify(webhookOutboxRepository, times(3)).write(List.of(), List.of("testEvent0"));
+    }
+
+    private WebhookOutboxEntity createEvent(int i) {
+        return new WebhookOutboxEntity(
+            "testEvent" + i, "testUserA1", "replyToken" + i, "ランダム", LocalDateTime.of(2022, 10, 5, 9, 0)
+        );
+    }
+
+}
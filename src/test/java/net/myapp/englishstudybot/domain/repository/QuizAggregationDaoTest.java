@@ -6,8 +6,14 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -21,6 +27,7 @@ import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
 import org.springframework.test.context.support.DirtiesContextTestExecutionListener;
 import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.github.springtestdbunit.DbUnitTestExecutionListener;
@@ -28,7 +35,9 @@ import com.github.springtestdbunit.annotation.DatabaseSetup;
 import com.github.springtestdbunit.annotation.DbUnitConfiguration;
 
 import net.myapp.englishstudybot.domain.model.QuizAggregationEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerDto;
 import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerRatioDto;
+import net.myapp.englishstudybot.domain.model.quiz.QuizGivenDto;
 
 @SpringBootTest
 @Transactional
@@ -187,71 +196,46 @@ class QuizAggregationDaoTest {
         assertThat(vocabIdActual).isNull();
     }
 
-    /* Test for extractOrderedByIncorrectionRatio method */
+    /* Test for findLowestIncorrectionRatio method */
     @Test
-    @DisplayName("正答率が低い順にデータ取得（和訳、正答率計算に0割なし）")
-    void extractOrderedByIncorrectionRatioEnQuiz() {
+    @DisplayName("正答率が低い順に指定件数のデータ取得（英訳、正答率が同じ場合は英単語ID順）")
+    void findLowestIncorrectionRatioJpQuiz() {
         String userId = "testUserA3";
-        Boolean isJpQuestionQuiz = false;
+        Boolean isJpQuestionQuiz = true;
         List<QuizAnswerRatioDto> expected
-         = Arrays.asList(new QuizAnswerRatioDto[]{
-            new QuizAnswerRatioDto(
-                6, 
-                0.0 
-            ),
-            new QuizAnswerRatioDto(
-                5, 
-                10.0
-            ),
-            new QuizAnswerRatioDto(
-                9, 
-                20.0
-            )
-         });
-
-        List<QuizAnswerRatioDto> actual = quizAggregationDao.extractOrderedByIncorrectionRatio(userId, isJpQuestionQuiz);
+         = List.of(new QuizAnswerRatioDto(5, 0.0), new QuizAnswerRatioDto(9, 0.0));
+
+        List<QuizAnswerRatioDto> actual
+         = quizAggregationDao.findLowestIncorrectionRatio(userId, isJpQuestionQuiz, 2);
 
         assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
     }
 
+    /* Test for findZeroIncorrectionRatioVocabs method */
     @Test
-    @DisplayName("正答率が低い順にデータ取得（英訳、正答率計算に0割あり）")
-    void extractOrderedByIncorrectionRatioJpQuizWith0Division() {
+    @DisplayName("正答率が0の英単語IDを取得（英訳、正答率計算に0割あり）")
+    void findZeroIncorrectionRatioVocabsJpQuiz() {
         String userId = "testUserA3";
         Boolean isJpQuestionQuiz = true;
-        List<QuizAnswerRatioDto> expected
-         = Arrays.asList(new QuizAnswerRatioDto[]{
-            new QuizAnswerRatioDto(
-                5, 
-                0.0 
-            ),
-            new QuizAnswerRatioDto(
-                9, 
-                0.0
-            ),
-            new QuizAnswerRatioDto(
-                6, 
-                50.0
-            )
-         });
-
-        List<QuizAnswerRatioDto> actual = quizAggregationDao.extractOrderedByIncorrectionRatio(userId, isJpQuestionQuiz);
 
-        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        List<Integer> actual
+         = quizAggregationDao.findZeroIncorrectionRatioVocabs(userId, isJpQuestionQuiz);
+
+        assertThat(actual).containsExactlyInAnyOrder(5, 9);
     }
 
     @Test
-    @DisplayName("正答率が低い順にデータ取得（対象ユーザーデータなし）")
-    void extractOrderedByIncorrectionRatioNoUserData() {
+    @DisplayName("正答率が0の英単語IDを取得（対象ユーザーデータなし）")
+    void findZeroIncorrectionRatioVocabsNoUserData() {
         String userId = "testUserA4";
-        Boolean isJpQuestionQuiz = true;
-        List<QuizAnswerRatioDto> expected = List.of();
+        Boolean isJpQuestionQuiz = false;
 
-        List<QuizAnswerRatioDto> actual = quizAggregationDao.extractOrderedByIncorrectionRatio(userId, isJpQuestionQuiz);
+        List<Integer> actual
+         = quizAggregationDao.findZeroIncorrectionRatioVocabs(userId, isJpQuestionQuiz);
 
-        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(actual).isEmpty();
     }
- 
+
     /* Test for findLastIncorrectVocabs method */
     @Test
     @DisplayName("不正解データの英単語IDを取得（和訳）")
@@ -411,6 +395,160 @@ class QuizAggregationDaoTest {
 
     }
 
+    /* Test for upsertGivenQuiz method */
+    @Test
+    @DisplayName("出題時に未登録のクイズ結果集計データを新規登録")
+    void upsertGivenQuizNewRecord() {
+        //Arrange
+        Integer vocabulariesId = 1;
+        String usersId = "testUserA4";
+        Boolean isJpQuestionQuiz = true;
+        QuizAggregationEntity expected 
+        = new QuizAggregationEntity(
+            vocabulariesId, 
+            usersId, 
+            0, 
+            1, 
+            null,
+            testCurrentTime,
+            0, 
+            0, 
+            null, 
+            null,
+            false,
+            testCurrentTime,
+            testCurrentTime
+        );
+
+        //Act
+        QuizAggregationEntity actual
+         = quizAggregationDao.upsertGivenQuiz(vocabulariesId, usersId, isJpQuestionQuiz);
+
+        //Assert
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(quizAggregationDao.findById(vocabulariesId, usersId))
+            .usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("出題時に登録済みのクイズ結果集計データを更新（出題回数+1と最終出題日時を現在時刻に更新）")
+    void upsertGivenQuizExistingRecord() {
+        //Arrange
+        Integer vocabulariesId = 1;
+        String usersId = "testUserA";
+        Boolean isJpQuestionQuiz = false;
+        QuizAggregationEntity expected = quizAggregationDao.findById(vocabulariesId, usersId);
+        expected.setTotalCountQuestionEn(expected.getTotalCountQuestionEn() + 1);
+        expected.setLastQuestionDatetimeEn(testCurrentTime);
+        expected.setUpdatedAt(testCurrentTime);
+
+        //Act
+        QuizAggregationEntity actual
+         = quizAggregationDao.upsertGivenQuiz(vocabulariesId, usersId, isJpQuestionQuiz);
+
+        //Assert
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    /**
+     * NOTE:
+     * This test runs without the test transaction
+     * because each thread has to commit its upsert independently.
+     * The inserted record is deleted after the test.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("同一データへの同時出題でも出題回数の更新が失われない")
+    void upsertGivenQuizConcurrently() throws Exception {
+        //Arrange
+        Integer vocabulariesId = 2;
+        String usersId = "testUserA4";
+        int threadNum = 8;
+        int upsertNum = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threadNum);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<QuizAggregationEntity>> results = new ArrayList<>();
+
+        try {
+            //Act
+            for (int i = 0; i < upsertNum; i++) {
+                Boolean isJpQuestionQuiz = i % 2 == 0;
+                results.add(executor.submit(() -> {
+                    startSignal.await();
+                    return quizAggregationDao.upsertGivenQuiz(vocabulariesId, usersId, isJpQuestionQuiz);
+                }));
+            }
+            startSignal.countDown();
+            for (Future<QuizAggregationEntity> result : results) {
+                result.get(1, TimeUnit.MINUTES);
+            }
+            QuizAggregationEntity actual = quizAggregationDao.findById(vocabulariesId, usersId);
+
+            //Assert
+            assertThat(actual.getTotalCountQuestionEn()).isEqualTo(upsertNum / 2);
+            assertThat(actual.getTotalCountQuestionJp()).isEqualTo(upsertNum / 2);
+        } finally {
+            executor.shutdownNow();
+            quizAggregationDao.delete(vocabulariesId, usersId);
+        }
+    }
+
+    /* Test for upsertGivenQuizzes method */
+    @Test
+    @DisplayName("複数の出題をまとめて登録・更新")
+    void upsertGivenQuizzes() {
+        //Arrange
+        QuizAggregationEntity expectedExisting = quizAggregationDao.findById(1, "testUserA");
+        expectedExisting.setTotalCountQuestionEn(expectedExisting.getTotalCountQuestionEn() + 2);
+        expectedExisting.setTotalCountQuestionJp(expectedExisting.getTotalCountQuestionJp() + 1);
+        expectedExisting.setLastQuestionDatetimeEn(testCurrentTime);
+        expectedExisting.setLastQuestionDatetimeJp(testCurrentTime);
+        expectedExisting.setUpdatedAt(testCurrentTime);
+        List<QuizGivenDto> givenQuizzes
+         = List.of(
+            new QuizGivenDto(1, "testUserA", false, testCurrentTime.minusMinutes(1)),
+            new QuizGivenDto(1, "testUserA4", true, testCurrentTime),
+            new QuizGivenDto(1, "testUserA", true, testCurrentTime),
+            new QuizGivenDto(1, "testUserA", false, testCurrentTime)
+        );
+
+        //Act
+        quizAggregationDao.upsertGivenQuizzes(givenQuizzes);
+
+        //Assert
+        assertThat(quizAggregationDao.findById(1, "testUserA"))
+            .usingRecursiveComparison().isEqualTo(expectedExisting);
+        QuizAggregationEntity actualNew = quizAggregationDao.findById(1, "testUserA4");
+        assertThat(actualNew.getTotalCountQuestionJp()).isEqualTo(1);
+        assertThat(actualNew.getLastQuestionDatetimeJp()).isEqualTo(testCurrentTime);
+    }
+
+    /* Test for updateAnswerResults method */
+    @Test
+    @DisplayName("複数の回答結果をまとめて更新し、正誤結果は最後の回答の結果")
+    void updateAnswerResults() {
+        //Arrange
+        QuizAggregationEntity expected = quizAggregationDao.findById(1, "testUserA");
+        expected.setTotalCountCorrectEn(expected.getTotalCountCorrectEn() + 1);
+        expected.setIsLastAnswerCorrectEn(false);
+        expected.setTotalCountCorrectJp(expected.getTotalCountCorrectJp() + 1);
+        expected.setIsLastAnswerCorrectJp(true);
+        expected.setUpdatedAt(testCurrentTime);
+        List<QuizAnswerDto> answers
+         = List.of(
+            new QuizAnswerDto(1, "testUserA", false, true, testCurrentTime.minusMinutes(1)),
+            new QuizAnswerDto(1, "testUserA", true, true, testCurrentTime),
+            new QuizAnswerDto(1, "testUserA", false, false, testCurrentTime)
+        );
+
+        //Act
+        quizAggregationDao.updateAnswerResults(answers);
+
+        //Assert
+        assertThat(quizAggregationDao.findById(1, "testUserA"))
+            .usingRecursiveComparison().isEqualTo(expected);
+    }
+
     /* Test for updateCorrectCase method */
     @Test
     @DisplayName("和訳問題正答時のデータ更新（正答数+1と正誤結果True）")
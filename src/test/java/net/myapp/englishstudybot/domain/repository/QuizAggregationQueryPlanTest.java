@@ -0,0 +1,171 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.support.DirtiesContextTestExecutionListener;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+/**
+ * QuizAggregationQueryPlanTest is a regression test which checks that the selection queries
+ * of QuizAggregationDao are served by the indexes created in V1.0.4 for each question type.
+ *
+ * NOTE:
+ * Since the test data are too small for the planner to prefer indexes,
+ * sequential scans are disabled in the test transaction (SET LOCAL enable_seqscan = off).
+ * The plan must name the expected index, because the planner can still serve "WHERE users_id = ?"
+ * by a full scan of the primary key index (vocabularies_id, users_id) without any V1.0.4 index.
+ * That the assertion fails without the index is checked by dropping it in the test transaction.
+ */
+@SpringBootTest
+@Transactional
+@TestExecutionListeners({
+    DependencyInjectionTestExecutionListener.class,
+    DirtiesContextTestExecutionListener.class,
+    TransactionalTestExecutionListener.class,
+    DbUnitTestExecutionListener.class
+})
+@DbUnitConfiguration(
+    dataSetLoader = CsvDataSetLoader.class
+)
+@DatabaseSetup("/db/data/")
+class QuizAggregationQueryPlanTest {
+
+    private static final String INDEX_NAME_PREFIX = "quiz_aggregations_users_id_";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuizAggregationDao quizAggregationDao;
+
+    @BeforeEach
+    void setUpEach() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    // gets the lines of the plan of a query with parameters
+    private List<String> explain(String query, Object... params) {
+        return jdbcTemplate.queryForList("EXPLAIN " + query, String.class, params);
+    }
+
+    // gets the name of an index created in V1.0.4 (e.g. "quiz_aggregations_users_id_ratio_en_idx")
+    private String indexName(String indexedColumn, String suffix) {
+        return INDEX_NAME_PREFIX + indexedColumn + "_" + suffix + "_idx";
+    }
+
+    // asserts that a plan scans an index (e.g. "Index Scan using {name}" or "Bitmap Index Scan on {name}")
+    private void assertUsesIndex(List<String> plan, String indexName) {
+        assertThat(plan)
+            .as("plan using %s", indexName)
+            .anyMatch(line -> line.contains(" " + indexName + " "));
+    }
+
+    // gets the plans of all selection queries for one type of question
+    private List<List<String>> explainAll(String suffix) {
+        return List.of(
+            explain(quizAggregationDao.buildFindLeastRecentGivenVocabQuery(suffix), "testUserA2", "testUserA2"),
+            explain(quizAggregationDao.buildFindLowestIncorrectionRatioQuery(suffix), "testUserA2", 1),
+            explain(quizAggregationDao.buildFindZeroIncorrectionRatioVocabsQuery(suffix), "testUserA2"),
+            explain(quizAggregationDao.buildFindLastIncorrectVocabsQuery(suffix), "testUserA2")
+        );
+    }
+
+    // gets the names of the indexes expected for the plans of explainAll in the same order
+    private List<String> expectedIndexNames(String suffix) {
+        return List.of(
+            indexName("last_question_datetime", suffix),
+            indexName("ratio", suffix),
+            indexName("ratio", suffix),
+            indexName("last_incorrect", suffix)
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"en", "jp"})
+    @DisplayName("出題日が最も古い英単語の取得で専用のインデックスを使用")
+    void findLeastRecentGivenVocabUsesIndex(String suffix) {
+        //Act
+        List<String> plan
+         = explain(quizAggregationDao.buildFindLeastRecentGivenVocabQuery(suffix), "testUserA2", "testUserA2");
+
+        //Assert
+        assertUsesIndex(plan, indexName("last_question_datetime", suffix));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"en", "jp"})
+    @DisplayName("正答率が低い指定件数の取得で専用のインデックスを使用")
+    void findLowestIncorrectionRatioUsesIndex(String suffix) {
+        //Act
+        List<String> plan
+         = explain(quizAggregationDao.buildFindLowestIncorrectionRatioQuery(suffix), "testUserA2", 1);
+
+        //Assert
+        assertUsesIndex(plan, indexName("ratio", suffix));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"en", "jp"})
+    @DisplayName("正答率が0の英単語の取得で専用のインデックスを使用")
+    void findZeroIncorrectionRatioVocabsUsesIndex(String suffix) {
+        //Act
+        List<String> plan
+         = explain(quizAggregationDao.buildFindZeroIncorrectionRatioVocabsQuery(suffix), "testUserA2");
+
+        //Assert
+        assertUsesIndex(plan, indexName("ratio", suffix));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"en", "jp"})
+    @DisplayName("最後の回答が誤答の英単語の取得で専用のインデックスを使用")
+    void findLastIncorrectVocabsUsesIndex(String suffix) {
+        //Act
+        List<String> plan
+         = explain(quizAggregationDao.buildFindLastIncorrectVocabsQuery(suffix), "testUserA2");
+
+        //Assert
+        assertUsesIndex(plan, indexName("last_incorrect", suffix));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"en", "jp"})
+    @DisplayName("インデックスを削除した場合は検証が失敗")
+    void failWithoutIndexes(String suffix) {
+        //Arrange
+        // dropped only in the test transaction, which is rolled back
+        for (String indexName : Set.copyOf(expectedIndexNames(suffix))) {
+            jdbcTemplate.execute("DROP INDEX " + indexName);
+        }
+
+        //Act
+        List<List<String>> plans = explainAll(suffix);
+
+        //Assert
+        List<String> indexNames = expectedIndexNames(suffix);
+        for (int i = 0; i < plans.size(); i++) {
+            List<String> plan = plans.get(i);
+            String indexName = indexNames.get(i);
+            assertThatThrownBy(() -> assertUsesIndex(plan, indexName)).isInstanceOf(AssertionError.class);
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.support.DirtiesContextTestExecutionListener;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+import net.myapp.englishstudybot.domain.model.QuizScheduleEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerDto;
+
+@SpringBootTest
+@Transactional
+@TestExecutionListeners({
+    DependencyInjectionTestExecutionListener.class,
+    DirtiesContextTestExecutionListener.class,
+    TransactionalTestExecutionListener.class,
+    DbUnitTestExecutionListener.class
+})
+@DbUnitConfiguration(
+    dataSetLoader = CsvDataSetLoader.class
+)
+@DatabaseSetup("/db/data/")
+class QuizScheduleDaoTest {
+
+    private static final LocalDateTime testCurrentTime
+     = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private QuizScheduleDao quizScheduleDao;
+
+    @Test
+    @DisplayName("復習日が最も早い英単語のスケジュールを出題種類別に取得")
+    void findEarliestDue() {
+        //Act
+        QuizScheduleEntity enActual = quizScheduleDao.findEarliestDue("testUserA2", false);
+        QuizScheduleEntity jpActual = quizScheduleDao.findEarliestDue("testUserA2", true);
+
+        //Assert
+        assertThat(enActual.getVocabulariesId()).isEqualTo(2);
+        assertThat(enActual.getDueAt()).isEqualTo(LocalDateTime.parse("2022-10-06 09:00:00", formatter));
+        assertThat(jpActual.getVocabulariesId()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("スケジュールがないユーザーの場合はnull返却")
+    void findEarliestDueNoData() {
+        //Act
+        QuizScheduleEntity actual = quizScheduleDao.findEarliestDue("testUserA4", false);
+
+        //Assert
+        assertThat(actual).isNull();
+    }
+
+    @Test
+    @DisplayName("初回の回答でスケジュールを新規登録")
+    void scheduleNextReviewsNewSchedule() {
+        //Arrange
+        QuizScheduleEntity expected
+         = new QuizScheduleEntity(
+            1, "testUserA4", true, 1, 1, 2.5,
+            testCurrentTime.plusDays(1), testCurrentTime, testCurrentTime
+        );
+
+        //Act
+        quizScheduleDao.scheduleNextReviews(
+            List.of(new QuizAnswerDto(1, "testUserA4", true, true, testCurrentTime))
+        );
+
+        //Assert
+        assertThat(quizScheduleDao.findById(1, "testUserA4", true))
+            .usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("正解が続くと復習間隔が1日、6日、前回間隔×易しさ係数の順に伸びる")
+    void scheduleNextReviewsCorrectAnswers() {
+        //Arrange
+        QuizAnswerDto answer = new QuizAnswerDto(1, "testUserA4", false, true, testCurrentTime);
+
+        //Act & Assert
+        quizScheduleDao.scheduleNextReviews(List.of(answer));
+        assertThat(quizScheduleDao.findById(1, "testUserA4", false).getIntervalDays()).isEqualTo(1);
+        quizScheduleDao.scheduleNextReviews(List.of(answer));
+        assertThat(quizScheduleDao.findById(1, "testUserA4", false).getIntervalDays()).isEqualTo(6);
+        quizScheduleDao.scheduleNextReviews(List.of(answer));
+        QuizScheduleEntity actual = quizScheduleDao.findById(1, "testUserA4", false);
+        assertThat(actual.getIntervalDays()).isEqualTo(15);
+        assertThat(actual.getRepetitions()).isEqualTo(3);
+        assertThat(actual.getEaseFactor()).isCloseTo(2.5, within(1e-9));
+        assertThat(actual.getDueAt()).isEqualTo(testCurrentTime.plusDays(15));
+    }
+
+    @Test
+    @DisplayName("不正解で復習間隔が1日に戻り、易しさ係数が下がり、登録日時は維持")
+    void scheduleNextReviewsIncorrectAnswer() {
+        //Arrange
+        QuizScheduleEntity expected
+         = new QuizScheduleEntity(
+            1, "testUserA2", false, 0, 1, 2.18,
+            testCurrentTime.plusDays(1), LocalDateTime.parse("2022-10-04 09:00:00", formatter), testCurrentTime
+        );
+
+        //Act
+        quizScheduleDao.scheduleNextReviews(
+            List.of(new QuizAnswerDto(1, "testUserA2", false, false, testCurrentTime))
+        );
+
+        //Assert
+        assertThat(quizScheduleDao.findById(1, "testUserA2", false))
+            .usingRecursiveComparison()
+            .withComparatorForType((a, b) -> Math.abs(a - b) < 1e-9 ? 0 : Double.compare(a, b), Double.class)
+            .isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("易しさ係数は1.3未満にならない")
+    void scheduleNextReviewsMinimumEaseFactor() {
+        //Arrange
+        QuizAnswerDto answer = new QuizAnswerDto(5, "testUserA2", true, false, testCurrentTime);
+
+        //Act
+        // 2.18 -> 1.86 -> 1.54 -> 1.3
+        quizScheduleDao.scheduleNextReviews(List.of(answer, answer, answer));
+
+        //Assert
+        assertThat(quizScheduleDao.findById(5, "testUserA2", true).getEaseFactor())
+            .isCloseTo(1.3, within(1e-9));
+    }
+
+}
@@ -0,0 +1,130 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import net.myapp.englishstudybot.domain.model.QuizStateName;
+import net.myapp.englishstudybot.domain.model.UserEntity;
+
+/**
+ * UserCacheTest is a test class for UserCache.class
+ *
+ * NOTE:
+ * UserDao is mocked to verify how many times DB is accessed,
+ * and a new cache instance is created for each test.
+ * Since no transaction is active in these tests, written users are cached at once.
+ */
+@SpringBootTest
+class UserCacheTest {
+
+    private static final String USER_ID = "testUserA";
+
+    @MockBean
+    private UserDao userDao;
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUpEach() {
+        userCache = new UserCache(userDao, 10, 30);
+        doReturn(new UserEntity(USER_ID)).when(userDao).findById(USER_ID);
+    }
+
+    @Test
+    @DisplayName("2回目以降のユーザー取得でDBアクセスなし")
+    void findByIdCached() {
+        //Act
+        UserEntity first = userCache.findById(USER_ID);
+        // modifying a returned entity must not affect the cache
+        first.setLastQuizAnswer("modified");
+        UserEntity second = userCache.findById(USER_ID);
+
+        //Assert
+        verify(userDao, times(1)).findById(USER_ID);
+        assertThat(second).isEqualTo(new UserEntity(USER_ID));
+    }
+
+    @Test
+    @DisplayName("更新はDBへ同期的に書き込み、書き込んだユーザーをキャッシュに反映")
+    void updateWrittenThrough() {
+        //Arrange
+        UserEntity lastQuizInfo = new UserEntity(USER_ID);
+        lastQuizInfo.setLastVocabulariesId(1);
+        lastQuizInfo.setLastQuizAnswer("テスト");
+        UserEntity updatedUser = new UserEntity(USER_ID);
+        updatedUser.setLastVocabulariesId(1);
+        updatedUser.setLastQuizAnswer("テスト");
+        updatedUser.setQuizStatus(QuizStateName.CHECKING_ANSWER.getCode());
+        doReturn(updatedUser).when(userDao).updateLastQuizInfo(lastQuizInfo);
+        doReturn(updatedUser).when(userDao).updateUserStatus(USER_ID, QuizStateName.CHECKING_ANSWER);
+
+        //Act
+        userCache.findById(USER_ID);
+        userCache.updateLastQuizInfo(lastQuizInfo);
+        userCache.updateUserStatus(USER_ID, QuizStateName.CHECKING_ANSWER);
+        UserEntity actual = userCache.findById(USER_ID);
+
+        //Assert
+        assertThat(actual).isEqualTo(updatedUser);
+        verify(userDao, times(1)).findById(USER_ID);
+        InOrder inOrder = inOrder(userDao);
+        inOrder.verify(userDao).updateLastQuizInfo(lastQuizInfo);
+        inOrder.verify(userDao).updateUserStatus(USER_ID, QuizStateName.CHECKING_ANSWER);
+    }
+
+    @Test
+    @DisplayName("DBへの書き込みが失敗した場合は例外を返しキャッシュは変更なし")
+    void updateFailed() {
+        //Arrange
+        doThrow(new DataAccessResourceFailureException("test"))
+            .when(userDao).updateUserStatus(USER_ID, QuizStateName.WAITING_ANSWER);
+        userCache.findById(USER_ID);
+
+        //Act & Assert
+        assertThatThrownBy(() -> userCache.updateUserStatus(USER_ID, QuizStateName.WAITING_ANSWER))
+            .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(userCache.findById(USER_ID)).isEqualTo(new UserEntity(USER_ID));
+    }
+
+    @Test
+    @DisplayName("存在しないユーザーの更新はnullを返しキャッシュしない")
+    void updateNotFoundUser() {
+        //Arrange
+        doReturn(null).when(userDao).findById("unknownUser");
+
+        //Act
+        UserEntity actual = userCache.updateUserStatus("unknownUser", QuizStateName.WAITING_ANSWER);
+
+        //Assert
+        assertThat(actual).isNull();
+        assertThat(userCache.findById("unknownUser")).isNull();
+    }
+
+    @Test
+    @DisplayName("アイドル時間を超えたユーザーは再度DBから取得")
+    void findByIdAfterIdle() {
+        //Arrange
+        UserCache noIdleCache = new UserCache(userDao, 10, 0);
+
+        //Act
+        noIdleCache.findById(USER_ID);
+        noIdleCache.findById(USER_ID);
+
+        //Assert
+        verify(userDao, times(2)).findById(USER_ID);
+    }
+
+}
@@ -0,0 +1,163 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import net.myapp.englishstudybot.domain.model.VocabEntity;
+
+/**
+ * VocabCacheTest is a test class for VocabCache.class
+ *
+ * NOTE:
+ * VocabDao is mocked to verify how many times DB is accessed,
+ * and VocabIdIndex is mocked to fix sampled IDs.
+ * A new cache instance is created for each test.
+ */
+@SpringBootTest
+class VocabCacheTest {
+
+    private static final int PICK_REPEAT_COUNT = 100;
+
+    @MockBean
+    private VocabDao vocabDao;
+
+    @MockBean
+    private VocabIdIndex vocabIdIndex;
+
+    private VocabCache vocabCache;
+
+    private final List<VocabEntity> vocabs
+     = IntStream.rangeClosed(1, 5)
+        .mapToObj(id -> new VocabEntity(id, "word" + id, "単語" + id, "", "", "admin", null, null))
+        .toList();
+
+    @BeforeEach
+    void setUpEach() {
+        vocabCache = new VocabCache(vocabDao, vocabIdIndex, 100);
+        doReturn(vocabs).when(vocabDao).findAll();
+        doReturn(vocabs.size()).when(vocabIdIndex).countVocabIds();
+        doReturn(2).when(vocabIdIndex).pickRandomVocabId();
+        doReturn(new int[] {1, 2, 4, 5}).when(vocabIdIndex).sampleVocabIds(4, 3);
+        doThrow(new IllegalArgumentException()).when(vocabIdIndex).sampleVocabIds(5, 3);
+    }
+
+    @Test
+    @DisplayName("2回目以降の英単語ID指定取得でDBアクセスなし")
+    void findByIdCached() {
+        //Arrange
+        doReturn(List.of(vocabs.get(0))).when(vocabDao).findByIds(any(int[].class));
+
+        //Act
+        VocabEntity first = vocabCache.findById(1);
+        // modifying a returned entity must not affect the cache
+        first.setSpelling("modified");
+        VocabEntity second = vocabCache.findById(1);
+
+        //Assert
+        verify(vocabDao, times(1)).findByIds(any(int[].class));
+        assertThat(second.getSpelling()).isEqualTo("word1");
+    }
+
+    @Test
+    @DisplayName("全英単語の読込後はランダム取得でDBアクセスなし")
+    void findRandomWarmedUp() {
+        //Act
+        List<VocabEntity> actual
+         = IntStream.range(0, PICK_REPEAT_COUNT)
+            .mapToObj(i -> vocabCache.findRandom())
+            .toList();
+
+        //Assert
+        verify(vocabDao, times(1)).findAll();
+        verify(vocabDao, never()).findRandom();
+        verify(vocabDao, never()).findByIds(any(int[].class));
+        assertThat(actual).containsOnly(vocabs.get(1));
+    }
+
+    @Test
+    @DisplayName("指定ID以外の英単語を重複なしで指定数取得")
+    void findSomeExceptForOneWarmedUp() {
+        //Act
+        List<VocabEntity> actual = vocabCache.findSomeExceptForOne(4, 3);
+
+        //Assert
+        verify(vocabDao, never()).findSomeExceptForOne(anyInt(), anyInt());
+        verify(vocabDao, never()).findByIds(any(int[].class));
+        assertThat(actual).hasSize(4).doesNotHaveDuplicates();
+        assertThat(actual).extracting(VocabEntity::getId).doesNotContain(3);
+    }
+
+    @Test
+    @DisplayName("指定数が英単語数を超える場合に例外発生")
+    void findSomeExceptForOneTooMany() {
+        assertThatThrownBy(() -> vocabCache.findSomeExceptForOne(5, 3))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("英単語数が上限を超える場合は全件読込せず未キャッシュ分のみDBから取得")
+    void findSomeExceptForOneTooManyToWarmUp() {
+        //Arrange
+        doReturn(101).when(vocabIdIndex).countVocabIds();
+        doReturn(List.of(vocabs.get(0), vocabs.get(1), vocabs.get(3), vocabs.get(4)))
+            .when(vocabDao).findByIds(new int[] {1, 2, 4, 5});
+
+        //Act
+        List<VocabEntity> actual = vocabCache.findSomeExceptForOne(4, 3);
+
+        //Assert
+        verify(vocabDao, never()).findAll();
+        assertThat(actual).extracting(VocabEntity::getId).containsExactly(1, 2, 4, 5);
+    }
+
+    @Test
+    @DisplayName("英単語の追加・更新・削除がキャッシュに反映")
+    void addUpdateDeleteReflected() {
+        //Arrange
+        VocabEntity addedVocab = new VocabEntity(6, "pen", "ペン", "", "", "admin", null, null);
+        VocabEntity updatedVocab = new VocabEntity(2, "pencil", "鉛筆", "", "", "admin", null, null);
+        doReturn(addedVocab).when(vocabDao).add(addedVocab);
+        doReturn(updatedVocab).when(vocabDao).update(updatedVocab);
+        vocabCache.findRandom();
+
+        //Act
+        vocabCache.add(addedVocab);
+        vocabCache.update(updatedVocab);
+        vocabCache.delete(1);
+        doReturn(new int[] {2, 3, 4, 5, 6}).when(vocabIdIndex).sampleVocabIds(5, null);
+        VocabEntity actualUpdated = vocabCache.findById(2);
+        List<VocabEntity> actualCandidates = vocabCache.findSomeExceptForOne(5, null);
+        doReturn(new int[] {1}).when(vocabIdIndex).sampleVocabIds(1, null);
+        doReturn(List.of()).when(vocabDao).findByIds(new int[] {1});
+        vocabCache.findSomeExceptForOne(1, null);
+
+        //Assert
+        // all vocabularies are not reloaded but changed only for the changed vocabularies
+        verify(vocabDao, times(1)).findAll();
+        assertThat(actualUpdated).isEqualTo(updatedVocab);
+        assertThat(actualCandidates)
+            .extracting(VocabEntity::getId)
+            .containsExactly(2, 3, 4, 5, 6);
+        assertThat(actualCandidates).contains(updatedVocab);
+        // the deleted vocabulary is not cached any more
+        verify(vocabDao, times(1)).findByIds(new int[] {1});
+        verify(vocabDao, times(1)).findSomeExceptForOne(1, null);
+    }
+
+}
@@ -0,0 +1,127 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.support.DirtiesContextTestExecutionListener;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * VocabDaoBenchmarkTest is a benchmark of random extraction methods of VocabDao
+ * which checks that their latency stays flat as the vocabularies table grows.
+ *
+ * NOTE:
+ * This benchmark is disabled by default and run only when the system property is set as follows:
+ *   mvn test -Dtest=VocabDaoBenchmarkTest -Dbenchmark=true
+ * Up to 1M records are inserted in a transaction which is rolled back after the test.
+ */
+@Slf4j
+@SpringBootTest
+@Transactional
+@TestExecutionListeners({
+    DependencyInjectionTestExecutionListener.class,
+    DirtiesContextTestExecutionListener.class,
+    TransactionalTestExecutionListener.class,
+    DbUnitTestExecutionListener.class
+})
+@DbUnitConfiguration(
+    dataSetLoader = CsvDataSetLoader.class
+)
+@DatabaseSetup("/db/data/")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VocabDaoBenchmarkTest {
+
+    private static final int[] TABLE_SIZES = {100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final int WARMUP_COUNT = 200;
+    private static final int MEASURE_COUNT = 2000;
+    // the latency for the largest table should be within this factor of the one for the smallest table
+    private static final int ALLOWED_LATENCY_FACTOR = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VocabIdIndex vocabIdIndex;
+
+    @Autowired
+    private VocabDao vocabDao;
+
+    @AfterEach
+    void tearDownEach() {
+        // discards IDs of records which are rolled back after the test
+        vocabIdIndex.invalidate();
+    }
+
+    @Test
+    @DisplayName("英単語数が100件から100万件に増えてもランダム取得のレイテンシが一定")
+    void randomExtractionLatencyIsFlat() {
+        //Arrange
+        jdbcTemplate.update("DELETE FROM vocabularies");
+        int insertedNum = 0;
+        Map<Integer, Long> latencies = new LinkedHashMap<>();
+
+        for (int tableSize : TABLE_SIZES) {
+            insertVocabs(insertedNum + 1, tableSize);
+            insertedNum = tableSize;
+            jdbcTemplate.execute("ANALYZE vocabularies");
+            vocabIdIndex.invalidate();
+
+            //Act
+            for (int i = 0; i < WARMUP_COUNT; i++) {
+                extractQuizVocabs();
+            }
+            long startTime = System.nanoTime();
+            for (int i = 0; i < MEASURE_COUNT; i++) {
+                extractQuizVocabs();
+            }
+            long averageLatency = (System.nanoTime() - startTime) / MEASURE_COUNT;
+            latencies.put(tableSize, averageLatency);
+            log.info(
+                "table size: {}, average latency: {} us",
+                tableSize, TimeUnit.NANOSECONDS.toMicros(averageLatency)
+            );
+        }
+
+        //Assert
+        long smallestTableLatency = latencies.get(TABLE_SIZES[0]);
+        long largestTableLatency = latencies.get(TABLE_SIZES[TABLE_SIZES.length - 1]);
+        assertThat(largestTableLatency).isLessThan(smallestTableLatency * ALLOWED_LATENCY_FACTOR);
+    }
+
+    // extracts vocabularies in the same way as generating one selection quiz
+    private void extractQuizVocabs() {
+        Integer vocabId = vocabDao.findRandom().getId();
+        vocabDao.findSomeExceptForOne(3, vocabId);
+    }
+
+    // inserts vocabularies whose spellings are "bench{n}" for n in [from, to]
+    private void insertVocabs(int from, int to) {
+        jdbcTemplate.update(
+            """
+            INSERT INTO vocabularies (spelling, meaning, example_en, example_jp)
+            SELECT 'bench' || n, 'ベンチ' || n, '', '' FROM generate_series(?, ?) AS n
+            """,
+            from, to
+        );
+    }
+
+}
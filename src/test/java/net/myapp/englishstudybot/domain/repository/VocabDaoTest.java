@@ -1,10 +1,13 @@
 package net.myapp.englishstudybot.domain.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -16,6 +19,7 @@ import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
 import org.springframework.test.context.support.DirtiesContextTestExecutionListener;
@@ -27,6 +31,7 @@ import com.github.springtestdbunit.annotation.DatabaseSetup;
 import com.github.springtestdbunit.annotation.DbUnitConfiguration;
 
 import net.myapp.englishstudybot.domain.model.VocabEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizVocabsDto;
 
 /**
  * VocabDaoTest is a test class for VocabDao.class
@@ -55,6 +60,9 @@ class VocabDaoTest {
     @Autowired
     private VocabDao vocabDao;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeAll
     static void setUpAll() {
         MockedStatic<LocalDateTime> mock 
@@ -75,6 +83,37 @@ class VocabDaoTest {
         assertThat(actual).isEqualTo(expected);
     }
 
+    @Test
+    @DisplayName("カーソル以降の英単語データをID順に指定件数取得")
+    void findPage() {
+        //Act
+        List<Integer> firstPageIds
+         = vocabDao.findPage(null, 4).stream().map(VocabEntity::getId).toList();
+        List<Integer> nextPageIds
+         = vocabDao.findPage(4, 4).stream().map(VocabEntity::getId).toList();
+        List<Integer> lastPageIds
+         = vocabDao.findPage(8, 4).stream().map(VocabEntity::getId).toList();
+
+        //Assert
+        assertThat(firstPageIds).containsExactly(1, 2, 3, 4);
+        assertThat(nextPageIds).containsExactly(5, 6, 7, 8);
+        assertThat(lastPageIds).containsExactly(9, 10);
+    }
+
+    @Test
+    @DisplayName("すべての英単語データを1件ずつID順に取得")
+    void forEachVocab() {
+        //Arrange
+        List<Integer> expected = IntStream.rangeClosed(1, 10).boxed().toList();
+        List<Integer> actual = new ArrayList<>();
+
+        //Act
+        vocabDao.forEachVocab(vocab -> actual.add(vocab.getId()));
+
+        //Assert
+        assertThat(actual).isEqualTo(expected);
+    }
+
     @Test
     @DisplayName("指定IDの英単語データを1件取得")
     void findByIdOneVocab() {
@@ -115,6 +154,17 @@ class VocabDaoTest {
 
     }
 
+    @Test
+    @DisplayName("指定IDの英単語データを一括取得し、存在しないIDは無視")
+    void findByIds() {
+        //Act
+        List<VocabEntity> vocabList = vocabDao.findByIds(new int[] {2, 5, 999});
+
+        //Assert
+        assertThat(vocabList).extracting(VocabEntity::getId).containsExactlyInAnyOrder(2, 5);
+        assertThat(vocabList.get(0)).usingRecursiveComparison().isEqualTo(vocabDao.findById(vocabList.get(0).getId()));
+    }
+
     @Test
     @DisplayName("ランダムIDの英単語データ取得")
     void findByRandom() {
@@ -164,6 +214,26 @@ class VocabDaoTest {
 
     }
 
+    @Test
+    @DisplayName("指定IDの英単語データと他の英単語データを一括取得")
+    void findWithCandidates() {
+        //Arrange
+        int candidateNum = 3;
+        Integer targetVocabId = 5;
+        VocabEntity targetExpected = vocabDao.findById(targetVocabId);
+
+        //Act
+        QuizVocabsDto actual = vocabDao.findWithCandidates(targetVocabId, candidateNum);
+
+        //Assert
+        assertThat(actual.getTargetVocab()).usingRecursiveComparison().isEqualTo(targetExpected);
+        assertThat(actual.getCandidateVocabs())
+            .extracting(VocabEntity::getId)
+            .hasSize(candidateNum)
+            .doesNotHaveDuplicates()
+            .doesNotContain(targetVocabId);
+    }
+
     @Test
     @DisplayName("英単語データを1件新規登録")
     void addOneVocab() {
@@ -191,6 +261,53 @@ class VocabDaoTest {
 
     }
 
+    @Test
+    @DisplayName("英単語データを一括登録し、重複データはスキップ")
+    void addAllVocabsSkippingDuplicates() {
+        //Arrange
+        List<VocabEntity> vocabs = List.of(
+            new VocabEntity(null, "apprentice", "弟子、見習い", "", "", "admin", testCurrentTime, testCurrentTime),
+            // duplicate of an existing record
+            new VocabEntity(null, "aggressive", "攻撃的な", "", "", "admin", testCurrentTime, testCurrentTime),
+            new VocabEntity(null, "apprentice", "弟子、見習い", "", "", "testUserA", testCurrentTime, testCurrentTime),
+            // duplicate of a preceding record
+            new VocabEntity(null, "apprentice", "見習い", "", "", "admin", testCurrentTime, testCurrentTime)
+        );
+        Integer lastId = 10;
+
+        //Act
+        List<VocabEntity> vocabsActual = vocabDao.addAll(vocabs);
+
+        //Assert
+        assertThat(vocabsActual)
+            .extracting(VocabEntity::getSpelling, VocabEntity::getUsersId)
+            .containsExactlyInAnyOrder(
+                tuple("apprentice", "admin"),
+                tuple("apprentice", "testUserA")
+            );
+        assertThat(vocabsActual).allMatch(vocab -> vocab.getId() > lastId);
+        assertThat(vocabsActual).allMatch(vocab -> vocab.getCreatedAt().equals(testCurrentTime));
+        assertThat(vocabDao.findById(1).getMeaning()).isEqualTo("積極的な、攻撃的な");
+    }
+
+    @Test
+    @DisplayName("存在しないユーザーの英単語データは一括登録でスキップ")
+    void addAllVocabsSkippingUnknownUsers() {
+        //Arrange
+        List<VocabEntity> vocabs = List.of(
+            new VocabEntity(null, "apprentice", "弟子、見習い", "", "", "unknownUser", testCurrentTime, testCurrentTime),
+            new VocabEntity(null, "apprentice", "弟子、見習い", "", "", "admin", testCurrentTime, testCurrentTime)
+        );
+
+        //Act
+        List<VocabEntity> vocabsActual = vocabDao.addAll(vocabs);
+
+        //Assert
+        assertThat(vocabsActual)
+            .extracting(VocabEntity::getSpelling, VocabEntity::getUsersId)
+            .containsExactly(tuple("apprentice", "admin"));
+    }
+
     @Test
     @DisplayName("英単語データを更新")
     void updateOneVocabSpelling() {
@@ -232,4 +349,59 @@ class VocabDaoTest {
 
     }
 
+    @Test
+    @DisplayName("英単語データを一括更新し、指定のない列は更新しない")
+    void updateAllVocabs() {
+        //Arrange
+        VocabEntity vocabBeforeUpdate = vocabDao.findById(2);
+        List<VocabEntity> vocabs = List.of(
+            new VocabEntity(1, null, "攻撃的な", null, null, null, null, testCurrentTime),
+            new VocabEntity(2, "embraces", null, null, "", null, null, testCurrentTime),
+            // not existing record
+            new VocabEntity(1000, "test", null, null, null, null, null, testCurrentTime)
+        );
+
+        //Act
+        List<Integer> updatedIds = vocabDao.updateAll(vocabs);
+
+        //Assert
+        assertThat(updatedIds).containsExactly(1, 2);
+        VocabEntity vocab1 = vocabDao.findById(1);
+        assertThat(vocab1.getSpelling()).isEqualTo("aggressive");
+        assertThat(vocab1.getMeaning()).isEqualTo("攻撃的な");
+        assertThat(vocab1.getUpdatedAt()).isEqualTo(testCurrentTime);
+        VocabEntity vocab2 = vocabDao.findById(2);
+        assertThat(vocab2.getSpelling()).isEqualTo("embraces");
+        assertThat(vocab2.getMeaning()).isEqualTo(vocabBeforeUpdate.getMeaning());
+        assertThat(vocab2.getExampleEn()).isEqualTo(vocabBeforeUpdate.getExampleEn());
+        assertThat(vocab2.getExampleJp()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("指定IDの英単語データを一括削除し、出題集計データも削除")
+    void deleteAllVocabsByIds() {
+        //Act
+        List<Integer> deletedIds = vocabDao.deleteAll(List.of(1, 5, 1000), null);
+
+        //Assert
+        assertThat(deletedIds).containsExactlyInAnyOrder(1, 5);
+        assertThat(vocabDao.findById(1)).isNull();
+        assertThat(vocabDao.findById(5)).isNull();
+        assertThat(vocabDao.findById(2)).isNotNull();
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM quiz_aggregations WHERE vocabularies_id IN (1, 5)", Integer.class
+            )
+        ).isZero();
+    }
+
+    @Test
+    @DisplayName("条件未指定の一括削除で例外発生")
+    void deleteAllVocabsWithoutConditions() {
+        //Act & Assert
+        assertThatThrownBy(() -> vocabDao.deleteAll(null, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(vocabDao.findAllIds()).hasSize(10);
+    }
+
 }
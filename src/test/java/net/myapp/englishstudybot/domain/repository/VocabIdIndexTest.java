@@ -0,0 +1,180 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.support.DirtiesContextTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+import net.myapp.englishstudybot.domain.util.RandomNumberGenerator;
+
+/**
+ * VocabIdIndexTest is a test class for VocabIdIndex.class
+ *
+ * NOTE:
+ * A new index instance is created for each test
+ * so that updates of the index in a test never affect other tests.
+ */
+@SpringBootTest
+@TestExecutionListeners({
+    DependencyInjectionTestExecutionListener.class,
+    DirtiesContextTestExecutionListener.class,
+    DbUnitTestExecutionListener.class
+})
+@DbUnitConfiguration(
+    dataSetLoader = CsvDataSetLoader.class
+)
+@DatabaseSetup("/db/data/")
+class VocabIdIndexTest {
+
+    private static final int PICK_REPEAT_COUNT = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RandomNumberGenerator randomNumberGenerator;
+
+    private VocabIdIndex vocabIdIndex;
+
+    @BeforeEach
+    void setUpEach() {
+        vocabIdIndex = new VocabIdIndex(jdbcTemplate, randomNumberGenerator, 1000);
+    }
+
+    @Test
+    @DisplayName("未出題の英単語数を取得")
+    void countNotGivenVocabIds() {
+        assertThat(vocabIdIndex.countNotGivenVocabIds("testUserA2")).isEqualTo(7);
+        assertThat(vocabIdIndex.countNotGivenVocabIds("testUserA4")).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("未出題の英単語IDのみランダムに取得")
+    void pickRandomNotGivenVocabId() {
+        //Arrange
+        String userId = "testUserA3";
+        List<Integer> givenVocabIds = List.of(5, 6, 9);
+
+        //Act
+        List<Integer> actual
+         = IntStream.range(0, PICK_REPEAT_COUNT)
+            .mapToObj(i -> vocabIdIndex.pickRandomNotGivenVocabId(userId))
+            .toList();
+
+        //Assert
+        assertThat(actual).allMatch(id -> id >= 1 && id <= 10);
+        assertThat(actual).doesNotContainAnyElementsOf(givenVocabIds);
+    }
+
+    @Test
+    @DisplayName("全英単語が出題済みの場合にnull返却")
+    void pickRandomNotGivenVocabIdAllGiven() {
+        //Arrange
+        String userId = "testUserA2";
+        vocabIdIndex.countNotGivenVocabIds(userId);
+        IntStream.rangeClosed(1, 10).forEach(id -> vocabIdIndex.markGiven(userId, id));
+
+        //Act
+        Integer actual = vocabIdIndex.pickRandomNotGivenVocabId(userId);
+
+        //Assert
+        assertThat(actual).isNull();
+        assertThat(vocabIdIndex.countNotGivenVocabIds(userId)).isZero();
+    }
+
+    @Test
+    @DisplayName("指定ID以外の英単語IDを重複なしで指定数取得")
+    void sampleVocabIds() {
+        //Arrange
+        Integer vocabIdExcluded = 5;
+
+        for (int findNum : new int[] {3, 9}) {
+            //Act
+            int[] actual = vocabIdIndex.sampleVocabIds(findNum, vocabIdExcluded);
+
+            //Assert
+            assertThat(actual).hasSize(findNum).doesNotHaveDuplicates().doesNotContain(vocabIdExcluded);
+            assertThat(Arrays.stream(actual)).allMatch(id -> id >= 1 && id <= 10);
+        }
+    }
+
+    @Test
+    @DisplayName("指定数が英単語数を超える場合に例外発生")
+    void sampleVocabIdsTooMany() {
+        assertThatThrownBy(() -> vocabIdIndex.sampleVocabIds(10, 5))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("英単語の追加・削除が未出題の英単語に反映")
+    void addAndRemoveVocabId() {
+        //Arrange
+        String userId = "testUserA2";
+        int countBefore = vocabIdIndex.countNotGivenVocabIds(userId);
+
+        //Act
+        vocabIdIndex.addVocabId(100);
+        int countAfterAdd = vocabIdIndex.countNotGivenVocabIds(userId);
+        // removes a vocabulary which had already been given and one which had not been given yet
+        vocabIdIndex.removeVocabId(1);
+        vocabIdIndex.removeVocabId(3);
+        int countAfterRemove = vocabIdIndex.countNotGivenVocabIds(userId);
+
+        //Assert
+        assertThat(countAfterAdd).isEqualTo(countBefore + 1);
+        assertThat(countAfterRemove).isEqualTo(countAfterAdd - 1);
+        assertThat(
+            IntStream.range(0, PICK_REPEAT_COUNT)
+                .mapToObj(i -> vocabIdIndex.pickRandomVocabId())
+                .toList()
+        ).doesNotContain(1, 3);
+    }
+
+    @Test
+    @DisplayName("読込中の英単語削除が読込結果で上書きされない")
+    void removeVocabIdDuringLoad() {
+        //Arrange
+        // deletes a vocabulary just after the first load has read all IDs
+        JdbcTemplate racingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            private boolean isFirstQuery = true;
+
+            @Override
+            public <T> List<T> queryForList(String sql, Class<T> elementType) {
+                List<T> result = super.queryForList(sql, elementType);
+                if (isFirstQuery) {
+                    isFirstQuery = false;
+                    jdbcTemplate.update("DELETE FROM vocabularies WHERE id = 1");
+                    vocabIdIndex.removeVocabId(1);
+                }
+                return result;
+            }
+        };
+        vocabIdIndex = new VocabIdIndex(racingJdbcTemplate, randomNumberGenerator, 1000);
+
+        //Act
+        Integer vocabId = vocabIdIndex.pickRandomVocabId();
+
+        //Assert
+        assertThat(vocabId).isNotNull();
+        assertThatThrownBy(() -> vocabIdIndex.sampleVocabIds(10, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(vocabIdIndex.sampleVocabIds(9, null)).doesNotContain(1);
+    }
+
+}
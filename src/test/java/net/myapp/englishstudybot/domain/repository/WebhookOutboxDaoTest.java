@@ -0,0 +1,96 @@
+package net.myapp.englishstudybot.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.support.DirtiesContextTestExecutionListener;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+import net.myapp.englishstudybot.domain.model.WebhookOutboxEntity;
+
+@SpringBootTest
+@Transactional
+@TestExecutionListeners({
+    DependencyInjectionTestExecutionListener.class,
+    DirtiesContextTestExecutionListener.class,
+    TransactionalTestExecutionListener.class,
+    DbUnitTestExecutionListener.class
+})
+@DbUnitConfiguration(
+    dataSetLoader = CsvDataSetLoader.class
+)
+@DatabaseSetup("/db/data/")
+class WebhookOutboxDaoTest {
+
+    private static final LocalDateTime testCurrentTime
+     = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private WebhookOutboxDao webhookOutboxDao;
+
+    @Test
+    @DisplayName("未完了のイベントを受信順に取得")
+    void findAll() {
+        //Act
+        List<WebhookOutboxEntity> actual = webhookOutboxDao.findAll();
+
+        //Assert
+        assertThat(actual).extracting(WebhookOutboxEntity::getEventId)
+            .containsExactly("testEventA", "testEventB");
+        assertThat(actual.get(0).getReceivedAt())
+            .isEqualTo(LocalDateTime.parse("2022-10-05 09:00:00", formatter));
+    }
+
+    @Test
+    @DisplayName("イベントの登録と完了イベントの削除を一括で反映し、登録済みのイベントは上書きしない")
+    void write() {
+        //Arrange
+        WebhookOutboxEntity newEvent
+         = new WebhookOutboxEntity("testEventC", "testUserA1", "replyTokenC", "回答", testCurrentTime);
+        WebhookOutboxEntity duplicateEvent
+         = new WebhookOutboxEntity("testEventB", "testUserA2", "replyTokenB2", "ランダム", testCurrentTime);
+
+        //Act
+        webhookOutboxDao.write(List.of(newEvent, duplicateEvent), List.of("testEventA"));
+
+        //Assert
+        List<WebhookOutboxEntity> actual = webhookOutboxDao.findAll();
+        assertThat(actual).extracting(WebhookOutboxEntity::getEventId)
+            .containsExactly("testEventB", "testEventC");
+        assertThat(actual.get(0).getReplyToken()).isEqualTo("replyTokenB");
+        assertThat(actual.get(1)).usingRecursiveComparison().isEqualTo(newEvent);
+    }
+
+    @Test
+    @DisplayName("同一バッチで登録・完了したイベントは残らない")
+    void writeAddedAndCompletedEvent() {
+        //Arrange
+        WebhookOutboxEntity newEvent
+         = new WebhookOutboxEntity("testEventC", "testUserA1", "replyTokenC", "回答", testCurrentTime);
+
+        //Act
+        webhookOutboxDao.write(List.of(newEvent), List.of("testEventC"));
+
+        //Assert
+        assertThat(webhookOutboxDao.findAll()).extracting(WebhookOutboxEntity::getEventId)
+            .containsExactly("testEventA", "testEventB");
+    }
+
+}
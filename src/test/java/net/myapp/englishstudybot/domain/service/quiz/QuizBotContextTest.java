@@ -3,13 +3,21 @@ package net.myapp.englishstudybot.domain.service.quiz;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -68,11 +76,12 @@ class QuizBotContextTest {
     @BeforeEach 
     void setUpEach() {
         MockitoAnnotations.openMocks(this);
+        doReturn((Executor) Runnable::run).when(lineBotAgent).getCallbackExecutor();
 
-        doReturn(lineBotAgent).when(quizBotWaitingStartState).entryAction(nullable(UserEntity.class), any(LineBotAgent.class));
-        doReturn(lineBotAgent).when(quizBotWaitingTypeSelectState).entryAction(nullable(UserEntity.class), any(LineBotAgent.class));
-        doReturn(lineBotAgent).when(quizBotWaitingAnswerState).entryAction(nullable(UserEntity.class), any(LineBotAgent.class));
-        doReturn(lineBotAgent).when(quizBotCheckingAnswerState).entryAction(nullable(UserEntity.class), any(LineBotAgent.class));
+        doReturn(CompletableFuture.completedFuture(lineBotAgent)).when(quizBotWaitingStartState).entryAction(any(QuizBotContext.class), nullable(UserEntity.class), any(LineBotAgent.class));
+        doReturn(CompletableFuture.completedFuture(lineBotAgent)).when(quizBotWaitingTypeSelectState).entryAction(any(QuizBotContext.class), nullable(UserEntity.class), any(LineBotAgent.class));
+        doReturn(CompletableFuture.completedFuture(lineBotAgent)).when(quizBotWaitingAnswerState).entryAction(any(QuizBotContext.class), nullable(UserEntity.class), any(LineBotAgent.class));
+        doReturn(CompletableFuture.completedFuture(lineBotAgent)).when(quizBotCheckingAnswerState).entryAction(any(QuizBotContext.class), nullable(UserEntity.class), any(LineBotAgent.class));
     }
 
     /* Unit Test */
@@ -110,9 +119,9 @@ class QuizBotContextTest {
 
         //Assert
         verify(quizBotWaitingStartState, times(1)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingStartState, times(0)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingStartState, times(0)).entryAction(quizBotContext, user, lineBotAgent);
         verify(quizBotWaitingTypeSelectState, times(0)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingTypeSelectState, times(1)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingTypeSelectState, times(1)).entryAction(quizBotContext, user, lineBotAgent);
         assertThat(actualState).isEqualTo(expectedState);
     }
 
@@ -133,9 +142,9 @@ class QuizBotContextTest {
 
         //Assert
         verify(quizBotWaitingStartState, times(1)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingStartState, times(1)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingStartState, times(1)).entryAction(quizBotContext, user, lineBotAgent);
         verify(quizBotWaitingTypeSelectState, times(0)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingTypeSelectState, times(0)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingTypeSelectState, times(0)).entryAction(quizBotContext, user, lineBotAgent);
         assertThat(actualState).isEqualTo(expectedState);
    }
 
@@ -160,9 +169,9 @@ class QuizBotContextTest {
 
         //Assert
         verify(quizBotWaitingTypeSelectState, times(1)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingTypeSelectState, times(0)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingTypeSelectState, times(0)).entryAction(quizBotContext, user, lineBotAgent);
         verify(quizBotWaitingAnswerState, times(0)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingAnswerState, times(1)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingAnswerState, times(1)).entryAction(quizBotContext, user, lineBotAgent);
         assertThat(actualState).isEqualTo(expectedState);
     }
 
@@ -187,9 +196,9 @@ class QuizBotContextTest {
 
         //Assert
         verify(quizBotWaitingTypeSelectState, times(1)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingTypeSelectState, times(0)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingTypeSelectState, times(0)).entryAction(quizBotContext, user, lineBotAgent);
         verify(quizBotWaitingStartState, times(0)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingStartState, times(1)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingStartState, times(1)).entryAction(quizBotContext, user, lineBotAgent);
         assertThat(actualState).isEqualTo(expectedState);
     }
 
@@ -214,9 +223,9 @@ class QuizBotContextTest {
 
         //Assert
         verify(quizBotWaitingTypeSelectState, times(1)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingTypeSelectState, times(1)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingTypeSelectState, times(1)).entryAction(quizBotContext, user, lineBotAgent);
         verify(quizBotWaitingAnswerState, times(0)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingAnswerState, times(0)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingAnswerState, times(0)).entryAction(quizBotContext, user, lineBotAgent);
         assertThat(actualState).isEqualTo(expectedState);
    }
 
@@ -239,13 +248,75 @@ class QuizBotContextTest {
 
         //Assert
         verify(quizBotWaitingAnswerState, times(1)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingAnswerState, times(0)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingAnswerState, times(0)).entryAction(quizBotContext, user, lineBotAgent);
         verify(quizBotCheckingAnswerState, times(1)).changeState(quizBotContext, userMessage);
-        verify(quizBotCheckingAnswerState, times(1)).entryAction(user, lineBotAgent);
+        verify(quizBotCheckingAnswerState, times(1)).entryAction(quizBotContext, user, lineBotAgent);
         verify(quizBotWaitingStartState, times(0)).changeState(quizBotContext, userMessage);
-        verify(quizBotWaitingStartState, times(1)).entryAction(user, lineBotAgent);
+        verify(quizBotWaitingStartState, times(1)).entryAction(quizBotContext, user, lineBotAgent);
         assertThat(actualState).isEqualTo(expectedState);
     }
 
+    @Test
+    @DisplayName("DB書込みのフラッシュがLINE APIの完了スレッドではなくコールバック用スレッドで実行")
+    void flushOnCallbackExecutor() throws Exception {
+        //Arrange
+        ExecutorService lineSdkExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "test-line-sdk"));
+        ExecutorService callbackExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "test-callback"));
+        QuizBotWriteBuffer writeBuffer = mock(QuizBotWriteBuffer.class);
+        AtomicReference<String> flushThreadName = new AtomicReference<>();
+        doAnswer(invocation -> {
+            flushThreadName.set(Thread.currentThread().getName());
+            return null;
+        }).when(writeBuffer).flush();
+
+        QuizBotContext context
+         = new QuizBotContext(
+            List.of(quizBotWaitingStartState, quizBotWaitingTypeSelectState, quizBotWaitingAnswerState, quizBotCheckingAnswerState),
+            writeBuffer
+        );
+        // the reply of the entry action completes on a thread of LINE SDK
+        CompletableFuture<LineBotAgent> replyResult = new CompletableFuture<>();
+        doReturn(replyResult).when(quizBotWaitingStartState).entryAction(any(QuizBotContext.class), nullable(UserEntity.class), any(LineBotAgent.class));
+        doReturn("指定メッセージ以外").when(lineBotAgent).getUserMessage();
+        doReturn(callbackExecutor).when(lineBotAgent).getCallbackExecutor();
+
+        try {
+            //Act
+            context.setState(QuizStateName.WAITING_START);
+            CompletableFuture<Void> result = context.triggerStateMove(null, lineBotAgent);
+            lineSdkExecutor.execute(() -> replyResult.complete(lineBotAgent));
+            result.get(10, TimeUnit.SECONDS);
+
+            //Assert
+            assertThat(flushThreadName.get()).isEqualTo("test-callback");
+        } finally {
+            lineSdkExecutor.shutdown();
+            callbackExecutor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("状態遷移中に同期的な例外が発生してもDB書込みをフラッシュ")
+    void flushWhenStateMoveThrows() {
+        //Arrange
+        QuizBotWriteBuffer writeBuffer = mock(QuizBotWriteBuffer.class);
+        QuizBotContext context
+         = new QuizBotContext(
+            List.of(quizBotWaitingStartState, quizBotWaitingTypeSelectState, quizBotWaitingAnswerState, quizBotCheckingAnswerState),
+            writeBuffer
+        );
+        doReturn("指定メッセージ以外").when(lineBotAgent).getUserMessage();
+        doAnswer(invocation -> {
+            throw new IllegalStateException("entry action failed");
+        }).when(quizBotWaitingStartState).entryAction(any(QuizBotContext.class), nullable(UserEntity.class), any(LineBotAgent.class));
+
+        //Act
+        context.setState(QuizStateName.WAITING_START);
+        CompletableFuture<Void> result = context.triggerStateMove(null, lineBotAgent);
+
+        //Assert
+        assertThat(result).isCompletedExceptionally();
+        verify(writeBuffer, times(1)).flush();
+    }
 
 }
@@ -0,0 +1,105 @@
+package net.myapp.englishstudybot.domain.service.quiz;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import net.myapp.englishstudybot.domain.model.QuizStateName;
+import net.myapp.englishstudybot.domain.model.UserEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerDto;
+import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
+import net.myapp.englishstudybot.domain.repository.QuizScheduleRepository;
+import net.myapp.englishstudybot.domain.repository.UserRepository;
+
+@SpringBootTest
+class QuizBotWriteBufferTest {
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private QuizAggregationRepository quizAggregationRepository;
+
+    @MockBean
+    private QuizScheduleRepository quizScheduleRepository;
+
+    @Autowired
+    private QuizBotWriteBuffer writeBuffer;
+
+    @Test
+    @DisplayName("記録した更新をまとめて反映し、ユーザーの状態は最後の状態のみ更新")
+    void flushCoalescedWrites() {
+        //Arrange
+        String userId = "testUserA";
+        UserEntity user = new UserEntity(userId);
+        writeBuffer.updateUserStatus(userId, QuizStateName.CHECKING_ANSWER);
+        writeBuffer.updateAnswerResult(1, userId, false, true);
+        writeBuffer.updateUserStatus(userId, QuizStateName.WAITING_START);
+        writeBuffer.upsertGivenQuiz(2, userId, false);
+        writeBuffer.updateLastQuizInfo(user);
+
+        //Act
+        writeBuffer.flush();
+        // nothing is written again after flushed
+        writeBuffer.flush();
+
+        //Assert
+        InOrder inOrder = inOrder(userRepository, quizAggregationRepository, quizScheduleRepository);
+        inOrder.verify(userRepository, times(1)).updateUserStatus(userId, QuizStateName.WAITING_START);
+        inOrder.verify(userRepository, times(1)).updateLastQuizInfo(user);
+        inOrder.verify(quizAggregationRepository, times(1)).upsertGivenQuizzes(argThat(givenQuizzes ->
+            givenQuizzes.size() == 1 && givenQuizzes.get(0).getVocabulariesId() == 2
+        ));
+        inOrder.verify(quizAggregationRepository, times(1)).updateAnswerResults(argThat(this::isOneAnswer));
+        inOrder.verify(quizScheduleRepository, times(1)).scheduleNextReviews(argThat(this::isOneAnswer));
+        verify(userRepository, never()).updateUserStatus(userId, QuizStateName.CHECKING_ANSWER);
+    }
+
+    @Test
+    @DisplayName("記録した回答結果は回答ごとではなくまとめて反映")
+    void flushAnswersInBatch() {
+        //Arrange
+        writeBuffer.updateAnswerResult(1, "testUserA", false, true);
+        writeBuffer.updateAnswerResult(2, "testUserB", true, false);
+
+        //Act
+        writeBuffer.flush();
+
+        //Assert
+        verify(quizAggregationRepository, times(1)).updateAnswerResults(argThat(answers -> answers.size() == 2));
+        verify(quizScheduleRepository, times(1)).scheduleNextReviews(argThat(answers -> answers.size() == 2));
+        verify(quizAggregationRepository, never()).upsertGivenQuizzes(any());
+    }
+
+    private boolean isOneAnswer(List<QuizAnswerDto> answers) {
+        return answers.size() == 1
+            && answers.get(0).getVocabulariesId() == 1
+            && answers.get(0).getUsersId().equals("testUserA")
+            && ! answers.get(0).getIsJpQuestionQuiz()
+            && answers.get(0).getIsAnswerCorrect();
+    }
+
+    @Test
+    @DisplayName("更新が記録されていない場合はDBアクセスなし")
+    void flushNothing() {
+        //Act
+        writeBuffer.flush();
+
+        //Assert
+        verifyNoInteractions(userRepository, quizAggregationRepository, quizScheduleRepository);
+    }
+
+}
@@ -84,7 +84,7 @@ public class QuizGeneratorTest {
     @DisplayName("選択可能なクイズのタイプが正しく取得できるか検証")
     void getSelectableQuizTypes() {
         List<String> expected
-         = Arrays.asList("ランダム", "出題日古い", "正答率低い", "誤答");
+         = Arrays.asList("ランダム", "出題日古い", "正答率低い", "誤答", "復習");
         List<String> actual = quizGenerator.getSelectableQuizTypes();
         assertThat(actual).isEqualTo(expected);
     }
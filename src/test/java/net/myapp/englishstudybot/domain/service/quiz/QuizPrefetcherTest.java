@@ -0,0 +1,170 @@
+package net.myapp.englishstudybot.domain.service.quiz;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import net.myapp.englishstudybot.domain.model.UserEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizDto;
+import net.myapp.englishstudybot.domain.model.quiz.UserQuizConfigDto;
+import net.myapp.englishstudybot.domain.service.bot.BotMessageGenerator;
+
+@SpringBootTest
+class QuizPrefetcherTest {
+
+    @MockBean
+    private QuizGenerator quizGenerator;
+
+    @MockBean
+    private BotMessageGenerator botMessageGenerator;
+
+    @Autowired
+    private QuizPrefetcher quizPrefetcher;
+
+    private final UserEntity user = new UserEntity("testUserA");
+
+    private final UserQuizConfigDto userQuizConfigDto
+     = new UserQuizConfigDto("testUserA", false, false, false, false, "ランダム");
+
+    private final QuizDto quizDtoExpected
+     = new QuizDto(1, "test", "テスト", List.of("ペン"), "quiz message", "answer message");
+
+    @BeforeEach
+    void setUpEach() {
+        quizPrefetcher.invalidateAll();
+        doReturn(List.of("ランダム")).when(quizGenerator).getSelectableQuizTypes();
+        doReturn(quizDtoExpected).when(quizGenerator).generateQuiz(userQuizConfigDto);
+        doReturn(quizDtoExpected).when(botMessageGenerator)
+            .generateQuizAndAnswerMessages(quizDtoExpected, userQuizConfigDto);
+    }
+
+    @Test
+    @DisplayName("先読みしたクイズを取得し、取得後は空")
+    void takePrefetchedQuiz() {
+        //Arrange
+        quizPrefetcher.refill(user).join();
+
+        //Act
+        QuizDto quizDtoActual = quizPrefetcher.takeQuiz(userQuizConfigDto);
+        QuizDto quizDtoAfterTaken = quizPrefetcher.takeQuiz(userQuizConfigDto);
+
+        //Assert
+        assertThat(quizDtoActual).isEqualTo(quizDtoExpected);
+        assertThat(quizDtoAfterTaken).isNull();
+        verify(botMessageGenerator, times(1))
+            .generateQuizAndAnswerMessages(quizDtoExpected, userQuizConfigDto);
+    }
+
+    @Test
+    @DisplayName("先読み済みの場合は再度生成しない")
+    void refillOnlyEmptyQueues() {
+        //Act
+        quizPrefetcher.refill(user).join();
+        quizPrefetcher.refill(user).join();
+
+        //Assert
+        verify(quizGenerator, times(1)).generateQuiz(any(UserQuizConfigDto.class));
+    }
+
+    @Test
+    @DisplayName("出題した英単語の先読みクイズは他の出題種類からも破棄")
+    void takeQuizAfterVocabDiscarded() {
+        //Arrange
+        quizPrefetcher.refill(user).join();
+
+        //Act
+        quizPrefetcher.discardVocab(user.getId(), quizDtoExpected.getTargetVocabId());
+        QuizDto quizDtoActual = quizPrefetcher.takeQuiz(userQuizConfigDto);
+
+        //Assert
+        assertThat(quizDtoActual).isNull();
+    }
+
+    @Test
+    @DisplayName("出題後の再先読みでは使用した出題種類のみ生成")
+    void refillOnlyTakenQueue() {
+        //Arrange
+        UserQuizConfigDto otherTypeConfig
+         = new UserQuizConfigDto("testUserA", false, false, false, false, "苦手");
+        doReturn(List.of("ランダム", "苦手")).when(quizGenerator).getSelectableQuizTypes();
+        doReturn(quizDtoExpected).when(quizGenerator).generateQuiz(otherTypeConfig);
+        doReturn(quizDtoExpected).when(botMessageGenerator)
+            .generateQuizAndAnswerMessages(quizDtoExpected, otherTypeConfig);
+        quizPrefetcher.refill(user).join();
+
+        //Act
+        quizPrefetcher.takeQuiz(userQuizConfigDto);
+        quizPrefetcher.refill(user).join();
+
+        //Assert
+        verify(quizGenerator, times(2)).generateQuiz(userQuizConfigDto);
+        verify(quizGenerator, times(1)).generateQuiz(otherTypeConfig);
+    }
+
+    @Test
+    @DisplayName("異なる出題設定の先読みクイズは取得しない")
+    void takeQuizWithDifferentConfig() {
+        //Arrange
+        quizPrefetcher.refill(user).join();
+        UserQuizConfigDto jpQuestionConfig
+         = new UserQuizConfigDto("testUserA", false, false, true, false, "ランダム");
+
+        //Act
+        QuizDto quizDtoActual = quizPrefetcher.takeQuiz(jpQuestionConfig);
+
+        //Assert
+        assertThat(quizDtoActual).isNull();
+    }
+
+    @Test
+    @DisplayName("待機中の先読みが多すぎる場合は先読みを破棄")
+    void dropRefillWhenTooManyWaiting() {
+        //Arrange
+        QuizPrefetcher smallPrefetcher
+         = new QuizPrefetcher(quizGenerator, botMessageGenerator, true, 1, 10, 1, 1000, 1);
+        CountDownLatch latch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            latch.await();
+            return quizDtoExpected;
+        }).when(quizGenerator).generateQuiz(userQuizConfigDto);
+        UserQuizConfigDto userBConfig
+         = new UserQuizConfigDto("testUserB", false, false, false, false, "ランダム");
+        UserQuizConfigDto userCConfig
+         = new UserQuizConfigDto("testUserC", false, false, false, false, "ランダム");
+
+        try {
+            //Act
+            CompletableFuture<Void> running = smallPrefetcher.refill(user);
+            CompletableFuture<Void> waiting = smallPrefetcher.refill(new UserEntity("testUserB"));
+            CompletableFuture<Void> dropped = smallPrefetcher.refill(new UserEntity("testUserC"));
+            boolean isDroppedDone = dropped.isDone();
+            latch.countDown();
+            running.join();
+            waiting.join();
+
+            //Assert
+            assertThat(isDroppedDone).isTrue();
+            verify(quizGenerator, times(1)).generateQuiz(userBConfig);
+            verify(quizGenerator, never()).generateQuiz(userCConfig);
+        } finally {
+            latch.countDown();
+            smallPrefetcher.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package net.myapp.englishstudybot.domain.service.quiz;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import net.myapp.englishstudybot.domain.model.QuizStateName;
+import net.myapp.englishstudybot.domain.model.UserEntity;
+import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
+import net.myapp.englishstudybot.domain.repository.UserRepository;
+import net.myapp.englishstudybot.domain.service.bot.BotMessageGenerator;
+import net.myapp.englishstudybot.domain.service.bot.LineBotAgent;
+import net.myapp.englishstudybot.domain.service.quiz.state.QuizBotCheckingAnswerState;
+import net.myapp.englishstudybot.domain.service.quiz.state.QuizBotState;
+import net.myapp.englishstudybot.domain.service.quiz.state.QuizBotWaitingAnswerState;
+import net.myapp.englishstudybot.domain.service.quiz.state.QuizBotWaitingStartState;
+import net.myapp.englishstudybot.domain.service.quiz.state.QuizBotWaitingTypeSelectState;
+
+/**
+ * QuizServiceImplTest is a test class for QuizServiceImpl.class
+ *
+ * NOTE:
+ * Entry actions of all states are stubbed to record which state each user entered
+ * so that state transitions of many users handled concurrently can be verified.
+ */
+@SpringBootTest
+class QuizServiceImplTest {
+
+    private static final int USER_NUM = 500;
+    private static final int THREAD_NUM = 32;
+
+    @SpyBean
+    private QuizBotWaitingStartState quizBotWaitingStartState;
+
+    @SpyBean
+    private QuizBotWaitingTypeSelectState quizBotWaitingTypeSelectState;
+
+    @SpyBean
+    private QuizBotWaitingAnswerState quizBotWaitingAnswerState;
+
+    @SpyBean
+    private QuizBotCheckingAnswerState quizBotCheckingAnswerState;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private QuizAggregationRepository quizAggregationRepository;
+
+    @MockBean
+    private BotMessageGenerator botMessageGenerator;
+
+    @MockBean
+    private QuizGenerator quizGenerator;
+
+    @Autowired
+    private QuizService quizService;
+
+    // records the state which each user entered
+    // (the record is removed if a user entered more than one state, resulting in a test failure)
+    private final Map<String, QuizStateName> enteredStates = new ConcurrentHashMap<>();
+
+    private void recordEnteredState(QuizBotState state) {
+        doAnswer(invocation -> {
+            UserEntity user = invocation.getArgument(1);
+            enteredStates.merge(user.getId(), state.getStateName(), (before, after) -> null);
+            return CompletableFuture.completedFuture(invocation.getArgument(2));
+        }).when(state).entryAction(any(QuizBotContext.class), any(UserEntity.class), any(LineBotAgent.class));
+    }
+
+    @Test
+    @DisplayName("複数ユーザーの同時メッセージで各ユーザーの状態遷移が混線しない")
+    void provideQuizServiceConcurrently() throws Exception {
+        //Arrange
+        recordEnteredState(quizBotWaitingStartState);
+        recordEnteredState(quizBotWaitingTypeSelectState);
+        recordEnteredState(quizBotWaitingAnswerState);
+        recordEnteredState(quizBotCheckingAnswerState);
+        doReturn(List.of("ランダム")).when(quizGenerator).getSelectableQuizTypes();
+
+        // half of users start a quiz and the others cancel a quiz type selection
+        Map<String, UserEntity> users = new ConcurrentHashMap<>();
+        Map<String, QuizStateName> expectedStates = new ConcurrentHashMap<>();
+        List<LineBotAgent> lineBotAgents = new ArrayList<>(USER_NUM);
+        for (int i = 0; i < USER_NUM; i++) {
+            UserEntity user = new UserEntity("testUser" + i);
+            String userMessage;
+            if (i % 2 == 0) {
+                user.setQuizStatus(QuizStateName.WAITING_START.getCode());
+                userMessage = "クイズ";
+                expectedStates.put(user.getId(), QuizStateName.WAITING_TYPE_SELECT);
+            } else {
+                user.setQuizStatus(QuizStateName.WAITING_TYPE_SELECT.getCode());
+                userMessage = "中断";
+                expectedStates.put(user.getId(), QuizStateName.WAITING_START);
+            }
+            users.put(user.getId(), user);
+            lineBotAgents.add(new LineBotAgent(null, Runnable::run, "replyToken" + i, user.getId(), userMessage));
+        }
+        doAnswer(invocation -> users.get(invocation.getArgument(0)))
+            .when(userRepository).findById(anyString());
+
+        //Act
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_NUM);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Callable<Void>> tasks
+         = lineBotAgents.stream()
+            .map(lineBotAgent -> (Callable<Void>) () -> {
+                startSignal.await();
+                quizService.provideQuizService(lineBotAgent).join();
+                return null;
+            })
+            .toList();
+        List<Future<Void>> results = new ArrayList<>();
+        tasks.forEach(task -> results.add(executor.submit(task)));
+        startSignal.countDown();
+        for (Future<Void> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //Assert
+        assertThat(enteredStates).isEqualTo(expectedStates);
+    }
+
+}
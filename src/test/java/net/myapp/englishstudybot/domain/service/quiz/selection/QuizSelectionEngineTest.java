@@ -0,0 +1,197 @@
+package net.myapp.englishstudybot.domain.service.quiz.selection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import net.myapp.englishstudybot.domain.model.QuizScheduleEntity;
+import net.myapp.englishstudybot.domain.model.quiz.QuizAnswerRatioDto;
+import net.myapp.englishstudybot.domain.repository.QuizAggregationRepository;
+import net.myapp.englishstudybot.domain.repository.QuizScheduleRepository;
+import net.myapp.englishstudybot.domain.repository.VocabIdIndex;
+import net.myapp.englishstudybot.domain.util.RandomNumberGenerator;
+
+@SpringBootTest
+class QuizSelectionEngineTest {
+
+    private static final String USER_ID = "testUserA";
+
+    @MockBean
+    private QuizAggregationRepository quizAggregationRepository;
+
+    @MockBean
+    private QuizScheduleRepository quizScheduleRepository;
+
+    @MockBean
+    private VocabIdIndex vocabIdIndex;
+
+    @MockBean
+    private RandomNumberGenerator randomNumberGenerator;
+
+    @Autowired
+    private QuizSelectionEngine quizSelectionEngine;
+
+    @Autowired
+    private LeastRecentSelectionStrategy leastRecentStrategy;
+
+    @Autowired
+    private LowestCorrectionRatioSelectionStrategy lowestCorrectionRatioStrategy;
+
+    @Autowired
+    private LastIncorrectSelectionStrategy lastIncorrectStrategy;
+
+    @Autowired
+    private SpacedRepetitionSelectionStrategy spacedRepetitionStrategy;
+
+    // setup method to give the number of vocabularies not given yet
+    private void setUpNotGiven(int notGivenQuizVocabNum) {
+        doReturn(notGivenQuizVocabNum).when(vocabIdIndex).countNotGivenVocabIds(USER_ID);
+    }
+
+    // setup method to give the lowest ratios when no vocabularies have zero ratio
+    private void setUpLowestRatio(QuizAnswerRatioDto... lowestRatios) {
+        doReturn(List.of()).when(quizAggregationRepository).findZeroIncorrectionRatioVocabs(USER_ID, false);
+        doReturn(List.of(lowestRatios))
+            .when(quizAggregationRepository).findLowestIncorrectionRatio(USER_ID, false, 1);
+    }
+
+    private QuizScheduleEntity schedule(int vocabId, LocalDateTime dueAt) {
+        return new QuizScheduleEntity(vocabId, USER_ID, false, 1, 1, 2.5, dueAt, dueAt, dueAt);
+    }
+
+    @Test
+    @DisplayName("全単語が出題済みの場合は正答率が最も低い英単語を選択")
+    void selectLowestCorrectionRatio() {
+        //Arrange
+        setUpNotGiven(0);
+        setUpLowestRatio(new QuizAnswerRatioDto(2, 10.0));
+
+        //Act
+        Integer actual = quizSelectionEngine.selectVocabId(lowestCorrectionRatioStrategy, USER_ID, false);
+
+        //Assert
+        assertThat(actual).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("出題済みデータがない場合は例外とならずランダムに選択")
+    void selectRandomWithoutCandidates() {
+        //Arrange
+        setUpNotGiven(0);
+        setUpLowestRatio();
+        doReturn(7).when(vocabIdIndex).pickRandomVocabId();
+
+        //Act
+        Integer actual = quizSelectionEngine.selectVocabId(lowestCorrectionRatioStrategy, USER_ID, false);
+
+        //Assert
+        assertThat(actual).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("未出題と正答率0の英単語から未出題の件数に応じた重みで選択")
+    void selectNotGivenAmongZeroRatio() {
+        //Arrange
+        setUpNotGiven(2);
+        doReturn(List.of(1)).when(quizAggregationRepository).findZeroIncorrectionRatioVocabs(USER_ID, false);
+        // the candidate with ID 1 is not taken since the random number is not less than its weight
+        doReturn(1).when(randomNumberGenerator).generateIntRandomNumber(3);
+        doReturn(8).when(vocabIdIndex).pickRandomNotGivenVocabId(USER_ID);
+
+        //Act
+        Integer actual = quizSelectionEngine.selectVocabId(lowestCorrectionRatioStrategy, USER_ID, false);
+
+        //Assert
+        assertThat(actual).isEqualTo(8);
+        verify(quizAggregationRepository, never()).findLowestIncorrectionRatio(USER_ID, false, 1);
+    }
+
+    @Test
+    @DisplayName("未出題の英単語を正答率が0より大きい英単語より優先")
+    void selectNotGivenBeforeLowestRatio() {
+        //Arrange
+        setUpNotGiven(2);
+        setUpLowestRatio(new QuizAnswerRatioDto(2, 10.0));
+        doReturn(8).when(vocabIdIndex).pickRandomNotGivenVocabId(USER_ID);
+
+        //Act
+        Integer actual = quizSelectionEngine.selectVocabId(lowestCorrectionRatioStrategy, USER_ID, false);
+
+        //Assert
+        assertThat(actual).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("最後の回答が誤答の英単語を未出題の英単語より優先")
+    void selectLastIncorrectBeforeNotGiven() {
+        //Arrange
+        setUpNotGiven(3);
+        doReturn(List.of(2)).when(quizAggregationRepository).findLastIncorrectVocabs(USER_ID, false);
+
+        //Act
+        Integer actual = quizSelectionEngine.selectVocabId(lastIncorrectStrategy, USER_ID, false);
+
+        //Assert
+        assertThat(actual).isEqualTo(2);
+        verify(vocabIdIndex, never()).pickRandomNotGivenVocabId(USER_ID);
+        verify(randomNumberGenerator, never()).generateIntRandomNumber(anyInt());
+    }
+
+    @Test
+    @DisplayName("出題日が最も古い英単語より未出題の英単語を優先")
+    void selectNotGivenBeforeLeastRecent() {
+        //Arrange
+        setUpNotGiven(1);
+        doReturn(3).when(quizAggregationRepository).findLeastRecentGivenVocab(USER_ID, false);
+        doReturn(8).when(vocabIdIndex).pickRandomNotGivenVocabId(USER_ID);
+
+        //Act
+        Integer actual = quizSelectionEngine.selectVocabId(leastRecentStrategy, USER_ID, false);
+
+        //Assert
+        assertThat(actual).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("復習期限を過ぎた英単語を未出題の英単語より優先")
+    void selectEarliestDue() {
+        //Arrange
+        setUpNotGiven(1);
+        doReturn(schedule(2, LocalDateTime.now().minusDays(2)))
+            .when(quizScheduleRepository).findEarliestDue(USER_ID, false);
+
+        //Act
+        Integer actual = quizSelectionEngine.selectVocabId(spacedRepetitionStrategy, USER_ID, false);
+
+        //Assert
+        assertThat(actual).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("復習期限前の英単語より未出題の英単語を優先")
+    void selectNotGivenBeforeNotDue() {
+        //Arrange
+        setUpNotGiven(1);
+        doReturn(schedule(2, LocalDateTime.now().plusDays(1)))
+            .when(quizScheduleRepository).findEarliestDue(USER_ID, false);
+        doReturn(8).when(vocabIdIndex).pickRandomNotGivenVocabId(USER_ID);
+
+        //Act
+        Integer actual = quizSelectionEngine.selectVocabId(spacedRepetitionStrategy, USER_ID, false);
+
+        //Assert
+        assertThat(actual).isEqualTo(8);
+    }
+
+}
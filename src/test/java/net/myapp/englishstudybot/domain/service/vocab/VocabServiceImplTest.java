@@ -0,0 +1,119 @@
+package net.myapp.englishstudybot.domain.service.vocab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.myapp.englishstudybot.domain.model.UserEntity;
+import net.myapp.englishstudybot.domain.model.VocabEntity;
+import net.myapp.englishstudybot.domain.model.vocab.VocabImportErrorDto;
+import net.myapp.englishstudybot.domain.model.vocab.VocabImportResultDto;
+import net.myapp.englishstudybot.domain.repository.UserRepository;
+import net.myapp.englishstudybot.domain.repository.VocabRepository;
+import net.myapp.englishstudybot.domain.service.quiz.QuizPrefetcher;
+
+class VocabServiceImplTest {
+
+    private VocabRepository vocabRepository;
+    private UserRepository userRepository;
+    private VocabServiceImpl vocabService;
+
+    @BeforeEach
+    void setUpEach() {
+        vocabRepository = mock(VocabRepository.class);
+        userRepository = mock(UserRepository.class);
+        vocabService
+         = new VocabServiceImpl(vocabRepository, userRepository, mock(QuizPrefetcher.class));
+        doReturn(new UserEntity("testUserA")).when(userRepository).findById("testUserA");
+    }
+
+    @Test
+    @DisplayName("取り込まれなかった行を行番号と理由とともに報告")
+    void reportRowsNotImported() {
+        //Arrange
+        List<VocabEntity> vocabs
+         = List.of(
+            vocab("apple", "りんご", "testUserA"),
+            vocab("apple", "りんご", "testUserA"),
+            vocab("", "ペン", "testUserA"),
+            vocab("pen", "ペン", "unknownUser"),
+            vocab("book", "本", "testUserA"),
+            vocab("desk", "机", "unknownUser")
+        );
+        // emulates ON CONFLICT DO NOTHING and the foreign key of users
+        doAnswer(invocation -> {
+            List<VocabEntity> validVocabs = invocation.getArgument(0);
+            return List.of(
+                added(1, validVocabs.get(0)), // apple
+                added(2, validVocabs.get(3))  // book
+            );
+        }).when(vocabRepository).addAll(anyList());
+
+        //Act
+        VocabImportResultDto result = vocabService.importVocabs(vocabs);
+
+        //Assert
+        assertThat(result.getTotalCount()).isEqualTo(6);
+        assertThat(result.getImportedCount()).isEqualTo(2);
+        assertThat(result.getErrors())
+            .extracting(
+                VocabImportErrorDto::getRow,
+                VocabImportErrorDto::getSpelling,
+                VocabImportErrorDto::getReason
+            )
+            .containsExactly(
+                tuple(2, "apple", "duplicated"),
+                tuple(3, "", "spelling is empty"),
+                tuple(4, "pen", "usersId does not exist"),
+                tuple(6, "desk", "usersId does not exist")
+            );
+        assertThat(vocabs).extracting(VocabEntity::getId)
+            .containsExactly(1, null, null, null, 2, null);
+        // the existence of each user is looked up once
+        verify(userRepository, times(1)).findById("unknownUser");
+        verify(userRepository, times(1)).findById("testUserA");
+    }
+
+    @Test
+    @DisplayName("usersIdが指定されていない行はadminとして取り込み")
+    void importAsAdmin() {
+        //Arrange
+        List<VocabEntity> vocabs = List.of(vocab("apple", "りんご", null));
+        doAnswer(invocation -> {
+            List<VocabEntity> validVocabs = invocation.getArgument(0);
+            return List.of(added(1, validVocabs.get(0)));
+        }).when(vocabRepository).addAll(anyList());
+
+        //Act
+        VocabImportResultDto result = vocabService.importVocabs(vocabs);
+
+        //Assert
+        assertThat(result.getImportedCount()).isEqualTo(1);
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(vocabs.get(0).getUsersId()).isEqualTo("admin");
+        assertThat(vocabs.get(0).getExampleEn()).isEmpty();
+    }
+
+    private VocabEntity vocab(String spelling, String meaning, String usersId) {
+        return new VocabEntity(null, spelling, meaning, null, null, usersId, null, null);
+    }
+
+    private VocabEntity added(Integer id, VocabEntity vocab) {
+        return new VocabEntity(
+            id, vocab.getSpelling(), vocab.getMeaning(), vocab.getExampleEn(), vocab.getExampleJp(),
+            vocab.getUsersId(), vocab.getCreatedAt(), vocab.getUpdatedAt()
+        );
+    }
+
+}
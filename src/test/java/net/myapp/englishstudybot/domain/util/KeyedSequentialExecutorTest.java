@@ -0,0 +1,119 @@
+package net.myapp.englishstudybot.domain.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class KeyedSequentialExecutorTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    private final KeyedSequentialExecutor<String> keyedExecutor = new KeyedSequentialExecutor<>(pool);
+
+    @AfterEach
+    void tearDownEach() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("同じキーのタスクは非同期処理の完了を待って投入順に実行")
+    void runSameKeyInOrder() {
+        //Arrange
+        List<String> events = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> firstReply = new CompletableFuture<>();
+
+        //Act
+        keyedExecutor.submit("userA", () -> {
+            events.add("first started");
+            return firstReply.thenRun(() -> events.add("first replied"));
+        });
+        CompletableFuture<Void> second = keyedExecutor.execute("userA", () -> events.add("second started"));
+        // the first task is completed asynchronously after the second is submitted
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> firstReply.complete(null));
+        second.join();
+
+        //Assert
+        assertThat(events).containsExactly("first started", "first replied", "second started");
+    }
+
+    @Test
+    @DisplayName("異なるキーのタスクは並列に実行")
+    void runDifferentKeysInParallel() throws InterruptedException {
+        //Arrange
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        //Act
+        CompletableFuture<Void> taskA = keyedExecutor.execute("userA", () -> awaitBoth(bothStarted));
+        CompletableFuture<Void> taskB = keyedExecutor.execute("userB", () -> awaitBoth(bothStarted));
+        CompletableFuture.allOf(taskA, taskB).join();
+
+        //Assert
+        assertThat(bothStarted.getCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("失敗したタスクの後も同じキーのタスクを実行")
+    void runAfterFailure() {
+        //Act
+        CompletableFuture<Void> failed
+         = keyedExecutor.execute("userA", () -> { throw new IllegalStateException("failed"); });
+        CompletableFuture<Void> next = keyedExecutor.execute("userA", () -> {});
+        next.join();
+
+        //Assert
+        assertThatThrownBy(failed::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(keyedExecutor.awaitKey("userA")).isDone();
+    }
+
+    @Test
+    @DisplayName("Errorを投げたタスクの後も同じキーのタスクを実行")
+    void runAfterError() {
+        //Act
+        CompletableFuture<Void> failed
+         = keyedExecutor.execute("userA", () -> { throw new AssertionError("failed"); });
+        CompletableFuture<Void> next = keyedExecutor.execute("userA", () -> {});
+        next.join();
+
+        //Assert
+        assertThatThrownBy(failed::join).hasCauseInstanceOf(AssertionError.class);
+        assertThat(keyedExecutor.awaitKey("userA")).isDone();
+    }
+
+    @Test
+    @DisplayName("実行を拒否されたタスクは失敗として完了し同じキーのタスクを妨げない")
+    void completeRejectedTask() {
+        //Arrange
+        KeyedSequentialExecutor<String> rejectingExecutor
+         = new KeyedSequentialExecutor<>(runnable -> { throw new RejectedExecutionException("rejected"); });
+
+        //Act
+        CompletableFuture<Void> rejected = rejectingExecutor.execute("userA", () -> {});
+
+        //Assert
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(rejectingExecutor.awaitKey("userA")).isDone();
+    }
+
+    // counts down the latch and waits for the other task (which never happens if run sequentially)
+    private void awaitBoth(CountDownLatch bothStarted) {
+        bothStarted.countDown();
+        try {
+            bothStarted.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}